@@ -0,0 +1,64 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one or more
+ *  contributor license agreements. See the NOTICE file distributed with
+ *  this work for additional information regarding copyright ownership.
+ *  The ASF licenses this file to You under the Apache License, Version 2.0
+ *  (the "License"); you may not use this file except in compliance with
+ *  the License. You may obtain a copy of the License at
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.commandline.command.snapshot;
+
+package io.github.ingvard.incubator.ignite.flyway.commandline.command.reset;
+
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinReset;
+import java.util.List;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.output.OperationResult;
+import org.flywaydb.core.extensibility.CommandExtension;
+import org.flywaydb.core.internal.util.Pair;
+
+/**
+ * Ignite reset extension, clears data of the schemas and keeps tables and indexes.
+ */
+public class ResetCommandExtension implements CommandExtension {
+    /**
+     * Reset command.
+     */
+    public static final String RESET_COMMAND = "reset";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public boolean handlesCommand(String cmd) {
+        return RESET_COMMAND.equals(cmd);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public boolean handlesParameter(String param) {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public OperationResult handle(String cmd, Configuration cfg, List<String> flags) throws FlywayException {
+        return IgniteThinReset.reset(cfg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<Pair<String, String>> getUsage() {
+        return List.of(Pair.of(RESET_COMMAND, "Clears all rows and removes history above flyway.ignite.reset.version"));
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinClientFactory;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinDatabase;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.apache.ignite.client.ClientCache;
+import org.apache.ignite.client.IgniteClient;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Base class of Java migrations that work with caches directly through the binary protocol instead of JDBC. The thin
+ * client is shared with the Flyway database: it connects to the addresses of the Flyway data source with partition
+ * awareness on and is closed together with the database. Bulk helpers split their input into batches of
+ * {@link #batchSize()} entries, so a migration can stream any number of entries without holding them in memory.
+ * <pre>{@code
+ * public class V2__Rename_persons extends BaseIgniteJavaMigration {
+ *     protected void migrate(Context ctx, IgniteClient client) {
+ *         ClientCache<Long, BinaryObject> cache = client.cache("SQL_PUBLIC_PERSON").withKeepBinary();
+ *
+ *         putAll(cache, renamed(cache.query(new ScanQuery<>())));
+ *     }
+ * }
+ * }</pre>
+ */
+public abstract class BaseIgniteJavaMigration extends BaseJavaMigration {
+    /**
+     * Batch size, it is resolved by {@link #migrate(Context)}.
+     */
+    private int batchSize = 1_000;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public final void migrate(Context ctx) throws Exception {
+        batchSize = IgniteConfigurationExtension.of(ctx.getConfiguration()).getJavaBatchSize();
+
+        IgniteThinDatabase.checkLockNotSkipped(ctx.getConfiguration());
+
+        IgniteClient client = IgniteThinDatabase.getThinClient(ctx.getConfiguration());
+
+        if (client != null) {
+            migrate(ctx, client);
+
+            return;
+        }
+
+        // The migration is executed outside of an open Flyway database, the client lives as long as the migration.
+        try (IgniteClient own = IgniteThinClientFactory.startClient(ctx.getConfiguration(),
+                ctx.getConnection().getMetaData().getURL())) {
+            migrate(ctx, own);
+        }
+    }
+
+    /**
+     * Executes the migration.
+     *
+     * @param ctx    Migration context, its JDBC connection can be used as well.
+     * @param client Thin client.
+     * @throws Exception If failed.
+     */
+    protected abstract void migrate(Context ctx, IgniteClient client) throws Exception;
+
+    /**
+     * Gets the number of entries a bulk operation sends per request, {@link IgniteConfigurationExtension#getJavaBatchSize()}
+     * by default.
+     */
+    protected int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Puts entries by batches.
+     *
+     * @param cache   Cache.
+     * @param entries Entries.
+     * @param <K>     Key type.
+     * @param <V>     Value type.
+     * @return The number of put entries.
+     */
+    protected <K, V> long putAll(ClientCache<K, V> cache, Iterable<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        int size = batchSize();
+        Map<K, V> batch = new HashMap<>();
+        long cnt = 0;
+
+        for (Map.Entry<? extends K, ? extends V> e : entries) {
+            batch.put(e.getKey(), e.getValue());
+
+            if (batch.size() >= size) {
+                cache.putAll(batch);
+
+                cnt += batch.size();
+                batch = new HashMap<>();
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            cache.putAll(batch);
+
+            cnt += batch.size();
+        }
+
+        return cnt;
+    }
+
+    /**
+     * Gets entries by batches, every batch is passed to the consumer as soon as it is read.
+     *
+     * @param cache    Cache.
+     * @param keys     Keys.
+     * @param consumer Consumer of batches, missing keys are not in the batch.
+     * @param <K>      Key type.
+     * @param <V>      Value type.
+     */
+    protected <K, V> void getAll(ClientCache<K, V> cache, Iterable<? extends K> keys, Consumer<Map<K, V>> consumer) {
+        for (List<K> batch : this.<K>batches(keys)) {
+            consumer.accept(cache.getAll(new HashSet<>(batch)));
+        }
+    }
+
+    /**
+     * Removes entries by batches.
+     *
+     * @param cache Cache.
+     * @param keys  Keys.
+     * @param <K>   Key type.
+     * @param <V>   Value type.
+     * @return The number of keys requested to be removed.
+     */
+    protected <K, V> long removeAll(ClientCache<K, V> cache, Iterable<? extends K> keys) {
+        long cnt = 0;
+
+        for (List<K> batch : this.<K>batches(keys)) {
+            cache.removeAll(new HashSet<>(batch));
+
+            cnt += batch.size();
+        }
+
+        return cnt;
+    }
+
+    /**
+     * Splits keys into batches of {@link #batchSize()} keys lazily.
+     *
+     * @param keys Keys.
+     * @param <K>  Key type.
+     */
+    private <K> Iterable<List<K>> batches(Iterable<? extends K> keys) {
+        int size = batchSize();
+
+        return () -> new Iterator<>() {
+            /**
+             * Keys.
+             */
+            private final Iterator<? extends K> it = keys.iterator();
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override public List<K> next() {
+                List<K> batch = new ArrayList<>(size);
+
+                while (it.hasNext() && batch.size() < size) {
+                    batch.add(it.next());
+                }
+
+                return batch;
+            }
+        };
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import io.github.ingvard.incubator.ignite.flyway.compute.EntryTransformer;
+import io.github.ingvard.incubator.ignite.flyway.compute.PartitionTransformResult;
+import io.github.ingvard.incubator.ignite.flyway.compute.TransformCacheTask;
+import io.github.ingvard.incubator.ignite.flyway.compute.TransformDefinition;
+import java.util.List;
+import org.apache.ignite.client.IgniteClient;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Base class of Java migrations that transform every entry of a cache on the server nodes: the migration starts one
+ * {@link TransformCacheTask} through the thin client and the entries are read and written back by the nodes that own
+ * them, so no data is sent to the migration runner. The {@link EntryTransformer} and the task must be on the
+ * classpath of server nodes and thin client compute must be enabled.
+ * <pre>{@code
+ * public class V3__Uppercase_names extends BaseIgniteTransformMigration {
+ *     protected String cacheName() {
+ *         return "SQL_PUBLIC_PERSON";
+ *     }
+ *
+ *     protected Class<? extends EntryTransformer<?, ?>> transformer() {
+ *         return UppercaseName.class;
+ *     }
+ * }
+ * }</pre>
+ */
+public abstract class BaseIgniteTransformMigration extends BaseIgniteJavaMigration {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(BaseIgniteTransformMigration.class);
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected final void migrate(Context ctx, IgniteClient client) throws Exception {
+        TransformDefinition def = new TransformDefinition(cacheName(), transformer().getName(), keepBinary(), batchSize(),
+                jobsPerNode());
+
+        long start = System.currentTimeMillis();
+
+        List<PartitionTransformResult> res = client.compute().execute(TransformCacheTask.class.getName(), def);
+
+        long scanned = 0;
+        long updated = 0;
+        long removed = 0;
+
+        for (PartitionTransformResult part : res) {
+            LOG.debug("Transformed partition " + part.getPartition() + " of " + def.getCacheName() + ": "
+                    + part.getScanned() + " scanned, " + part.getUpdated() + " updated, " + part.getRemoved() + " removed");
+
+            scanned += part.getScanned();
+            updated += part.getUpdated();
+            removed += part.getRemoved();
+        }
+
+        LOG.info("Transformed " + def.getCacheName() + " on " + res.size() + " partitions: " + scanned + " scanned, "
+                + updated + " updated, " + removed + " removed in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * Gets the name of the cache to transform.
+     */
+    protected abstract String cacheName();
+
+    /**
+     * Gets the transformer class, it is instantiated on server nodes by the no-arg constructor.
+     */
+    protected abstract Class<? extends EntryTransformer<?, ?>> transformer();
+
+    /**
+     * Returns {@code true} if entries are passed to the transformer as binary objects, {@code true} by default.
+     */
+    protected boolean keepBinary() {
+        return true;
+    }
+
+    /**
+     * Gets the number of jobs the primary partitions of a server node are split between, {@code 1} by default.
+     */
+    protected int jobsPerNode() {
+        return 1;
+    }
+}
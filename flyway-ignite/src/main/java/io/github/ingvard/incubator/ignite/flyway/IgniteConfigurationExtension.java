@@ -0,0 +1,1500 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import java.util.Locale;
+import java.util.Map;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.extensibility.ConfigurationExtension;
+
+/**
+ * Ignite specific configuration. Properties are passed with the {@link #PROPERTY_PREFIX} prefix through the regular
+ * Flyway configuration ({@code flyway.conf}, {@code FluentConfiguration#configuration(Map)}) or as environment variables
+ * with the {@code FLYWAY_IGNITE_} prefix, for example: {@code flyway.ignite.lock.waitMode=CONTINUOUS_QUERY}.
+ */
+public class IgniteConfigurationExtension implements ConfigurationExtension {
+    /**
+     * Property prefix.
+     */
+    public static final String PROPERTY_PREFIX = "flyway.ignite.";
+
+    /**
+     * Environment variable prefix.
+     */
+    private static final String ENV_VAR_PREFIX = "FLYWAY_IGNITE_";
+
+    /**
+     * Ignite plugin properties.
+     */
+    public enum IgniteProperty {
+        /**
+         * The way a Flyway instance waits for the schema history lock, see {@link LockWaitMode}.
+         */
+        LOCK_WAIT_MODE("lock.waitMode"),
+
+        /**
+         * Lease time of the schema history lock in milliseconds, {@code 0} disables leases.
+         */
+        LOCK_LEASE_TIME("lock.leaseTime"),
+
+        /**
+         * Interval between lease extensions in milliseconds, {@code 0} means a third of the lease time.
+         */
+        LOCK_HEARTBEAT_INTERVAL("lock.heartbeatInterval"),
+
+        /**
+         * Version another Flyway instance migrates to, an instance with this property set doesn't take the lock.
+         */
+        LOCK_WAIT_FOR_VERSION("lock.waitForVersion"),
+
+        /**
+         * How long an instance waits for {@link #LOCK_WAIT_FOR_VERSION} in milliseconds.
+         */
+        LOCK_WAIT_FOR_VERSION_TIMEOUT("lock.waitForVersionTimeout"),
+
+        /**
+         * The number of connections that drop tables concurrently on clean.
+         */
+        CLEAN_PARALLELISM("clean.parallelism"),
+
+        /**
+         * The way tables are removed on clean, see {@link CleanStrategy}.
+         */
+        CLEAN_STRATEGY("clean.strategy"),
+
+        /**
+         * Version to keep the schema history up to on reset.
+         */
+        RESET_VERSION("reset.version"),
+
+        /**
+         * Cache template of the schema history table.
+         */
+        HISTORY_TEMPLATE("history.template"),
+
+        /**
+         * The number of backups of the schema history table.
+         */
+        HISTORY_BACKUPS("history.backups"),
+
+        /**
+         * Atomicity mode of the schema history table.
+         */
+        HISTORY_ATOMICITY("history.atomicity"),
+
+        /**
+         * Write synchronization mode of the schema history table.
+         */
+        HISTORY_WRITE_SYNCHRONIZATION_MODE("history.writeSynchronizationMode"),
+
+        /**
+         * Data region of the schema history table.
+         */
+        HISTORY_DATA_REGION("history.dataRegion"),
+
+        /**
+         * Cache group of the schema history table.
+         */
+        HISTORY_CACHE_GROUP("history.cacheGroup"),
+
+        /**
+         * Inline size of the schema history table indexes.
+         */
+        HISTORY_INLINE_SIZE("history.inlineSize"),
+
+        /**
+         * Whether the schema history table has an index that covers the lock lookup.
+         */
+        HISTORY_LOCK_INDEX("history.lockIndex"),
+
+        /**
+         * Directory of the on-disk schema history cache.
+         */
+        HISTORY_CACHE_DIR("history.cacheDir"),
+
+        /**
+         * The number of consecutive DML statements of a SQL migration sent as one JDBC batch.
+         */
+        BATCH_SIZE("batch.size"),
+
+        /**
+         * The number of consecutive INSERT statements into one table that are sent in the JDBC streaming mode.
+         */
+        STREAMING_THRESHOLD("streaming.threshold"),
+
+        /**
+         * Options of {@code SET STREAMING ON} used for automatic streaming.
+         */
+        STREAMING_OPTIONS("streaming.options"),
+
+        /**
+         * Directory of the on-disk cache of parsed SQL migrations.
+         */
+        PARSE_CACHE_DIR("parse.cacheDir"),
+
+        /**
+         * The number of threads SQL migrations are parsed in ahead of execution.
+         */
+        PARSE_PARALLELISM("parse.parallelism"),
+
+        /**
+         * The number of connections consecutive DDL statements of a SQL migration are executed over.
+         */
+        DDL_PARALLELISM("ddl.parallelism"),
+
+        /**
+         * Whether consecutive CREATE TABLE statements of a SQL migration are executed by one cache start request.
+         */
+        DDL_COALESCE_CREATE_TABLES("ddl.coalesceCreateTables"),
+
+        /**
+         * When a migration waits for the cluster to finish rebalancing and get under the load threshold, see {@link PacingMode}.
+         */
+        PACING_MODE("pacing.mode"),
+
+        /**
+         * How long a migration waits for the cluster to settle in milliseconds, see {@link #PACING_MODE}.
+         */
+        PACING_TIMEOUT("pacing.timeout"),
+
+        /**
+         * CPU load in percent every node must get under before a migration continues, see {@link #PACING_MODE}.
+         */
+        PACING_MAX_CPU_LOAD("pacing.maxCpuLoad"),
+
+        /**
+         * Whether a migration waits for rebalancing to finish, see {@link #PACING_MODE}.
+         */
+        PACING_REBALANCE("pacing.rebalance"),
+
+        /**
+         * Whether {@code PARALLEL} and {@code INLINE_SIZE} of CREATE INDEX statements are planned by the plugin.
+         */
+        INDEX_PLAN("index.plan"),
+
+        /**
+         * The highest {@code PARALLEL} the index planner chooses, see {@link #INDEX_PLAN}.
+         */
+        INDEX_MAX_PARALLELISM("index.maxParallelism"),
+
+        /**
+         * The highest {@code INLINE_SIZE} the index planner chooses, see {@link #INDEX_PLAN}.
+         */
+        INDEX_MAX_INLINE_SIZE("index.maxInlineSize"),
+
+        /**
+         * The number of rows an UPDATE or DELETE statement with the {@code ignite:chunked} hint changes per chunk.
+         */
+        CHUNK_SIZE("chunk.size"),
+
+        /**
+         * Pause between chunks of a chunked DML statement in milliseconds.
+         */
+        CHUNK_PAUSE("chunk.pause"),
+
+        /**
+         * Whether chunked DML statements record their progress in the checkpoint table.
+         */
+        CHECKPOINT_ENABLED("checkpoint.enabled"),
+
+        /**
+         * The number of partitions a DML statement with the {@code ignite:partitioned} hint is executed on concurrently.
+         */
+        DML_PARALLELISM("dml.parallelism"),
+
+        /**
+         * The number of entries a bulk operation of {@link BaseIgniteJavaMigration} sends per request.
+         */
+        JAVA_BATCH_SIZE("java.batchSize");
+
+        /**
+         * Property name without {@link #PROPERTY_PREFIX}.
+         */
+        private final String name;
+
+        /**
+         * Default constructor.
+         *
+         * @param name Property name.
+         */
+        IgniteProperty(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Gets property name without {@link #PROPERTY_PREFIX}.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Gets property name with {@link #PROPERTY_PREFIX}.
+         */
+        public String getKey() {
+            return PROPERTY_PREFIX + name;
+        }
+
+        /**
+         * Gets environment variable name, for example: {@code lock.waitMode -> FLYWAY_IGNITE_LOCK_WAIT_MODE}.
+         */
+        public String getEnvironmentVariable() {
+            return ENV_VAR_PREFIX + name.replaceAll("([a-z])([A-Z])", "$1_$2").replace('.', '_').toUpperCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * Schema history lock wait mode.
+     */
+    public enum LockWaitMode {
+        /**
+         * A contender retries to take the lock once per second.
+         */
+        POLLING,
+
+        /**
+         * A contender listens the schema history cache by a thin client continuous query and retries as soon as the lock
+         * row is removed. Polling is kept as a fallback.
+         */
+        CONTINUOUS_QUERY
+    }
+
+    /**
+     * Schema clean strategy.
+     */
+    public enum CleanStrategy {
+        /**
+         * Every table is dropped by its own {@code DROP TABLE} statement.
+         */
+        TABLE,
+
+        /**
+         * Caches of tables sharing a cache group are destroyed together by a compute task, the rest tables are dropped
+         * one by one.
+         */
+        CACHE_GROUP
+    }
+
+    /**
+     * Pacing mode: when a migration waits for the cluster to finish rebalancing and get under the load threshold.
+     */
+    public enum PacingMode {
+        /**
+         * Migrations don't wait.
+         */
+        NONE,
+
+        /**
+         * A SQL migration waits after it is executed, so the next migration doesn't start on a busy cluster.
+         */
+        MIGRATION,
+
+        /**
+         * A SQL migration also waits after every DDL statement or run of DDL statements.
+         */
+        STATEMENT
+    }
+
+    /**
+     * Lock wait mode.
+     */
+    private LockWaitMode lockWaitMode = LockWaitMode.POLLING;
+
+    /**
+     * Lock lease time in milliseconds.
+     */
+    private long lockLeaseTime;
+
+    /**
+     * Lock heartbeat interval in milliseconds.
+     */
+    private long lockHeartbeatInterval;
+
+    /**
+     * Version to wait for instead of taking the lock or {@code null}.
+     */
+    private MigrationVersion lockWaitForVersion;
+
+    /**
+     * Timeout of waiting for {@link #lockWaitForVersion} in milliseconds.
+     */
+    private long lockWaitForVersionTimeout = 600_000;
+
+    /**
+     * Clean parallelism.
+     */
+    private int cleanParallelism = 1;
+
+    /**
+     * Clean strategy.
+     */
+    private CleanStrategy cleanStrategy = CleanStrategy.TABLE;
+
+    /**
+     * Version to keep the schema history up to on reset or {@code null}.
+     */
+    private MigrationVersion resetVersion;
+
+    /**
+     * History table cache template.
+     */
+    private String historyTemplate = "REPLICATED";
+
+    /**
+     * History table backups.
+     */
+    private int historyBackups = 1;
+
+    /**
+     * History table atomicity mode.
+     */
+    private String historyAtomicity = "ATOMIC";
+
+    /**
+     * History table write synchronization mode or {@code null} for the cluster default.
+     */
+    private String historyWriteSynchronizationMode;
+
+    /**
+     * History table data region or {@code null} for the default region.
+     */
+    private String historyDataRegion;
+
+    /**
+     * History table cache group or {@code null}.
+     */
+    private String historyCacheGroup;
+
+    /**
+     * History table index inline size, {@code 0} for the cluster default.
+     */
+    private int historyInlineSize;
+
+    /**
+     * History table lock index flag.
+     */
+    private boolean historyLockIndex;
+
+    /**
+     * Directory of the on-disk schema history cache or {@code null} if the cache is disabled.
+     */
+    private String historyCacheDir;
+
+    /**
+     * DML batch size, {@code 0} disables batching.
+     */
+    private int batchSize;
+
+    /**
+     * Streaming threshold, {@code 0} disables automatic streaming.
+     */
+    private int streamingThreshold;
+
+    /**
+     * Streaming options or {@code null}.
+     */
+    private String streamingOptions;
+
+    /**
+     * Directory of the on-disk cache of parsed SQL migrations or {@code null} if the cache is disabled.
+     */
+    private String parseCacheDir;
+
+    /**
+     * The number of threads SQL migrations are parsed in ahead of execution, {@code 0} disables pre-parsing.
+     */
+    private int parseParallelism;
+
+    /**
+     * The number of connections consecutive DDL statements are executed over, {@code 0} or {@code 1} disables parallel DDL.
+     */
+    private int ddlParallelism;
+
+    /**
+     * Whether consecutive CREATE TABLE statements are executed by one cache start request.
+     */
+    private boolean ddlCoalesceCreateTables;
+
+    /**
+     * Pacing mode.
+     */
+    private PacingMode pacingMode = PacingMode.NONE;
+
+    /**
+     * Pacing timeout in milliseconds.
+     */
+    private long pacingTimeout = 600_000;
+
+    /**
+     * Maximum CPU load in percent.
+     */
+    private int pacingMaxCpuLoad = 80;
+
+    /**
+     * Whether pacing waits for rebalancing.
+     */
+    private boolean pacingRebalance = true;
+
+    /**
+     * Whether CREATE INDEX statements are planned.
+     */
+    private boolean indexPlan;
+
+    /**
+     * The highest planned index build parallelism.
+     */
+    private int indexMaxParallelism;
+
+    /**
+     * The highest planned index inline size.
+     */
+    private int indexMaxInlineSize = 128;
+
+    /**
+     * Chunk size of chunked DML statements.
+     */
+    private int chunkSize = 10_000;
+
+    /**
+     * Pause between chunks in milliseconds.
+     */
+    private long chunkPause;
+
+    /**
+     * Whether chunked DML statements record their progress.
+     */
+    private boolean checkpointEnabled;
+
+    /**
+     * The number of partitions a partitioned DML statement is executed on concurrently.
+     */
+    private int dmlParallelism = 4;
+
+    /**
+     * Batch size of Java migration bulk operations.
+     */
+    private int javaBatchSize = 1_000;
+
+    /**
+     * Returns the plugin configuration registered for the given Flyway configuration or the default one.
+     *
+     * @param cfg Flyway configuration.
+     */
+    public static IgniteConfigurationExtension of(Configuration cfg) {
+        IgniteConfigurationExtension ext = cfg.getPluginRegister().getPlugin(IgniteConfigurationExtension.class);
+
+        return ext != null ? ext : new IgniteConfigurationExtension();
+    }
+
+    /**
+     * Gets lock wait mode.
+     */
+    public LockWaitMode getLockWaitMode() {
+        return lockWaitMode;
+    }
+
+    /**
+     * Sets lock wait mode.
+     *
+     * @param lockWaitMode Lock wait mode.
+     */
+    public IgniteConfigurationExtension setLockWaitMode(LockWaitMode lockWaitMode) {
+        this.lockWaitMode = lockWaitMode;
+
+        return this;
+    }
+
+    /**
+     * Gets lock lease time in milliseconds, {@code 0} if leases are disabled.
+     */
+    public long getLockLeaseTime() {
+        return lockLeaseTime;
+    }
+
+    /**
+     * Sets lock lease time. A lock holder keeps extending the lease while it is alive, a lock with an expired lease is
+     * removed by a contender, so a killed Flyway instance doesn't block later deployments.
+     *
+     * @param lockLeaseTime Lock lease time in milliseconds, {@code 0} disables leases.
+     */
+    public IgniteConfigurationExtension setLockLeaseTime(long lockLeaseTime) {
+        this.lockLeaseTime = lockLeaseTime;
+
+        return this;
+    }
+
+    /**
+     * Gets interval between lease extensions in milliseconds.
+     */
+    public long getLockHeartbeatInterval() {
+        return lockHeartbeatInterval > 0 ? lockHeartbeatInterval : lockLeaseTime / 3;
+    }
+
+    /**
+     * Sets interval between lease extensions.
+     *
+     * @param lockHeartbeatInterval Interval in milliseconds, {@code 0} means a third of the lease time.
+     */
+    public IgniteConfigurationExtension setLockHeartbeatInterval(long lockHeartbeatInterval) {
+        this.lockHeartbeatInterval = lockHeartbeatInterval;
+
+        return this;
+    }
+
+    /**
+     * Gets the version to wait for instead of taking the lock or {@code null} if the lock is always taken.
+     */
+    public MigrationVersion getLockWaitForVersion() {
+        return lockWaitForVersion;
+    }
+
+    /**
+     * Sets the version to wait for. An instance with this version set doesn't contend for the schema history lock: it
+     * waits until another instance records the version as successfully applied and then proceeds without the lock, so
+     * it must not have migrations above the version.
+     *
+     * @param lockWaitForVersion Version or {@code null} to always take the lock.
+     */
+    public IgniteConfigurationExtension setLockWaitForVersion(MigrationVersion lockWaitForVersion) {
+        this.lockWaitForVersion = lockWaitForVersion;
+
+        return this;
+    }
+
+    /**
+     * Gets timeout of waiting for {@link #getLockWaitForVersion()} in milliseconds.
+     */
+    public long getLockWaitForVersionTimeout() {
+        return lockWaitForVersionTimeout;
+    }
+
+    /**
+     * Sets timeout of waiting for {@link #getLockWaitForVersion()}.
+     *
+     * @param lockWaitForVersionTimeout Timeout in milliseconds.
+     */
+    public IgniteConfigurationExtension setLockWaitForVersionTimeout(long lockWaitForVersionTimeout) {
+        this.lockWaitForVersionTimeout = lockWaitForVersionTimeout;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of connections that drop tables concurrently on clean.
+     */
+    public int getCleanParallelism() {
+        return cleanParallelism;
+    }
+
+    /**
+     * Sets the number of connections that drop tables concurrently on clean.
+     *
+     * @param cleanParallelism Clean parallelism, {@code 1} drops tables one by one over the main connection.
+     */
+    public IgniteConfigurationExtension setCleanParallelism(int cleanParallelism) {
+        if (cleanParallelism < 1) {
+            throw new IllegalArgumentException("Clean parallelism must be positive: " + cleanParallelism);
+        }
+
+        this.cleanParallelism = cleanParallelism;
+
+        return this;
+    }
+
+    /**
+     * Gets clean strategy.
+     */
+    public CleanStrategy getCleanStrategy() {
+        return cleanStrategy;
+    }
+
+    /**
+     * Sets clean strategy.
+     *
+     * @param cleanStrategy Clean strategy.
+     */
+    public IgniteConfigurationExtension setCleanStrategy(CleanStrategy cleanStrategy) {
+        this.cleanStrategy = cleanStrategy;
+
+        return this;
+    }
+
+    /**
+     * Gets the version to keep the schema history up to on reset or {@code null} if the history is kept as is.
+     */
+    public MigrationVersion getResetVersion() {
+        return resetVersion;
+    }
+
+    /**
+     * Sets the version to keep the schema history up to on reset, migrations installed after it are applied again by
+     * the next migrate.
+     *
+     * @param resetVersion Version or {@code null} to keep the history as is.
+     */
+    public IgniteConfigurationExtension setResetVersion(MigrationVersion resetVersion) {
+        this.resetVersion = resetVersion;
+
+        return this;
+    }
+
+    /**
+     * Gets cache template of the schema history table.
+     */
+    public String getHistoryTemplate() {
+        return historyTemplate;
+    }
+
+    /**
+     * Sets cache template of the schema history table.
+     *
+     * @param historyTemplate Cache template, {@code REPLICATED} by default.
+     */
+    public IgniteConfigurationExtension setHistoryTemplate(String historyTemplate) {
+        this.historyTemplate = historyTemplate;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of backups of the schema history table.
+     */
+    public int getHistoryBackups() {
+        return historyBackups;
+    }
+
+    /**
+     * Sets the number of backups of the schema history table.
+     *
+     * @param historyBackups The number of backups, {@code 1} by default.
+     */
+    public IgniteConfigurationExtension setHistoryBackups(int historyBackups) {
+        this.historyBackups = historyBackups;
+
+        return this;
+    }
+
+    /**
+     * Gets atomicity mode of the schema history table.
+     */
+    public String getHistoryAtomicity() {
+        return historyAtomicity;
+    }
+
+    /**
+     * Sets atomicity mode of the schema history table.
+     *
+     * @param historyAtomicity Atomicity mode, {@code ATOMIC} by default.
+     */
+    public IgniteConfigurationExtension setHistoryAtomicity(String historyAtomicity) {
+        this.historyAtomicity = historyAtomicity;
+
+        return this;
+    }
+
+    /**
+     * Gets write synchronization mode of the schema history table or {@code null} for the cluster default.
+     */
+    public String getHistoryWriteSynchronizationMode() {
+        return historyWriteSynchronizationMode;
+    }
+
+    /**
+     * Sets write synchronization mode of the schema history table.
+     *
+     * @param historyWriteSynchronizationMode Write synchronization mode or {@code null} for the cluster default.
+     */
+    public IgniteConfigurationExtension setHistoryWriteSynchronizationMode(String historyWriteSynchronizationMode) {
+        this.historyWriteSynchronizationMode = historyWriteSynchronizationMode;
+
+        return this;
+    }
+
+    /**
+     * Gets data region of the schema history table or {@code null} for the default region.
+     */
+    public String getHistoryDataRegion() {
+        return historyDataRegion;
+    }
+
+    /**
+     * Sets data region of the schema history table, a small dedicated region keeps history reads and lock traffic away
+     * from the hot data.
+     *
+     * @param historyDataRegion Data region or {@code null} for the default region.
+     */
+    public IgniteConfigurationExtension setHistoryDataRegion(String historyDataRegion) {
+        this.historyDataRegion = historyDataRegion;
+
+        return this;
+    }
+
+    /**
+     * Gets cache group of the schema history table or {@code null}.
+     */
+    public String getHistoryCacheGroup() {
+        return historyCacheGroup;
+    }
+
+    /**
+     * Sets cache group of the schema history table.
+     *
+     * @param historyCacheGroup Cache group or {@code null}.
+     */
+    public IgniteConfigurationExtension setHistoryCacheGroup(String historyCacheGroup) {
+        this.historyCacheGroup = historyCacheGroup;
+
+        return this;
+    }
+
+    /**
+     * Gets inline size of the schema history table indexes, {@code 0} for the cluster default.
+     */
+    public int getHistoryInlineSize() {
+        return historyInlineSize;
+    }
+
+    /**
+     * Sets inline size of the schema history table indexes.
+     *
+     * @param historyInlineSize Inline size, {@code 0} for the cluster default.
+     */
+    public IgniteConfigurationExtension setHistoryInlineSize(int historyInlineSize) {
+        this.historyInlineSize = historyInlineSize;
+
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if the schema history table has a {@code (version, description)} index that covers the lock
+     * lookup.
+     */
+    public boolean isHistoryLockIndex() {
+        return historyLockIndex;
+    }
+
+    /**
+     * Sets whether the schema history table has a {@code (version, description)} index that covers the lock lookup.
+     *
+     * @param historyLockIndex Lock index flag.
+     */
+    public IgniteConfigurationExtension setHistoryLockIndex(boolean historyLockIndex) {
+        this.historyLockIndex = historyLockIndex;
+
+        return this;
+    }
+
+    /**
+     * Gets directory of the on-disk schema history cache or {@code null} if the cache is disabled.
+     */
+    public String getHistoryCacheDir() {
+        return historyCacheDir;
+    }
+
+    /**
+     * Sets directory of the on-disk schema history cache. Schema history rows are kept there between Flyway commands,
+     * so only rows installed since the previous command are read from the cluster.
+     *
+     * @param historyCacheDir Directory or {@code null} to disable the cache.
+     */
+    public IgniteConfigurationExtension setHistoryCacheDir(String historyCacheDir) {
+        this.historyCacheDir = historyCacheDir;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of consecutive DML statements of a SQL migration sent as one JDBC batch, {@code 0} if batching is
+     * disabled.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of consecutive DML statements of a SQL migration sent as one JDBC batch.
+     *
+     * @param batchSize Batch size, {@code 0} disables batching.
+     */
+    public IgniteConfigurationExtension setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of consecutive INSERT statements into one table that are sent in the JDBC streaming mode,
+     * {@code 0} if automatic streaming is disabled.
+     */
+    public int getStreamingThreshold() {
+        return streamingThreshold;
+    }
+
+    /**
+     * Sets the number of consecutive INSERT statements into one table that are sent in the JDBC streaming mode.
+     *
+     * @param streamingThreshold Streaming threshold, {@code 0} disables automatic streaming.
+     */
+    public IgniteConfigurationExtension setStreamingThreshold(int streamingThreshold) {
+        this.streamingThreshold = streamingThreshold;
+
+        return this;
+    }
+
+    /**
+     * Gets options of {@code SET STREAMING ON} used for automatic streaming or {@code null}.
+     */
+    public String getStreamingOptions() {
+        return streamingOptions;
+    }
+
+    /**
+     * Sets options of {@code SET STREAMING ON} used for automatic streaming.
+     *
+     * @param streamingOptions Options, for example {@code ALLOW_OVERWRITE ON PER_NODE_BUFFER_SIZE 4096}, or {@code null}.
+     */
+    public IgniteConfigurationExtension setStreamingOptions(String streamingOptions) {
+        this.streamingOptions = streamingOptions;
+
+        return this;
+    }
+
+    /**
+     * Gets directory of the on-disk cache of parsed SQL migrations or {@code null} if the cache is disabled.
+     */
+    public String getParseCacheDir() {
+        return parseCacheDir;
+    }
+
+    /**
+     * Sets directory of the on-disk cache of parsed SQL migrations. Statements of a script are kept there by the script
+     * content hash, so an unchanged script is not tokenized again.
+     *
+     * @param parseCacheDir Directory or {@code null} to disable the cache.
+     */
+    public IgniteConfigurationExtension setParseCacheDir(String parseCacheDir) {
+        this.parseCacheDir = parseCacheDir;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of threads SQL migrations are parsed in ahead of execution, {@code 0} if pre-parsing is disabled.
+     */
+    public int getParseParallelism() {
+        return parseParallelism;
+    }
+
+    /**
+     * Sets the number of threads SQL migrations are parsed in ahead of execution. Scripts are parsed into the parse cache
+     * or, if it is disabled, into memory as soon as they are resolved, migrations are still executed one by one in the
+     * usual order.
+     *
+     * @param parseParallelism The number of threads, {@code 0} disables pre-parsing.
+     */
+    public IgniteConfigurationExtension setParseParallelism(int parseParallelism) {
+        this.parseParallelism = parseParallelism;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of connections consecutive DDL statements of a SQL migration are executed over, {@code 0} or
+     * {@code 1} if parallel DDL is disabled.
+     */
+    public int getDdlParallelism() {
+        return ddlParallelism;
+    }
+
+    /**
+     * Sets the number of connections consecutive DDL statements of a SQL migration are executed over. DDL statements on
+     * different tables run concurrently, statements on the same table keep their order.
+     *
+     * @param ddlParallelism The number of connections, {@code 0} or {@code 1} disables parallel DDL.
+     */
+    public IgniteConfigurationExtension setDdlParallelism(int ddlParallelism) {
+        this.ddlParallelism = ddlParallelism;
+
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if consecutive {@code CREATE TABLE} statements of a SQL migration are executed by one cache
+     * start request.
+     */
+    public boolean isDdlCoalesceCreateTables() {
+        return ddlCoalesceCreateTables;
+    }
+
+    /**
+     * Sets whether consecutive {@code CREATE TABLE} statements of a SQL migration are executed by one cache start request,
+     * so their caches are started by one partition map exchange instead of one exchange per table.
+     *
+     * @param ddlCoalesceCreateTables {@code True} to coalesce {@code CREATE TABLE} statements.
+     */
+    public IgniteConfigurationExtension setDdlCoalesceCreateTables(boolean ddlCoalesceCreateTables) {
+        this.ddlCoalesceCreateTables = ddlCoalesceCreateTables;
+
+        return this;
+    }
+
+    /**
+     * Gets when a migration waits for the cluster to finish rebalancing and get under {@link #getPacingMaxCpuLoad()}.
+     */
+    public PacingMode getPacingMode() {
+        return pacingMode;
+    }
+
+    /**
+     * Sets when a migration waits for the cluster to finish rebalancing and get under {@link #getPacingMaxCpuLoad()}.
+     *
+     * @param pacingMode Pacing mode.
+     */
+    public IgniteConfigurationExtension setPacingMode(PacingMode pacingMode) {
+        this.pacingMode = pacingMode;
+
+        return this;
+    }
+
+    /**
+     * Gets how long a migration waits for the cluster to settle in milliseconds.
+     */
+    public long getPacingTimeout() {
+        return pacingTimeout;
+    }
+
+    /**
+     * Sets how long a migration waits for the cluster to settle.
+     *
+     * @param pacingTimeout Timeout in milliseconds.
+     */
+    public IgniteConfigurationExtension setPacingTimeout(long pacingTimeout) {
+        this.pacingTimeout = pacingTimeout;
+
+        return this;
+    }
+
+    /**
+     * Gets CPU load in percent every node must get under before a migration continues, {@code 0} disables the check.
+     */
+    public int getPacingMaxCpuLoad() {
+        return pacingMaxCpuLoad;
+    }
+
+    /**
+     * Sets CPU load in percent every node must get under before a migration continues.
+     *
+     * @param pacingMaxCpuLoad CPU load in percent, {@code 0} disables the check.
+     */
+    public IgniteConfigurationExtension setPacingMaxCpuLoad(int pacingMaxCpuLoad) {
+        if (pacingMaxCpuLoad < 0 || pacingMaxCpuLoad > 100) {
+            throw new IllegalArgumentException("Pacing max CPU load must be from 0 to 100: " + pacingMaxCpuLoad);
+        }
+
+        this.pacingMaxCpuLoad = pacingMaxCpuLoad;
+
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if a migration waits for rebalancing to finish, {@code SYS.PARTITION_STATES} is not read
+     * otherwise.
+     */
+    public boolean isPacingRebalance() {
+        return pacingRebalance;
+    }
+
+    /**
+     * Sets whether a migration waits for rebalancing to finish.
+     *
+     * @param pacingRebalance Whether pacing waits for rebalancing.
+     */
+    public IgniteConfigurationExtension setPacingRebalance(boolean pacingRebalance) {
+        this.pacingRebalance = pacingRebalance;
+
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if {@code PARALLEL} and {@code INLINE_SIZE} of {@code CREATE INDEX} statements are planned by the
+     * plugin.
+     */
+    public boolean isIndexPlan() {
+        return indexPlan;
+    }
+
+    /**
+     * Sets whether {@code PARALLEL} and {@code INLINE_SIZE} of {@code CREATE INDEX} statements are planned by the plugin.
+     *
+     * @param indexPlan Whether CREATE INDEX statements are planned.
+     */
+    public IgniteConfigurationExtension setIndexPlan(boolean indexPlan) {
+        this.indexPlan = indexPlan;
+
+        return this;
+    }
+
+    /**
+     * Gets the highest {@code PARALLEL} the index planner chooses, {@code 0} if it is limited only by the CPU count.
+     */
+    public int getIndexMaxParallelism() {
+        return indexMaxParallelism;
+    }
+
+    /**
+     * Sets the highest {@code PARALLEL} the index planner chooses.
+     *
+     * @param indexMaxParallelism Parallelism, {@code 0} if it is limited only by the CPU count.
+     */
+    public IgniteConfigurationExtension setIndexMaxParallelism(int indexMaxParallelism) {
+        if (indexMaxParallelism < 0) {
+            throw new IllegalArgumentException("Index max parallelism must not be negative: " + indexMaxParallelism);
+        }
+
+        this.indexMaxParallelism = indexMaxParallelism;
+
+        return this;
+    }
+
+    /**
+     * Gets the highest {@code INLINE_SIZE} the index planner chooses, it is also the size of an unbounded variable
+     * length column.
+     */
+    public int getIndexMaxInlineSize() {
+        return indexMaxInlineSize;
+    }
+
+    /**
+     * Sets the highest {@code INLINE_SIZE} the index planner chooses.
+     *
+     * @param indexMaxInlineSize Inline size in bytes.
+     */
+    public IgniteConfigurationExtension setIndexMaxInlineSize(int indexMaxInlineSize) {
+        if (indexMaxInlineSize < 1) {
+            throw new IllegalArgumentException("Index max inline size must be positive: " + indexMaxInlineSize);
+        }
+
+        this.indexMaxInlineSize = indexMaxInlineSize;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of rows an {@code UPDATE} or {@code DELETE} statement with the {@code ignite:chunked} hint changes
+     * per chunk.
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sets the number of rows an {@code UPDATE} or {@code DELETE} statement with the {@code ignite:chunked} hint changes
+     * per chunk.
+     *
+     * @param chunkSize Chunk size.
+     */
+    public IgniteConfigurationExtension setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+
+        this.chunkSize = chunkSize;
+
+        return this;
+    }
+
+    /**
+     * Gets pause between chunks of a chunked DML statement in milliseconds.
+     */
+    public long getChunkPause() {
+        return chunkPause;
+    }
+
+    /**
+     * Sets pause between chunks of a chunked DML statement.
+     *
+     * @param chunkPause Pause in milliseconds.
+     */
+    public IgniteConfigurationExtension setChunkPause(long chunkPause) {
+        this.chunkPause = chunkPause;
+
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if chunked DML statements record their progress in the checkpoint table, so a retried
+     * migration continues them from the last executed chunk.
+     */
+    public boolean isCheckpointEnabled() {
+        return checkpointEnabled;
+    }
+
+    /**
+     * Sets whether chunked DML statements record their progress in the checkpoint table.
+     *
+     * @param checkpointEnabled Whether chunked DML statements record their progress.
+     */
+    public IgniteConfigurationExtension setCheckpointEnabled(boolean checkpointEnabled) {
+        this.checkpointEnabled = checkpointEnabled;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of partitions a DML statement with the {@code ignite:partitioned} hint is executed on concurrently.
+     */
+    public int getDmlParallelism() {
+        return dmlParallelism;
+    }
+
+    /**
+     * Sets the number of partitions a DML statement with the {@code ignite:partitioned} hint is executed on concurrently.
+     *
+     * @param dmlParallelism The number of partitions.
+     */
+    public IgniteConfigurationExtension setDmlParallelism(int dmlParallelism) {
+        if (dmlParallelism < 1) {
+            throw new IllegalArgumentException("DML parallelism must be positive: " + dmlParallelism);
+        }
+
+        this.dmlParallelism = dmlParallelism;
+
+        return this;
+    }
+
+    /**
+     * Gets the number of entries a bulk operation of {@link BaseIgniteJavaMigration} sends per request.
+     */
+    public int getJavaBatchSize() {
+        return javaBatchSize;
+    }
+
+    /**
+     * Sets the number of entries a bulk operation of {@link BaseIgniteJavaMigration} sends per request.
+     *
+     * @param javaBatchSize Batch size.
+     */
+    public IgniteConfigurationExtension setJavaBatchSize(int javaBatchSize) {
+        if (javaBatchSize < 1) {
+            throw new IllegalArgumentException("Java batch size must be positive: " + javaBatchSize);
+        }
+
+        this.javaBatchSize = javaBatchSize;
+
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void extractParametersFromConfiguration(Map<String, String> cfg) {
+        for (IgniteProperty prop : IgniteProperty.values()) {
+            String val = cfg.remove(prop.getKey());
+
+            if (val != null) {
+                apply(prop, val.trim());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String getConfigurationParameterFromEnvironmentVariable(String environmentVariable) {
+        for (IgniteProperty prop : IgniteProperty.values()) {
+            if (prop.getEnvironmentVariable().equals(environmentVariable)) {
+                return prop.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Applies a property value.
+     *
+     * @param prop Property.
+     * @param val  Value.
+     */
+    private void apply(IgniteProperty prop, String val) {
+        try {
+            switch (prop) {
+                case LOCK_WAIT_MODE:
+                    lockWaitMode = LockWaitMode.valueOf(val.toUpperCase(Locale.ROOT));
+
+                    break;
+
+                case LOCK_LEASE_TIME:
+                    lockLeaseTime = nonNegativeLong(val);
+
+                    checkHeartbeatInterval();
+
+                    break;
+
+                case LOCK_HEARTBEAT_INTERVAL:
+                    lockHeartbeatInterval = nonNegativeLong(val);
+
+                    checkHeartbeatInterval();
+
+                    break;
+
+                case LOCK_WAIT_FOR_VERSION:
+                    lockWaitForVersion = val.isEmpty() ? null : MigrationVersion.fromVersion(val);
+
+                    break;
+
+                case LOCK_WAIT_FOR_VERSION_TIMEOUT:
+                    lockWaitForVersionTimeout = nonNegativeLong(val);
+
+                    break;
+
+                case CLEAN_PARALLELISM:
+                    cleanParallelism = positiveInt(val);
+
+                    break;
+
+                case CLEAN_STRATEGY:
+                    cleanStrategy = CleanStrategy.valueOf(val.toUpperCase(Locale.ROOT));
+
+                    break;
+
+                case RESET_VERSION:
+                    resetVersion = val.isEmpty() ? null : MigrationVersion.fromVersion(val);
+
+                    break;
+
+                case HISTORY_TEMPLATE:
+                    historyTemplate = val;
+
+                    break;
+
+                case HISTORY_BACKUPS:
+                    historyBackups = nonNegativeInt(val);
+
+                    break;
+
+                case HISTORY_ATOMICITY:
+                    historyAtomicity = val.toUpperCase(Locale.ROOT);
+
+                    break;
+
+                case HISTORY_WRITE_SYNCHRONIZATION_MODE:
+                    historyWriteSynchronizationMode = val.isEmpty() ? null : val.toUpperCase(Locale.ROOT);
+
+                    break;
+
+                case HISTORY_DATA_REGION:
+                    historyDataRegion = val.isEmpty() ? null : val;
+
+                    break;
+
+                case HISTORY_CACHE_GROUP:
+                    historyCacheGroup = val.isEmpty() ? null : val;
+
+                    break;
+
+                case HISTORY_INLINE_SIZE:
+                    historyInlineSize = nonNegativeInt(val);
+
+                    break;
+
+                case HISTORY_LOCK_INDEX:
+                    historyLockIndex = Boolean.parseBoolean(val);
+
+                    break;
+
+                case HISTORY_CACHE_DIR:
+                    historyCacheDir = val.isEmpty() ? null : val;
+
+                    break;
+
+                case BATCH_SIZE:
+                    batchSize = nonNegativeInt(val);
+
+                    break;
+
+                case STREAMING_THRESHOLD:
+                    streamingThreshold = nonNegativeInt(val);
+
+                    break;
+
+                case STREAMING_OPTIONS:
+                    streamingOptions = val.isEmpty() ? null : val;
+
+                    break;
+
+                case PARSE_CACHE_DIR:
+                    parseCacheDir = val.isEmpty() ? null : val;
+
+                    break;
+
+                case PARSE_PARALLELISM:
+                    parseParallelism = nonNegativeInt(val);
+
+                    break;
+
+                case DDL_PARALLELISM:
+                    ddlParallelism = nonNegativeInt(val);
+
+                    break;
+
+                case DDL_COALESCE_CREATE_TABLES:
+                    ddlCoalesceCreateTables = Boolean.parseBoolean(val);
+
+                    break;
+
+                case PACING_MODE:
+                    pacingMode = PacingMode.valueOf(val.toUpperCase(Locale.ROOT));
+
+                    break;
+
+                case PACING_TIMEOUT:
+                    pacingTimeout = nonNegativeLong(val);
+
+                    break;
+
+                case PACING_MAX_CPU_LOAD:
+                    pacingMaxCpuLoad = percent(val);
+
+                    break;
+
+                case PACING_REBALANCE:
+                    pacingRebalance = Boolean.parseBoolean(val);
+
+                    break;
+
+                case INDEX_PLAN:
+                    indexPlan = Boolean.parseBoolean(val);
+
+                    break;
+
+                case INDEX_MAX_PARALLELISM:
+                    indexMaxParallelism = nonNegativeInt(val);
+
+                    break;
+
+                case INDEX_MAX_INLINE_SIZE:
+                    indexMaxInlineSize = positiveInt(val);
+
+                    break;
+
+                case CHUNK_SIZE:
+                    chunkSize = positiveInt(val);
+
+                    break;
+
+                case CHUNK_PAUSE:
+                    chunkPause = nonNegativeLong(val);
+
+                    break;
+
+                case CHECKPOINT_ENABLED:
+                    checkpointEnabled = Boolean.parseBoolean(val);
+
+                    break;
+
+                case DML_PARALLELISM:
+                    dmlParallelism = positiveInt(val);
+
+                    break;
+
+                case JAVA_BATCH_SIZE:
+                    javaBatchSize = positiveInt(val);
+
+                    break;
+
+                default:
+                    throw new IllegalStateException("Unknown property: " + prop);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new FlywayException("Invalid value of " + prop.getKey() + ": " + val, e);
+        }
+    }
+
+    /**
+     * Checks that the lease is extended before it expires.
+     */
+    private void checkHeartbeatInterval() {
+        if (lockLeaseTime > 0 && lockHeartbeatInterval >= lockLeaseTime) {
+            throw new IllegalArgumentException("Heartbeat interval " + lockHeartbeatInterval
+                    + " ms must be less than lease time " + lockLeaseTime + " ms");
+        }
+    }
+
+    /**
+     * Parses a non-negative long value.
+     *
+     * @param val Value.
+     */
+    private static long nonNegativeLong(String val) {
+        long res = Long.parseLong(val);
+
+        if (res < 0) {
+            throw new IllegalArgumentException("Negative value: " + val);
+        }
+
+        return res;
+    }
+
+    /**
+     * Parses a non-negative int value, a value out of the int range is rejected rather than truncated.
+     *
+     * @param val Value.
+     */
+    private static int nonNegativeInt(String val) {
+        int res = Integer.parseInt(val);
+
+        if (res < 0) {
+            throw new IllegalArgumentException("Negative value: " + val);
+        }
+
+        return res;
+    }
+
+    /**
+     * Parses a positive int value.
+     *
+     * @param val Value.
+     */
+    private static int positiveInt(String val) {
+        int res = Integer.parseInt(val);
+
+        if (res < 1) {
+            throw new IllegalArgumentException("Non-positive value: " + val);
+        }
+
+        return res;
+    }
+
+    /**
+     * Parses a percent value from {@code 0} to {@code 100}.
+     *
+     * @param val Value.
+     */
+    private static int percent(String val) {
+        int res = Integer.parseInt(val);
+
+        if (res < 0 || res > 100) {
+            throw new IllegalArgumentException("Value out of 0..100 range: " + val);
+        }
+
+        return res;
+    }
+}
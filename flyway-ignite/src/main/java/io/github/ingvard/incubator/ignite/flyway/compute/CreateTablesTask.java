@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.compute;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCheckedException;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.cache.CacheKeyConfiguration;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.cache.CacheWriteSynchronizationMode;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.compute.ComputeJob;
+import org.apache.ignite.compute.ComputeJobAdapter;
+import org.apache.ignite.compute.ComputeJobResult;
+import org.apache.ignite.compute.ComputeTaskSplitAdapter;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.internal.IgniteEx;
+import org.apache.ignite.internal.processors.cache.StoredCacheData;
+import org.apache.ignite.internal.processors.query.QueryEntityEx;
+import org.apache.ignite.internal.processors.query.QueryUtils;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Creates several SQL tables by a single cache start request, so their caches are started by one partition map
+ * exchange instead of one exchange per {@code CREATE TABLE}. The caches are configured the way {@code CREATE TABLE}
+ * configures them and are marked as created by SQL, so they can be dropped by {@code DROP TABLE}. The caches are
+ * started by an internal API of the node; if the request fails, for example because the API differs in the Ignite
+ * version of the cluster, the job falls back to executing the {@code CREATE TABLE} statements one by one on the node,
+ * skipping the tables the failed request has created. The task is started by a thin client, so the class must be on
+ * the classpath of server nodes and thin client compute must be enabled.
+ */
+public class CreateTablesTask extends ComputeTaskSplitAdapter<Collection<TableDefinition>, Void> {
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override protected Collection<? extends ComputeJob> split(int gridSize, Collection<TableDefinition> tbls) {
+        return List.of(new CreateTablesJob(tbls));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public Void reduce(List<ComputeJobResult> results) {
+        return null;
+    }
+
+    /**
+     * Creates tables.
+     */
+    private static class CreateTablesJob extends ComputeJobAdapter {
+        /**
+         * Serial version uid.
+         */
+        private static final long serialVersionUID = 0L;
+
+        /**
+         * Table definitions.
+         */
+        private final Collection<TableDefinition> tbls;
+
+        /**
+         * Ignite.
+         */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /**
+         * Default constructor.
+         *
+         * @param tbls Table definitions.
+         */
+        CreateTablesJob(Collection<TableDefinition> tbls) {
+            this.tbls = tbls;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override public Object execute() {
+            IgniteEx igniteEx = (IgniteEx) ignite;
+
+            try {
+                List<StoredCacheData> caches = new ArrayList<>(tbls.size());
+
+                for (TableDefinition tbl : tbls) {
+                    caches.add(new StoredCacheData(cacheConfiguration(igniteEx, tbl)).sql(true));
+                }
+
+                igniteEx.context().cache().dynamicStartCachesByStoredConf(caches, true, true, false, null).get();
+            } catch (IgniteCheckedException | RuntimeException | LinkageError e) {
+                ignite.log().warning("Unable to create " + tbls.size() + " tables by one cache start request, falling back "
+                        + "to CREATE TABLE statements: " + e.getMessage());
+
+                createByStatements(igniteEx);
+            }
+
+            return null;
+        }
+
+        /**
+         * Executes the {@code CREATE TABLE} statements one by one, the tables whose caches are already started are
+         * skipped.
+         *
+         * @param ignite Ignite.
+         */
+        private void createByStatements(IgniteEx ignite) {
+            Set<String> started = new HashSet<>(ignite.cacheNames());
+
+            for (TableDefinition tbl : tbls) {
+                if (started.contains(cacheName(tbl))) {
+                    continue;
+                }
+
+                SqlFieldsQuery qry = new SqlFieldsQuery(tbl.getSql()).setSchema(tbl.getSchemaName());
+
+                ignite.context().query().querySqlFields(qry, false).getAll();
+            }
+        }
+
+        /**
+         * Gets the cache name of a table the same way {@code CREATE TABLE} does.
+         *
+         * @param tbl Table definition.
+         */
+        private static String cacheName(TableDefinition tbl) {
+            return tbl.getParams().getOrDefault("CACHE_NAME", QueryUtils.createTableCacheName(tbl.getSchemaName(), tbl.getTableName()));
+        }
+
+        /**
+         * Builds a cache configuration the same way {@code CREATE TABLE} does.
+         *
+         * @param ignite Ignite.
+         * @param tbl    Table definition.
+         */
+        private static CacheConfiguration<?, ?> cacheConfiguration(IgniteEx ignite, TableDefinition tbl) {
+            Map<String, String> params = tbl.getParams();
+            String tmpl = params.getOrDefault("TEMPLATE", QueryUtils.TEMPLATE_PARTITIONED);
+
+            CacheConfiguration<?, ?> ccfg = ignite.context().cache().getConfigFromTemplate(tmpl);
+
+            if (ccfg == null) {
+                if (QueryUtils.TEMPLATE_PARTITIONED.equalsIgnoreCase(tmpl)) {
+                    ccfg = new CacheConfiguration<>().setCacheMode(CacheMode.PARTITIONED);
+                } else if (QueryUtils.TEMPLATE_REPLICATED.equalsIgnoreCase(tmpl)) {
+                    ccfg = new CacheConfiguration<>().setCacheMode(CacheMode.REPLICATED);
+                } else {
+                    throw new IgniteException("Cache template is not found: " + tmpl);
+                }
+
+                ccfg.setWriteSynchronizationMode(CacheWriteSynchronizationMode.FULL_SYNC);
+            }
+
+            QueryEntityEx entity = queryEntity(tbl);
+
+            ccfg.setName(cacheName(tbl));
+
+            if (params.containsKey("CACHE_GROUP")) {
+                ccfg.setGroupName(params.get("CACHE_GROUP"));
+            }
+
+            if (params.containsKey("DATA_REGION")) {
+                ccfg.setDataRegionName(params.get("DATA_REGION"));
+            }
+
+            if (params.containsKey("ATOMICITY")) {
+                ccfg.setAtomicityMode(CacheAtomicityMode.valueOf(params.get("ATOMICITY").toUpperCase(Locale.ROOT)));
+            }
+
+            if (params.containsKey("WRITE_SYNCHRONIZATION_MODE")) {
+                ccfg.setWriteSynchronizationMode(CacheWriteSynchronizationMode.valueOf(
+                        params.get("WRITE_SYNCHRONIZATION_MODE").toUpperCase(Locale.ROOT)));
+            }
+
+            if (params.containsKey("BACKUPS")) {
+                ccfg.setBackups(Integer.parseInt(params.get("BACKUPS")));
+            }
+
+            if (params.containsKey("PARALLELISM")) {
+                ccfg.setQueryParallelism(Integer.parseInt(params.get("PARALLELISM")));
+            }
+
+            ccfg.setSqlSchema("\"" + tbl.getSchemaName() + "\"");
+            ccfg.setSqlEscapeAll(true);
+            ccfg.setQueryEntities(List.of(entity));
+
+            if (!QueryUtils.isCustomAffinityMapper(ccfg.getAffinityMapper())) {
+                ccfg.setAffinityMapper(null);
+            }
+
+            if (params.containsKey("AFFINITY_KEY")) {
+                ccfg.setKeyConfiguration(new CacheKeyConfiguration(entity.getKeyType(), params.get("AFFINITY_KEY")));
+            }
+
+            return ccfg;
+        }
+
+        /**
+         * Builds a query entity the same way {@code CREATE TABLE} does.
+         *
+         * @param tbl Table definition.
+         */
+        private static QueryEntityEx queryEntity(TableDefinition tbl) {
+            Map<String, String> params = tbl.getParams();
+            QueryEntityEx entity = new QueryEntityEx();
+
+            entity.setTableName(tbl.getTableName());
+
+            for (Map.Entry<String, String> col : tbl.getColumns().entrySet()) {
+                entity.addQueryField(col.getKey(), col.getValue(), null);
+            }
+
+            entity.setFieldsPrecision(tbl.getPrecisions());
+            entity.setFieldsScale(tbl.getScales());
+            entity.setNotNullFields(new LinkedHashSet<>(tbl.getNotNullColumns()));
+            entity.setPreserveKeysOrder(true);
+
+            String valType = params.get("VALUE_TYPE");
+
+            if (valType == null) {
+                valType = QueryUtils.createTableValueTypeName(tbl.getSchemaName(), tbl.getTableName());
+            }
+
+            String keyType = params.getOrDefault("KEY_TYPE", QueryUtils.createTableKeyTypeName(valType));
+
+            List<String> keyCols = tbl.getKeyColumns();
+            boolean wrapKey = Boolean.parseBoolean(params.getOrDefault("WRAP_KEY", String.valueOf(keyCols.size() > 1)));
+
+            if (wrapKey) {
+                entity.setKeyFields(new LinkedHashSet<>(keyCols));
+            } else {
+                keyType = tbl.getColumns().get(keyCols.get(0));
+
+                entity.setKeyFieldName(keyCols.get(0));
+            }
+
+            if (!Boolean.parseBoolean(params.getOrDefault("WRAP_VALUE", "true"))) {
+                for (Map.Entry<String, String> col : tbl.getColumns().entrySet()) {
+                    if (!keyCols.contains(col.getKey())) {
+                        valType = col.getValue();
+
+                        entity.setValueFieldName(col.getKey());
+
+                        break;
+                    }
+                }
+            }
+
+            entity.setKeyType(keyType);
+            entity.setValueType(valType);
+
+            return entity;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.compute;
+
+import java.util.Collection;
+import java.util.List;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.compute.ComputeJob;
+import org.apache.ignite.compute.ComputeJobAdapter;
+import org.apache.ignite.compute.ComputeJobResult;
+import org.apache.ignite.compute.ComputeTaskSplitAdapter;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Destroys several caches by a single {@link Ignite#destroyCaches(Collection)} call, so the caches of a cache group
+ * are stopped by one partition map exchange. The task is started by a thin client, so the class must be on the
+ * classpath of server nodes and thin client compute must be enabled.
+ */
+public class DestroyCachesTask extends ComputeTaskSplitAdapter<Collection<String>, Void> {
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override protected Collection<? extends ComputeJob> split(int gridSize, Collection<String> cacheNames) {
+        return List.of(new DestroyCachesJob(cacheNames));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public Void reduce(List<ComputeJobResult> results) {
+        return null;
+    }
+
+    /**
+     * Destroys caches.
+     */
+    private static class DestroyCachesJob extends ComputeJobAdapter {
+        /**
+         * Serial version uid.
+         */
+        private static final long serialVersionUID = 0L;
+
+        /**
+         * Cache names.
+         */
+        private final Collection<String> cacheNames;
+
+        /**
+         * Ignite.
+         */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /**
+         * Default constructor.
+         *
+         * @param cacheNames Cache names.
+         */
+        DestroyCachesJob(Collection<String> cacheNames) {
+            this.cacheNames = cacheNames;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override public Object execute() {
+            ignite.destroyCaches(cacheNames);
+
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.compute;
+
+/**
+ * Transformation of cache entries executed by {@link TransformCacheTask} on the server nodes that own the entries.
+ * An instance is created by the no-arg constructor on every node, so the class must be on the classpath of server
+ * nodes. Entries of SQL tables are passed as binary objects, a new value is usually built by
+ * {@code val.toBuilder()}.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public interface EntryTransformer<K, V> {
+    /**
+     * Transforms an entry.
+     *
+     * @param key Key.
+     * @param val Value.
+     * @return New value, the same instance to leave the entry as is or {@code null} to remove the entry.
+     */
+    V transform(K key, V val);
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.compute;
+
+import java.io.Serializable;
+
+/**
+ * Counts of entries of a partition processed by {@link TransformCacheTask}.
+ */
+public class PartitionTransformResult implements Serializable {
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Partition.
+     */
+    private final int partition;
+
+    /**
+     * The number of scanned entries.
+     */
+    private final long scanned;
+
+    /**
+     * The number of updated entries.
+     */
+    private final long updated;
+
+    /**
+     * The number of removed entries.
+     */
+    private final long removed;
+
+    /**
+     * Default constructor.
+     *
+     * @param partition Partition.
+     * @param scanned   The number of scanned entries.
+     * @param updated   The number of updated entries.
+     * @param removed   The number of removed entries.
+     */
+    public PartitionTransformResult(int partition, long scanned, long updated, long removed) {
+        this.partition = partition;
+        this.scanned = scanned;
+        this.updated = updated;
+        this.removed = removed;
+    }
+
+    /**
+     * Gets partition.
+     */
+    public int getPartition() {
+        return partition;
+    }
+
+    /**
+     * Gets the number of scanned entries.
+     */
+    public long getScanned() {
+        return scanned;
+    }
+
+    /**
+     * Gets the number of updated entries.
+     */
+    public long getUpdated() {
+        return updated;
+    }
+
+    /**
+     * Gets the number of removed entries.
+     */
+    public long getRemoved() {
+        return removed;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.compute;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Definition of a table parsed from a {@code CREATE TABLE} statement, it carries the same information as the
+ * statement: normalized names, column java types and the {@code WITH} parameters.
+ */
+public class TableDefinition implements Serializable {
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Schema name.
+     */
+    private final String schemaName;
+
+    /**
+     * Table name.
+     */
+    private final String tblName;
+
+    /**
+     * Column java types by column names in the declaration order.
+     */
+    private final Map<String, String> columns = new LinkedHashMap<>();
+
+    /**
+     * Column precisions.
+     */
+    private final Map<String, Integer> precisions = new HashMap<>();
+
+    /**
+     * Column scales.
+     */
+    private final Map<String, Integer> scales = new HashMap<>();
+
+    /**
+     * Not null columns.
+     */
+    private final Set<String> notNullColumns = new LinkedHashSet<>();
+
+    /**
+     * Primary key columns.
+     */
+    private final List<String> keyColumns = new ArrayList<>();
+
+    /**
+     * {@code WITH} parameters, keys are in upper case.
+     */
+    private final Map<String, String> params = new HashMap<>();
+
+    /**
+     * {@code CREATE TABLE} statement the definition is parsed from.
+     */
+    private String sql;
+
+    /**
+     * Default constructor.
+     *
+     * @param schemaName Schema name.
+     * @param tblName    Table name.
+     */
+    public TableDefinition(String schemaName, String tblName) {
+        this.schemaName = schemaName;
+        this.tblName = tblName;
+    }
+
+    /**
+     * Gets schema name.
+     */
+    public String getSchemaName() {
+        return schemaName;
+    }
+
+    /**
+     * Gets table name.
+     */
+    public String getTableName() {
+        return tblName;
+    }
+
+    /**
+     * Gets column java types by column names in the declaration order.
+     */
+    public Map<String, String> getColumns() {
+        return columns;
+    }
+
+    /**
+     * Gets column precisions.
+     */
+    public Map<String, Integer> getPrecisions() {
+        return precisions;
+    }
+
+    /**
+     * Gets column scales.
+     */
+    public Map<String, Integer> getScales() {
+        return scales;
+    }
+
+    /**
+     * Gets not null columns.
+     */
+    public Set<String> getNotNullColumns() {
+        return notNullColumns;
+    }
+
+    /**
+     * Gets primary key columns.
+     */
+    public List<String> getKeyColumns() {
+        return keyColumns;
+    }
+
+    /**
+     * Gets {@code WITH} parameters, keys are in upper case.
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * Gets {@code CREATE TABLE} statement the definition is parsed from.
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Sets {@code CREATE TABLE} statement the definition is parsed from.
+     *
+     * @param sql Statement.
+     */
+    public void setSql(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public String toString() {
+        return "\"" + schemaName + "\".\"" + tblName + "\"";
+    }
+}
@@ -0,0 +1,275 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.compute;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.cache.Cache;
+import org.apache.ignite.Ignite;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.IgniteException;
+import org.apache.ignite.cache.affinity.Affinity;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.cache.query.ScanQuery;
+import org.apache.ignite.cluster.ClusterNode;
+import org.apache.ignite.compute.ComputeJob;
+import org.apache.ignite.compute.ComputeJobAdapter;
+import org.apache.ignite.compute.ComputeJobResult;
+import org.apache.ignite.compute.ComputeJobResultPolicy;
+import org.apache.ignite.compute.ComputeTaskAdapter;
+import org.apache.ignite.resources.IgniteInstanceResource;
+
+/**
+ * Transforms all entries of a cache next to the data: every server node processes its primary partitions by local
+ * scan queries and writes the transformed entries back to the same partitions, so only the task argument and the
+ * counts per partition are sent over the network. The primary partitions of a node are split between
+ * {@link TransformDefinition#getJobsPerNode()} jobs that run concurrently in the public pool.
+ * <p>
+ * The task fails if a partition changes its primary node while it runs or isn't processed at all, a failed task is
+ * executed again from the beginning, so the transformation must tolerate entries it has already transformed. The
+ * task is started by a thin client, so the class must be on the classpath of server nodes and thin client compute
+ * must be enabled.
+ */
+public class TransformCacheTask extends ComputeTaskAdapter<TransformDefinition, List<PartitionTransformResult>> {
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Ignite.
+     */
+    @IgniteInstanceResource
+    private transient Ignite ignite;
+
+    /**
+     * Transformation definition.
+     */
+    private TransformDefinition def;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public Map<? extends ComputeJob, ClusterNode> map(List<ClusterNode> subgrid, TransformDefinition def) {
+        if (ignite.cache(def.getCacheName()) == null) {
+            throw new IgniteException("Cache is not found: " + def.getCacheName());
+        }
+
+        this.def = def;
+
+        Affinity<Object> aff = ignite.affinity(def.getCacheName());
+        Map<ComputeJob, ClusterNode> jobs = new HashMap<>();
+
+        for (ClusterNode node : subgrid) {
+            int[] parts = aff.primaryPartitions(node);
+            int jobCnt = Math.min(Math.max(1, def.getJobsPerNode()), parts.length);
+
+            for (int j = 0; j < jobCnt; j++) {
+                // Partitions are dealt round robin, so the jobs of a node get about the same number of partitions.
+                int[] jobParts = new int[(parts.length - j + jobCnt - 1) / jobCnt];
+
+                for (int i = 0; i < jobParts.length; i++) {
+                    jobParts[i] = parts[j + i * jobCnt];
+                }
+
+                jobs.put(new TransformPartitionsJob(def, jobParts), node);
+            }
+        }
+
+        return jobs;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public ComputeJobResultPolicy result(ComputeJobResult res, List<ComputeJobResult> rcvd) {
+        // A job can't fail over: its partitions are local to the node it was mapped to.
+        if (res.getException() != null) {
+            throw new IgniteException("Unable to transform entries of " + def.getCacheName() + " on node "
+                    + res.getNode().id() + ": " + res.getException().getMessage(), res.getException());
+        }
+
+        return ComputeJobResultPolicy.WAIT;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public List<PartitionTransformResult> reduce(List<ComputeJobResult> results) {
+        List<PartitionTransformResult> res = new ArrayList<>();
+
+        for (ComputeJobResult jobRes : results) {
+            List<PartitionTransformResult> data = jobRes.getData();
+
+            res.addAll(data);
+        }
+
+        int parts = ignite.affinity(def.getCacheName()).partitions();
+
+        if (res.size() != parts) {
+            throw new IgniteException("Transformed " + res.size() + " of " + parts + " partitions of "
+                    + def.getCacheName() + ", partitions have been moved or their primary nodes are out of the task "
+                    + "topology");
+        }
+
+        res.sort(Comparator.comparingInt(PartitionTransformResult::getPartition));
+
+        return res;
+    }
+
+    /**
+     * Transforms entries of local partitions.
+     */
+    private static class TransformPartitionsJob extends ComputeJobAdapter {
+        /**
+         * Serial version uid.
+         */
+        private static final long serialVersionUID = 0L;
+
+        /**
+         * Transformation definition.
+         */
+        private final TransformDefinition def;
+
+        /**
+         * Partitions.
+         */
+        private final int[] parts;
+
+        /**
+         * Ignite.
+         */
+        @IgniteInstanceResource
+        private transient Ignite ignite;
+
+        /**
+         * Default constructor.
+         *
+         * @param def   Transformation definition.
+         * @param parts Partitions.
+         */
+        TransformPartitionsJob(TransformDefinition def, int[] parts) {
+            this.def = def;
+            this.parts = parts;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override public Object execute() {
+            EntryTransformer<Object, Object> transformer = transformer();
+            IgniteCache<Object, Object> cache = ignite.cache(def.getCacheName());
+
+            if (def.isKeepBinary()) {
+                cache = cache.withKeepBinary();
+            }
+
+            List<PartitionTransformResult> res = new ArrayList<>(parts.length);
+
+            for (int part : parts) {
+                if (isCancelled()) {
+                    throw new IgniteException("Transformation of " + def.getCacheName() + " has been cancelled");
+                }
+
+                res.add(transform(cache, transformer, part));
+            }
+
+            return res;
+        }
+
+        /**
+         * Transforms entries of a local partition.
+         *
+         * @param cache       Cache.
+         * @param transformer Transformer.
+         * @param part        Partition.
+         */
+        private PartitionTransformResult transform(IgniteCache<Object, Object> cache,
+                EntryTransformer<Object, Object> transformer, int part) {
+            int batchSize = Math.max(1, def.getBatchSize());
+            Map<Object, Object> puts = new HashMap<>();
+            Set<Object> removes = new HashSet<>();
+
+            long scanned = 0;
+            long updated = 0;
+            long removed = 0;
+
+            // A local scan of a partition that isn't owned by the node fails, so a moved partition fails the task.
+            try (QueryCursor<Cache.Entry<Object, Object>> cur = cache.query(new ScanQuery<>(part).setLocal(true)
+                    .setPageSize(batchSize))) {
+                for (Cache.Entry<Object, Object> e : cur) {
+                    Object val = transformer.transform(e.getKey(), e.getValue());
+
+                    scanned++;
+
+                    if (val == null) {
+                        removes.add(e.getKey());
+                    } else if (val != e.getValue()) {
+                        puts.put(e.getKey(), val);
+                    }
+
+                    if (puts.size() >= batchSize) {
+                        cache.putAll(puts);
+
+                        updated += puts.size();
+                        puts.clear();
+                    }
+
+                    if (removes.size() >= batchSize) {
+                        cache.removeAll(removes);
+
+                        removed += removes.size();
+                        removes.clear();
+                    }
+                }
+            }
+
+            if (!puts.isEmpty()) {
+                cache.putAll(puts);
+
+                updated += puts.size();
+            }
+
+            if (!removes.isEmpty()) {
+                cache.removeAll(removes);
+
+                removed += removes.size();
+            }
+
+            return new PartitionTransformResult(part, scanned, updated, removed);
+        }
+
+        /**
+         * Creates the transformer.
+         */
+        @SuppressWarnings("unchecked")
+        private EntryTransformer<Object, Object> transformer() {
+            try {
+                return (EntryTransformer<Object, Object>) Class.forName(def.getTransformerClassName())
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | ClassCastException e) {
+                throw new IgniteException("Unable to create entry transformer " + def.getTransformerClassName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.compute;
+
+import java.io.Serializable;
+
+/**
+ * Definition of a transformation of all entries of a cache by {@link TransformCacheTask}.
+ */
+public class TransformDefinition implements Serializable {
+    /**
+     * Serial version uid.
+     */
+    private static final long serialVersionUID = 0L;
+
+    /**
+     * Cache name.
+     */
+    private final String cacheName;
+
+    /**
+     * Class name of the {@link EntryTransformer}.
+     */
+    private final String transformerClsName;
+
+    /**
+     * Whether entries are passed to the transformer as binary objects.
+     */
+    private final boolean keepBinary;
+
+    /**
+     * The number of entries written by one {@code putAll} or {@code removeAll} call.
+     */
+    private final int batchSize;
+
+    /**
+     * The number of jobs the primary partitions of a node are split between.
+     */
+    private final int jobsPerNode;
+
+    /**
+     * Default constructor.
+     *
+     * @param cacheName          Cache name.
+     * @param transformerClsName Class name of the {@link EntryTransformer}.
+     * @param keepBinary         Whether entries are passed to the transformer as binary objects.
+     * @param batchSize          The number of entries written by one {@code putAll} or {@code removeAll} call.
+     * @param jobsPerNode        The number of jobs the primary partitions of a node are split between.
+     */
+    public TransformDefinition(String cacheName, String transformerClsName, boolean keepBinary, int batchSize,
+            int jobsPerNode) {
+        this.cacheName = cacheName;
+        this.transformerClsName = transformerClsName;
+        this.keepBinary = keepBinary;
+        this.batchSize = batchSize;
+        this.jobsPerNode = jobsPerNode;
+    }
+
+    /**
+     * Gets cache name.
+     */
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    /**
+     * Gets class name of the {@link EntryTransformer}.
+     */
+    public String getTransformerClassName() {
+        return transformerClsName;
+    }
+
+    /**
+     * Returns {@code true} if entries are passed to the transformer as binary objects.
+     */
+    public boolean isKeepBinary() {
+        return keepBinary;
+    }
+
+    /**
+     * Gets the number of entries written by one {@code putAll} or {@code removeAll} call.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Gets the number of jobs the primary partitions of a node are split between.
+     */
+    public int getJobsPerNode() {
+        return jobsPerNode;
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.lang.reflect.Field;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.ignite.internal.jdbc.thin.JdbcThinConnection;
+import org.apache.ignite.internal.util.typedef.F;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Connection properties collected once per {@link IgniteThinDatabase}: the build ID and the available system views are
+ * read by a single query, the user is taken from the live connection.
+ */
+class IgniteThinBootstrap {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinBootstrap.class);
+
+    /**
+     * User reported when the connection is anonymous.
+     */
+    private static final String DEFAULT_USER = "ignite";
+
+    /**
+     * Build ID and system view names.
+     */
+    private static final String QUERY = "SELECT 'BUILD_ID' AS KIND, VALUE AS NAME FROM INFORMATION_SCHEMA.SETTINGS "
+            + "WHERE NAME = 'info.BUILD_ID' "
+            + "UNION ALL SELECT 'VIEW', NAME FROM SYS.VIEWS";
+
+    /**
+     * Build ID query, it is used if system views are not available.
+     */
+    private static final String BUILD_ID_QUERY = "SELECT VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE NAME = 'info.BUILD_ID'";
+
+    /**
+     * Build ID.
+     */
+    private final int buildId;
+
+    /**
+     * User.
+     */
+    private final String user;
+
+    /**
+     * System view names in upper case.
+     */
+    private final Set<String> sysViews;
+
+    /**
+     * Default constructor.
+     *
+     * @param buildId  Build ID.
+     * @param user     User.
+     * @param sysViews System view names.
+     */
+    private IgniteThinBootstrap(int buildId, String user, Set<String> sysViews) {
+        this.buildId = buildId;
+        this.user = user;
+        this.sysViews = sysViews;
+    }
+
+    /**
+     * Collects connection properties.
+     *
+     * @param jdbcTemplate Jdbc template of the main connection.
+     * @throws SQLException If the build ID couldn't be read.
+     */
+    static IgniteThinBootstrap load(JdbcTemplate jdbcTemplate) throws SQLException {
+        String user = user(jdbcTemplate.getConnection());
+
+        Integer buildId = null;
+        Set<String> sysViews = new HashSet<>();
+
+        try {
+            for (Map<String, String> row : jdbcTemplate.queryForList(QUERY)) {
+                if ("BUILD_ID".equals(row.get("KIND"))) {
+                    buildId = Integer.valueOf(row.get("NAME"));
+                } else {
+                    sysViews.add(row.get("NAME").toUpperCase(Locale.ROOT));
+                }
+            }
+        } catch (SQLException e) {
+            LOG.debug("Unable to read system views: " + e.getMessage());
+        }
+
+        if (buildId == null) {
+            buildId = jdbcTemplate.queryForInt(BUILD_ID_QUERY);
+        }
+
+        return new IgniteThinBootstrap(buildId, F.isEmpty(user) ? DEFAULT_USER : user, sysViews);
+    }
+
+    /**
+     * Reads the user the connection is authenticated with.
+     *
+     * @param conn Connection.
+     * @return User or {@code null} if the connection is anonymous.
+     * @throws SQLException If the connection metadata couldn't be read.
+     */
+    private static String user(Connection conn) throws SQLException {
+        String user = conn.getMetaData().getUserName();
+
+        if (!F.isEmpty(user)) {
+            return user;
+        }
+
+        // The thin driver doesn't report the user in the metadata, it is kept in the connection properties.
+        try {
+            Connection jdbcConn = conn.isWrapperFor(JdbcThinConnection.class) ? conn.unwrap(JdbcThinConnection.class) : conn;
+
+            Field connPropsField = jdbcConn.getClass().getDeclaredField("connProps");
+            connPropsField.setAccessible(true);
+            Object connProps = connPropsField.get(jdbcConn);
+
+            return (String) connProps.getClass().getMethod("getUsername").invoke(connProps);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOG.debug("Unable to read the connection user: " + e.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * Gets build ID.
+     */
+    int getBuildId() {
+        return buildId;
+    }
+
+    /**
+     * Gets user.
+     */
+    String getUser() {
+        return user;
+    }
+
+    /**
+     * Returns {@code true} if the system view exists in the {@code SYS} schema.
+     *
+     * @param name View name.
+     */
+    boolean hasSysView(String name) {
+        return sysViews.contains(name.toUpperCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,647 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.license.VersionPrinter;
+import org.flywaydb.core.internal.sqlscript.Delimiter;
+import org.flywaydb.core.internal.sqlscript.ParsedSqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+
+/**
+ * SQL script whose parsed statements are kept in an on-disk cache keyed by the script content hash. The first use of
+ * an uncached script parses it once by the Flyway script and writes the statements to the cache, after that all
+ * statements, their count and transactionality are read from the cache file without tokenizing the script. The cache
+ * file is written to a temporary file and moved in place, so a partially parsed script is never cached.
+ * <p>
+ * Without a cache directory the script is only pre-parsed: its statements are kept in memory for the time of the Flyway
+ * command and nothing is written to disk, as statements may contain substituted placeholder values.
+ */
+class IgniteThinCachedSqlScript implements SqlScript {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinCachedSqlScript.class);
+
+    /**
+     * Cache file format version, it is a part of the cache key together with the plugin and Flyway versions. It must be
+     * bumped by any change of the parser that changes statement splitting or transactionality, so development builds
+     * without a plugin version don't read stale statements either.
+     */
+    private static final int FORMAT_VERSION = 2;
+
+    /**
+     * Plugin and Flyway versions, statements parsed by other versions are not read from the cache.
+     */
+    private static final String VERSIONS = "plugin " + pluginVersion() + ", flyway " + VersionPrinter.getVersion();
+
+    /**
+     * Marker of a statement record.
+     */
+    private static final byte STMT = 1;
+
+    /**
+     * Marker of the end of statements.
+     */
+    private static final byte END = 0;
+
+    /**
+     * Flyway script, it parses the script on a cache miss and serves it if the cache can't be used.
+     */
+    private final SqlScript delegate;
+
+    /**
+     * Configuration.
+     */
+    private final Configuration configuration;
+
+    /**
+     * Cache directory or {@code null} to keep the statements in memory.
+     */
+    private final String cacheDir;
+
+    /**
+     * Whether transactional and non-transactional statements can be mixed.
+     */
+    private final boolean mixed;
+
+    /**
+     * Cache file, it is resolved by the first use.
+     */
+    private Path file;
+
+    /**
+     * Statements parsed in memory if there is no cache directory.
+     */
+    private List<SqlStatement> stmts;
+
+    /**
+     * {@code True} if the script can't be cached and is served by {@link #delegate}.
+     */
+    private boolean bypass;
+
+    /**
+     * The number of statements.
+     */
+    private int stmtCnt;
+
+    /**
+     * First non-transactional statement or {@code null}.
+     */
+    private SqlStatement nonTxStmt;
+
+    /**
+     * {@code True} if the script has a transactional statement.
+     */
+    private boolean txStmtFound;
+
+    /**
+     * Default constructor.
+     *
+     * @param delegate      Flyway script.
+     * @param configuration Configuration.
+     * @param cacheDir      Cache directory or {@code null} to keep the statements in memory.
+     * @param mixed         Whether transactional and non-transactional statements can be mixed.
+     * @param bypass        {@code True} if the script must not be cached, for example it has a configuration file.
+     */
+    IgniteThinCachedSqlScript(SqlScript delegate, Configuration configuration, String cacheDir, boolean mixed, boolean bypass) {
+        this.delegate = delegate;
+        this.configuration = configuration;
+        this.cacheDir = cacheDir;
+        this.mixed = mixed;
+        this.bypass = bypass;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SqlStatementIterator getSqlStatements() {
+        if (!ensureCached()) {
+            return delegate.getSqlStatements();
+        }
+
+        if (stmts != null) {
+            return new MemoryStatementIterator(stmts.iterator());
+        }
+
+        try {
+            return new CachedStatementIterator(open());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read parse cache " + file, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSqlStatementCount() {
+        return ensureCached() ? stmtCnt : delegate.getSqlStatementCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LoadableResource getResource() {
+        return delegate.getResource();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean executeInTransaction() {
+        return ensureCached() ? nonTxStmt == null : delegate.executeInTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean shouldExecute() {
+        return delegate.shouldExecute();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void validate() {
+        if (!ensureCached()) {
+            delegate.validate();
+
+            return;
+        }
+
+        if (!mixed && txStmtFound && nonTxStmt != null) {
+            throw new FlywayException("Detected both transactional and non-transactional statements within the same migration"
+                    + " (even though mixed is false). Offending statement found at line " + nonTxStmt.getLineNumber() + ": "
+                    + nonTxStmt.getSql() + " in " + getResource().getFilename());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo(SqlScript o) {
+        return getResource().getRelativePath().compareTo(o.getResource().getRelativePath());
+    }
+
+    /**
+     * Parses the script into the cache ahead of execution, it is called by a pre-parse thread. Failures are not
+     * reported here, the script is parsed again and reports them when it is executed.
+     */
+    void preParse() {
+        try {
+            ensureCached();
+        } catch (RuntimeException e) {
+            LOG.debug("Unable to pre-parse " + getResource().getFilename() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Makes sure the script is cached and the cache summary is read.
+     *
+     * @return {@code False} if the script is served by {@link #delegate}.
+     */
+    private synchronized boolean ensureCached() {
+        if (bypass) {
+            return false;
+        }
+
+        if (file != null || stmts != null) {
+            return true;
+        }
+
+        if (cacheDir == null) {
+            parse();
+
+            return true;
+        }
+
+        try {
+            String key = key();
+
+            if (key == null) {
+                LOG.debug("Script " + getResource().getFilename() + " has built-in placeholders, it is not cached");
+
+                bypass = true;
+
+                return false;
+            }
+
+            Path cached = Paths.get(cacheDir).resolve("flyway-ignite-parse-" + key + ".bin");
+
+            if (Files.isRegularFile(cached)) {
+                LOG.debug("Parse cache hit for " + getResource().getFilename());
+            } else {
+                write(cached);
+            }
+
+            file = cached;
+
+            readSummary();
+
+            return true;
+        } catch (IOException e) {
+            LOG.warn("Parse cache is not used for " + getResource().getFilename() + ": " + e.getMessage());
+
+            file = null;
+            bypass = true;
+
+            return false;
+        }
+    }
+
+    /**
+     * Parses the script by {@link #delegate} into memory.
+     */
+    private void parse() {
+        List<SqlStatement> res = new ArrayList<>();
+        SqlStatement nonTx = null;
+        boolean txFound = false;
+
+        try (SqlStatementIterator it = delegate.getSqlStatements()) {
+            while (it.hasNext()) {
+                SqlStatement stmt = it.next();
+
+                if (stmt.canExecuteInTransaction()) {
+                    txFound = true;
+                } else if (nonTx == null) {
+                    nonTx = stmt;
+                }
+
+                res.add(stmt);
+            }
+        }
+
+        stmtCnt = res.size();
+        nonTxStmt = nonTx;
+        txStmtFound = txFound;
+        stmts = res;
+    }
+
+    /**
+     * Parses the script by {@link #delegate} and writes the statements to the cache.
+     *
+     * @param cached Cache file.
+     * @throws IOException If failed.
+     */
+    private void write(Path cached) throws IOException {
+        Files.createDirectories(cached.getParent());
+
+        Path tmp = Files.createTempFile(cached.getParent(), cached.getFileName().toString(), ".tmp");
+
+        try {
+            int cnt = 0;
+            int nonTxIdx = -1;
+            boolean txFound = false;
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)));
+                 SqlStatementIterator it = delegate.getSqlStatements()) {
+                // Summary placeholder, it is filled in when all statements are written.
+                out.writeInt(0);
+                out.writeInt(-1);
+                out.writeBoolean(false);
+
+                while (it.hasNext()) {
+                    SqlStatement stmt = it.next();
+
+                    if (stmt.canExecuteInTransaction()) {
+                        txFound = true;
+                    } else if (nonTxIdx < 0) {
+                        nonTxIdx = cnt;
+                    }
+
+                    writeStatement(out, stmt);
+
+                    cnt++;
+                }
+
+                out.writeByte(END);
+            }
+
+            try (RandomAccessFile raf = new RandomAccessFile(tmp.toFile(), "rw")) {
+                raf.writeInt(cnt);
+                raf.writeInt(nonTxIdx);
+                raf.writeBoolean(txFound);
+            }
+
+            Files.move(tmp, cached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            LOG.debug("Cached " + cnt + " parsed statements of " + getResource().getFilename());
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Reads the statement count and transactionality from the cache file.
+     *
+     * @throws IOException If failed.
+     */
+    private void readSummary() throws IOException {
+        try (DataInputStream in = open()) {
+            stmtCnt = in.readInt();
+
+            int nonTxIdx = in.readInt();
+
+            txStmtFound = in.readBoolean();
+            nonTxStmt = null;
+
+            for (int i = 0; i <= nonTxIdx; i++) {
+                in.readByte();
+
+                nonTxStmt = readStatement(in);
+            }
+        }
+    }
+
+    /**
+     * Opens the cache file, the summary is read by the caller.
+     *
+     * @throws IOException If failed.
+     */
+    private DataInputStream open() throws IOException {
+        return new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+    }
+
+    /**
+     * Writes a statement record.
+     *
+     * @param out  Output.
+     * @param stmt Statement.
+     * @throws IOException If failed.
+     */
+    private static void writeStatement(DataOutputStream out, SqlStatement stmt) throws IOException {
+        byte[] sql = stmt.getSql().getBytes(StandardCharsets.UTF_8);
+
+        out.writeByte(STMT);
+        out.writeInt(stmt.getPos());
+        out.writeInt(stmt.getLineNumber());
+        out.writeInt(stmt.getColumnNumber());
+        out.writeUTF(stmt.getDelimiter().getDelimiter());
+        out.writeBoolean(stmt.getDelimiter().isAloneOnLine());
+        out.writeBoolean(stmt.canExecuteInTransaction());
+        out.writeBoolean(stmt.isBatchable());
+        out.writeInt(sql.length);
+        out.write(sql);
+    }
+
+    /**
+     * Reads a statement record, the record marker is read by the caller.
+     *
+     * @param in Input.
+     * @throws IOException If failed.
+     */
+    private static SqlStatement readStatement(DataInputStream in) throws IOException {
+        int pos = in.readInt();
+        int line = in.readInt();
+        int col = in.readInt();
+        Delimiter delimiter = new Delimiter(in.readUTF(), in.readBoolean());
+        boolean canExecuteInTx = in.readBoolean();
+        boolean batchable = in.readBoolean();
+        byte[] sql = new byte[in.readInt()];
+
+        in.readFully(sql);
+
+        return new ParsedSqlStatement(pos, line, col, new String(sql, StandardCharsets.UTF_8), delimiter, canExecuteInTx, batchable);
+    }
+
+    /**
+     * Gets the implementation version of the plugin jar or {@code dev} if the plugin isn't loaded from a jar.
+     */
+    private static String pluginVersion() {
+        String ver = IgniteThinCachedSqlScript.class.getPackage().getImplementationVersion();
+
+        return ver == null ? "dev" : ver;
+    }
+
+    /**
+     * Hashes the script content together with the versions and the placeholders it may depend on.
+     *
+     * @return Key or {@code null} if the script has built-in placeholders that change between runs.
+     * @throws IOException If failed.
+     */
+    private String key() throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        digest.update(("v" + FORMAT_VERSION + '|' + VERSIONS + '|' + mixed + '|').getBytes(StandardCharsets.UTF_8));
+
+        boolean placeholders = configuration.isPlaceholderReplacement();
+        String builtIn = configuration.getPlaceholderPrefix() + "flyway:";
+
+        if (placeholders) {
+            Map<String, String> sorted = new TreeMap<>(configuration.getPlaceholders());
+
+            digest.update((configuration.getPlaceholderPrefix() + configuration.getPlaceholderSuffix() + sorted)
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        try (BufferedReader reader = new BufferedReader(getResource().read())) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (placeholders && line.contains(builtIn)) {
+                    return null;
+                }
+
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+    /**
+     * Iterates over statements of the cache file, statements are read one by one.
+     */
+    private static class CachedStatementIterator implements SqlStatementIterator {
+        /**
+         * Input positioned at the first statement.
+         */
+        private final DataInputStream in;
+
+        /**
+         * Next statement or {@code null} if it isn't read yet or there are no more statements.
+         */
+        private SqlStatement next;
+
+        /**
+         * {@code True} if all statements are read.
+         */
+        private boolean done;
+
+        /**
+         * Default constructor.
+         *
+         * @param in Input positioned at the beginning of the cache file.
+         * @throws IOException If failed.
+         */
+        CachedStatementIterator(DataInputStream in) throws IOException {
+            this.in = in;
+
+            try {
+                in.readInt();
+                in.readInt();
+                in.readBoolean();
+            } catch (IOException e) {
+                in.close();
+
+                throw e;
+            }
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    if (in.readByte() == STMT) {
+                        next = readStatement(in);
+                    } else {
+                        done = true;
+                    }
+                } catch (EOFException e) {
+                    throw new FlywayException("Parse cache file is truncated", e);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Unable to read parse cache", e);
+                }
+            }
+
+            return next != null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SqlStatement next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            SqlStatement res = next;
+
+            next = null;
+
+            return res;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() {
+            try {
+                in.close();
+            } catch (IOException e) {
+                LOG.debug("Unable to close parse cache: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Iterates over statements parsed in memory.
+     */
+    private static class MemoryStatementIterator implements SqlStatementIterator {
+        /**
+         * Statements.
+         */
+        private final Iterator<SqlStatement> it;
+
+        /**
+         * Default constructor.
+         *
+         * @param it Statements.
+         */
+        MemoryStatementIterator(Iterator<SqlStatement> it) {
+            this.it = it;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean hasNext() {
+            return it.hasNext();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public SqlStatement next() {
+            return it.next();
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void close() {
+            // No-op.
+        }
+    }
+}
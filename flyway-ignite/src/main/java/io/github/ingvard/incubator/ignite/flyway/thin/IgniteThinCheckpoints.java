@@ -0,0 +1,355 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Progress of data migrations kept in a table next to the schema history table, so a failed migration continues
+ * from the last recorded position when it is retried. The table is named after the schema history table with the
+ * {@link #TABLE_SUFFIX} suffix and is created with the schema history table parameters on first use.
+ * <p>
+ * A checkpoint is identified by a migration and a step of the migration. Java migrations use it directly:
+ * <pre>{@code
+ * IgniteThinCheckpoints checkpoints = IgniteThinCheckpoints.of(ctx);
+ * String last = checkpoints.get(getClass().getName(), "copy-persons");
+ *
+ * // Process the rows after 'last' chunk by chunk, saving the position after each chunk.
+ * checkpoints.save(getClass().getName(), "copy-persons", lastKeyOfChunk);
+ *
+ * // Once the migration is done.
+ * checkpoints.clear(getClass().getName());
+ * }</pre>
+ */
+public class IgniteThinCheckpoints {
+    /**
+     * Suffix of the checkpoint table name.
+     */
+    public static final String TABLE_SUFFIX = "_checkpoint";
+
+    /**
+     * Connection.
+     */
+    private final Connection conn;
+
+    /**
+     * Quoted checkpoint table.
+     */
+    private final String tbl;
+
+    /**
+     * {@code WITH} parameters of the checkpoint table.
+     */
+    private final String tblParams;
+
+    /**
+     * {@code True} if the table has been created by this instance.
+     */
+    private boolean created;
+
+    /**
+     * Default constructor.
+     *
+     * @param conn   Connection.
+     * @param config Flyway configuration.
+     * @throws SQLException If the current schema couldn't be read.
+     */
+    IgniteThinCheckpoints(Connection conn, Configuration config) throws SQLException {
+        this.conn = conn;
+
+        String schema = config.getDefaultSchema() != null
+                ? config.getDefaultSchema()
+                : config.getSchemas().length > 0 ? config.getSchemas()[0] : conn.getSchema();
+
+        tbl = "\"" + (schema == null ? "PUBLIC" : schema) + "\".\"" + config.getTable() + TABLE_SUFFIX + "\"";
+        tblParams = IgniteThinDatabase.historyTableParameters(IgniteConfigurationExtension.of(config));
+    }
+
+    /**
+     * Gets checkpoints of a Java migration, they are read and written through the migration connection.
+     *
+     * @param ctx Java migration context.
+     * @throws SQLException If the current schema couldn't be read.
+     */
+    public static IgniteThinCheckpoints of(Context ctx) throws SQLException {
+        return new IgniteThinCheckpoints(ctx.getConnection(), ctx.getConfiguration());
+    }
+
+    /**
+     * Gets the position of a step.
+     *
+     * @param migration Migration.
+     * @param step      Step of the migration.
+     * @return Position or {@code null} if the step has no checkpoint.
+     * @throws SQLException If failed.
+     */
+    public String get(String migration, String step) throws SQLException {
+        Checkpoint cp = load(migration, step);
+
+        return cp == null ? null : cp.position();
+    }
+
+    /**
+     * Saves the position of a step.
+     *
+     * @param migration Migration.
+     * @param step      Step of the migration.
+     * @param position  Position.
+     * @throws SQLException If failed.
+     */
+    public void save(String migration, String step, String position) throws SQLException {
+        save(migration, step, null, position, false);
+    }
+
+    /**
+     * Removes all checkpoints of a migration, it is called when the migration is completed.
+     *
+     * @param migration Migration.
+     * @throws SQLException If failed.
+     */
+    public void clear(String migration) throws SQLException {
+        ensureTable();
+
+        try (PreparedStatement stmt = conn.prepareStatement("DELETE FROM " + tbl + " WHERE \"migration\" = ?")) {
+            stmt.setString(1, migration);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Loads a checkpoint.
+     *
+     * @param migration Migration.
+     * @param step      Step of the migration.
+     * @return Checkpoint or {@code null} if the step has no checkpoint.
+     * @throws SQLException If failed.
+     */
+    Checkpoint load(String migration, String step) throws SQLException {
+        ensureTable();
+
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT \"checksum\", \"position\", \"completed\" FROM " + tbl
+                + " WHERE \"migration\" = ? AND \"step\" = ?")) {
+            stmt.setString(1, migration);
+            stmt.setString(2, step);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? new Checkpoint(rs.getString(1), rs.getString(2), rs.getBoolean(3)) : null;
+            }
+        }
+    }
+
+    /**
+     * Saves a checkpoint.
+     *
+     * @param migration Migration.
+     * @param step      Step of the migration.
+     * @param checksum  Checksum of the step, see {@link #checksum(String)}, a checkpoint of a changed step is ignored.
+     * @param position  Position.
+     * @param completed Whether the step is completed.
+     * @throws SQLException If failed.
+     */
+    void save(String migration, String step, String checksum, String position, boolean completed) throws SQLException {
+        ensureTable();
+
+        try (PreparedStatement stmt = conn.prepareStatement("MERGE INTO " + tbl + " (\"migration\", \"step\", \"checksum\", "
+                + "\"position\", \"completed\", \"updated_on\") VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP)")) {
+            stmt.setString(1, migration);
+            stmt.setString(2, step);
+            stmt.setString(3, checksum);
+            stmt.setString(4, position);
+            stmt.setBoolean(5, completed);
+            stmt.executeUpdate();
+        }
+    }
+
+    /**
+     * Creates the checkpoint table if it doesn't exist.
+     *
+     * @throws SQLException If failed.
+     */
+    private void ensureTable() throws SQLException {
+        if (created) {
+            return;
+        }
+
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + tbl + " ("
+                    + "\"migration\" VARCHAR(1000), "
+                    + "\"step\" VARCHAR(200), "
+                    + "\"checksum\" VARCHAR(64), "
+                    + "\"position\" VARCHAR(1000), "
+                    + "\"completed\" BOOLEAN NOT NULL, "
+                    + "\"updated_on\" TIMESTAMP NOT NULL, "
+                    + "PRIMARY KEY (\"migration\", \"step\")"
+                    + ") WITH \"" + tblParams + "\"");
+        }
+
+        created = true;
+    }
+
+    /**
+     * Computes the checksum of a statement: the SHA-256 hash of its text as a hex string.
+     *
+     * @param sql Statement.
+     */
+    static String checksum(String sql) {
+        try {
+            StringBuilder hex = new StringBuilder();
+
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(sql.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Encodes a key as a position: the class name and the value separated by a colon.
+     *
+     * @param key Key.
+     */
+    static String encode(Object key) {
+        return key.getClass().getName() + ":" + key;
+    }
+
+    /**
+     * Decodes a position encoded by {@link #encode(Object)}.
+     *
+     * @param position Position.
+     * @return Key or {@code null} if the key type is not supported.
+     */
+    static Object decode(String position) {
+        int colon = position.indexOf(':');
+
+        if (colon < 0) {
+            return null;
+        }
+
+        String val = position.substring(colon + 1);
+
+        switch (position.substring(0, colon)) {
+            case "java.lang.String":
+                return val;
+
+            case "java.lang.Byte":
+                return Byte.valueOf(val);
+
+            case "java.lang.Short":
+                return Short.valueOf(val);
+
+            case "java.lang.Integer":
+                return Integer.valueOf(val);
+
+            case "java.lang.Long":
+                return Long.valueOf(val);
+
+            case "java.lang.Float":
+                return Float.valueOf(val);
+
+            case "java.lang.Double":
+                return Double.valueOf(val);
+
+            case "java.math.BigDecimal":
+                return new BigDecimal(val);
+
+            case "java.util.UUID":
+                return UUID.fromString(val);
+
+            case "java.sql.Date":
+                return java.sql.Date.valueOf(val);
+
+            case "java.sql.Time":
+                return java.sql.Time.valueOf(val);
+
+            case "java.sql.Timestamp":
+                return java.sql.Timestamp.valueOf(val);
+
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Recorded checkpoint.
+     */
+    static class Checkpoint {
+        /**
+         * Checksum of the step or {@code null} if the checkpoint is saved by a Java migration.
+         */
+        private final String checksum;
+
+        /**
+         * Position.
+         */
+        private final String position;
+
+        /**
+         * Whether the step is completed.
+         */
+        private final boolean completed;
+
+        /**
+         * Default constructor.
+         *
+         * @param checksum  Checksum of the step.
+         * @param position  Position.
+         * @param completed Whether the step is completed.
+         */
+        Checkpoint(String checksum, String position, boolean completed) {
+            this.checksum = checksum;
+            this.position = position;
+            this.completed = completed;
+        }
+
+        /**
+         * Gets checksum of the step.
+         */
+        String checksum() {
+            return checksum;
+        }
+
+        /**
+         * Gets position.
+         */
+        String position() {
+            return position;
+        }
+
+        /**
+         * Returns {@code true} if the step is completed.
+         */
+        boolean completed() {
+            return completed;
+        }
+    }
+}
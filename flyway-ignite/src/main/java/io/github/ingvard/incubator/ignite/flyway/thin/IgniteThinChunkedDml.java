@@ -0,0 +1,538 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Executes an {@code UPDATE} or {@code DELETE} statement by chunks of the primary key range, so every chunk touches
+ * at most the chunk size rows. The table must have a single column primary key: the bounds of the next chunk are
+ * read by {@code SELECT key ... ORDER BY key LIMIT size} and the statement is executed with
+ * {@code AND key > lower AND key <= upper} added to its condition. If checkpoints are enabled, the last key of every
+ * chunk is recorded by {@link IgniteThinCheckpoints}, so a retried statement resumes after it and a completed one is
+ * skipped; a checkpoint of a changed statement is ignored.
+ */
+class IgniteThinChunkedDml {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinChunkedDml.class);
+
+    /**
+     * Hint that marks a statement to be executed by chunks.
+     */
+    static final String HINT = "chunked";
+
+    /**
+     * Progress log interval in milliseconds.
+     */
+    private static final long LOG_INTERVAL = 10_000;
+
+    /**
+     * Top level keywords a chunked statement can't have.
+     */
+    private static final Set<String> UNSUPPORTED = Set.of("ORDER", "LIMIT", "OFFSET", "TOP", "FETCH");
+
+    /**
+     * Jdbc template.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Chunk size.
+     */
+    private final int chunkSize;
+
+    /**
+     * Pause between chunks in milliseconds.
+     */
+    private final long pause;
+
+    /**
+     * Flyway configuration of the checkpoint table or {@code null} if checkpoints are disabled.
+     */
+    private final Configuration checkpointCfg;
+
+    /**
+     * Checkpoints, they are opened by the first statement.
+     */
+    private IgniteThinCheckpoints checkpoints;
+
+    /**
+     * Constructor of an executor without checkpoints.
+     *
+     * @param jdbcTemplate Jdbc template.
+     * @param chunkSize    Chunk size.
+     * @param pause        Pause between chunks in milliseconds.
+     */
+    IgniteThinChunkedDml(JdbcTemplate jdbcTemplate, int chunkSize, long pause) {
+        this(jdbcTemplate, chunkSize, pause, null);
+    }
+
+    /**
+     * Default constructor.
+     *
+     * @param jdbcTemplate  Jdbc template.
+     * @param chunkSize     Chunk size.
+     * @param pause         Pause between chunks in milliseconds.
+     * @param checkpointCfg Flyway configuration of the checkpoint table or {@code null} to disable checkpoints.
+     */
+    IgniteThinChunkedDml(JdbcTemplate jdbcTemplate, int chunkSize, long pause, Configuration checkpointCfg) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.pause = pause;
+        this.checkpointCfg = checkpointCfg;
+    }
+
+    /**
+     * Executes a statement by chunks, recording its progress if checkpoints are enabled.
+     *
+     * @param sql       Statement.
+     * @param desc      Statement description for logging.
+     * @param migration Migration of the statement.
+     * @param step      Step of the statement in the migration.
+     * @return {@code False} if the statement can't be executed by chunks, it must be executed as is then.
+     * @throws SQLException If failed.
+     */
+    boolean execute(String sql, String desc, String migration, String step) throws SQLException {
+        Chunked chunked = prepare(sql);
+
+        if (chunked == null) {
+            return false;
+        }
+
+        if (checkpointCfg == null) {
+            chunked.execute(null, desc, null);
+
+            return true;
+        }
+
+        if (checkpoints == null) {
+            checkpoints = new IgniteThinCheckpoints(jdbcTemplate.getConnection(), checkpointCfg);
+        }
+
+        String checksum = IgniteThinCheckpoints.checksum(sql);
+        IgniteThinCheckpoints.Checkpoint cp = checkpoints.load(migration, step);
+        Object lower = null;
+
+        if (cp != null && checksum.equals(cp.checksum())) {
+            if (cp.completed()) {
+                LOG.info("Skipping " + desc + ", it was completed by a previous attempt");
+
+                return true;
+            }
+
+            lower = cp.position() == null ? null : IgniteThinCheckpoints.decode(cp.position());
+
+            if (lower != null) {
+                LOG.info("Resuming " + desc + " after key " + lower);
+            }
+        }
+
+        chunked.execute(lower, desc, upper -> checkpoints.save(migration, step, checksum, IgniteThinCheckpoints.encode(upper), false));
+
+        checkpoints.save(migration, step, checksum, null, true);
+
+        return true;
+    }
+
+    /**
+     * Removes the checkpoints of a completed migration if any statement has recorded them.
+     *
+     * @param migration Migration.
+     * @throws SQLException If failed.
+     */
+    void clearCheckpoints(String migration) throws SQLException {
+        if (checkpoints != null) {
+            checkpoints.clear(migration);
+        }
+    }
+
+    /**
+     * Prepares a statement to be executed by chunks.
+     *
+     * @param sql Statement.
+     * @return Chunked statement or {@code null} if the statement can't be executed by chunks.
+     * @throws SQLException If the primary key couldn't be read.
+     */
+    Chunked prepare(String sql) throws SQLException {
+        String stmt = sql.trim();
+
+        if (stmt.endsWith(";")) {
+            stmt = stmt.substring(0, stmt.length() - 1);
+        }
+
+        List<Word> words = words(stmt);
+
+        if (words.size() < 3) {
+            return null;
+        }
+
+        int tblIdx;
+
+        if ("UPDATE".equals(words.get(0).text)) {
+            tblIdx = 1;
+        } else if ("DELETE".equals(words.get(0).text) && "FROM".equals(words.get(1).text)) {
+            tblIdx = 2;
+        } else {
+            return null;
+        }
+
+        Word where = null;
+
+        for (Word word : words.subList(tblIdx + 1, words.size())) {
+            if (UNSUPPORTED.contains(word.text)) {
+                return null;
+            }
+
+            if (where == null && "WHERE".equals(word.text)) {
+                where = word;
+            }
+        }
+
+        String tbl = stmt.substring(words.get(tblIdx).start, words.get(tblIdx).end);
+        String key = keyColumn(tbl);
+
+        if (key == null) {
+            return null;
+        }
+
+        String head = where == null ? stmt : stmt.substring(0, where.start);
+        String cond = where == null ? null : stmt.substring(where.end).trim();
+
+        return new Chunked(tbl, key, head.trim() + " WHERE " + (cond == null ? "" : "(" + cond + ") AND "));
+    }
+
+    /**
+     * Gets the quoted primary key column of a table.
+     *
+     * @param tbl Possibly qualified table name as written in the statement.
+     * @return Column or {@code null} if the table has a composite key or isn't found.
+     * @throws SQLException If the columns couldn't be read.
+     */
+    private String keyColumn(String tbl) throws SQLException {
+        List<String> parts = splitName(tbl);
+        String schema = parts.size() > 1 ? parts.get(0) : jdbcTemplate.getConnection().getSchema();
+
+        List<String> keys = new ArrayList<>();
+
+        for (Map<String, String> row : jdbcTemplate.queryForList("SELECT COLUMN_NAME FROM SYS.TABLE_COLUMNS "
+                + "WHERE SCHEMA_NAME = ? AND TABLE_NAME = ? AND PK = TRUE", schema == null ? "PUBLIC" : schema,
+                parts.get(parts.size() - 1))) {
+            if (!"_KEY".equals(row.get("COLUMN_NAME"))) {
+                keys.add(row.get("COLUMN_NAME"));
+            }
+        }
+
+        return keys.size() == 1 ? "\"" + keys.get(0).replace("\"", "\"\"") + "\"" : null;
+    }
+
+    /**
+     * Splits a possibly qualified name into normalized parts: a quoted part is unquoted, an unquoted one is upper-cased.
+     *
+     * @param name Name.
+     */
+    static List<String> splitName(String name) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+
+            if (c == '"') {
+                if (quoted && i + 1 < name.length() && name.charAt(i + 1) == '"') {
+                    part.append(c);
+
+                    i++;
+                } else {
+                    quoted = !quoted;
+                    wasQuoted = true;
+                }
+            } else if (c == '.' && !quoted) {
+                parts.add(wasQuoted ? part.toString() : part.toString().toUpperCase(Locale.ROOT));
+                part.setLength(0);
+                wasQuoted = false;
+            } else {
+                part.append(c);
+            }
+        }
+
+        parts.add(wasQuoted ? part.toString() : part.toString().toUpperCase(Locale.ROOT));
+
+        return parts;
+    }
+
+    /**
+     * Splits a statement into top level words: words inside parentheses, literals and comments are skipped. Unquoted
+     * words are upper-cased, a qualified or quoted name is one word.
+     *
+     * @param sql Statement.
+     */
+    static List<Word> words(String sql) {
+        List<Word> words = new ArrayList<>();
+        int depth = 0;
+        int i = IgniteThinStatementType.skipComments(sql, 0);
+
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+
+            if (c == '\'') {
+                i++;
+
+                // A doubled quote is a part of the literal.
+                while (i < sql.length() && (sql.charAt(i) != '\'' || sql.startsWith("''", i))) {
+                    i += sql.charAt(i) == '\'' ? 2 : 1;
+                }
+
+                i++;
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if (Character.isLetterOrDigit(c) || c == '_' || c == '"') {
+                int start = i;
+                boolean quoted = false;
+
+                while (i < sql.length()) {
+                    char ch = sql.charAt(i);
+
+                    if (ch == '"') {
+                        quoted = !quoted;
+                    } else if (!quoted && !(Character.isLetterOrDigit(ch) || ch == '_' || ch == '$' || ch == '.')) {
+                        break;
+                    }
+
+                    i++;
+                }
+
+                if (depth == 0) {
+                    String text = sql.substring(start, i);
+
+                    words.add(new Word(text.startsWith("\"") ? text : text.toUpperCase(Locale.ROOT), start, i));
+                }
+            } else {
+                i++;
+            }
+
+            i = IgniteThinStatementType.skipComments(sql, i);
+        }
+
+        return words;
+    }
+
+    /**
+     * Listener of executed chunks.
+     */
+    interface ChunkListener {
+        /**
+         * Called after a chunk is executed.
+         *
+         * @param upper The highest key of the chunk.
+         * @throws SQLException If failed.
+         */
+        void onChunk(Object upper) throws SQLException;
+    }
+
+    /**
+     * Top level word of a statement.
+     */
+    static class Word {
+        /**
+         * Text, upper-cased unless quoted.
+         */
+        private final String text;
+
+        /**
+         * Start position.
+         */
+        private final int start;
+
+        /**
+         * End position, exclusive.
+         */
+        private final int end;
+
+        /**
+         * Default constructor.
+         *
+         * @param text  Text.
+         * @param start Start position.
+         * @param end   End position, exclusive.
+         */
+        Word(String text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Gets text, upper-cased unless quoted.
+         */
+        String text() {
+            return text;
+        }
+
+        /**
+         * Gets text as written in the statement.
+         *
+         * @param sql Statement.
+         */
+        String original(String sql) {
+            return sql.substring(start, end);
+        }
+    }
+
+    /**
+     * Statement prepared to be executed by chunks.
+     */
+    class Chunked {
+        /**
+         * Table as written in the statement.
+         */
+        private final String tbl;
+
+        /**
+         * Quoted primary key column.
+         */
+        private final String key;
+
+        /**
+         * Statement up to the chunk condition: the statement without its {@code WHERE} clause, {@code WHERE} and the
+         * original condition followed by {@code AND}.
+         */
+        private final String head;
+
+        /**
+         * Default constructor.
+         *
+         * @param tbl  Table as written in the statement.
+         * @param key  Quoted primary key column.
+         * @param head Statement up to the chunk condition.
+         */
+        Chunked(String tbl, String key, String head) {
+            this.tbl = tbl;
+            this.key = key;
+            this.head = head;
+        }
+
+        /**
+         * Executes the statement chunk by chunk.
+         *
+         * @param lower Key the first chunk starts after or {@code null} to start from the lowest key.
+         * @param desc  Statement description for logging.
+         * @param lsnr  Listener of executed chunks or {@code null}.
+         * @return The number of affected rows.
+         * @throws SQLException If a chunk failed.
+         */
+        long execute(Object lower, String desc, ChunkListener lsnr) throws SQLException {
+            Connection conn = jdbcTemplate.getConnection();
+            long start = System.currentTimeMillis();
+            long lastLog = start;
+            long rows = 0;
+            int chunks = 0;
+
+            while (true) {
+                Object upper = null;
+                int cnt = 0;
+
+                try (PreparedStatement bounds = conn.prepareStatement("SELECT " + key + " FROM " + tbl
+                        + (lower == null ? "" : " WHERE " + key + " > ?") + " ORDER BY " + key + " LIMIT " + chunkSize)) {
+                    if (lower != null) {
+                        bounds.setObject(1, lower);
+                    }
+
+                    try (ResultSet rs = bounds.executeQuery()) {
+                        while (rs.next()) {
+                            upper = rs.getObject(1);
+                            cnt++;
+                        }
+                    }
+                }
+
+                if (cnt == 0) {
+                    break;
+                }
+
+                try (PreparedStatement chunk = conn.prepareStatement(head
+                        + (lower == null ? "" : key + " > ? AND ") + key + " <= ?")) {
+                    int idx = 1;
+
+                    if (lower != null) {
+                        chunk.setObject(idx++, lower);
+                    }
+
+                    chunk.setObject(idx, upper);
+
+                    rows += chunk.executeUpdate();
+                }
+
+                chunks++;
+                lower = upper;
+
+                if (lsnr != null) {
+                    lsnr.onChunk(upper);
+                }
+
+                if (cnt < chunkSize) {
+                    break;
+                }
+
+                long now = System.currentTimeMillis();
+
+                if (now - lastLog >= LOG_INTERVAL) {
+                    LOG.info("Executing " + desc + " by chunks: " + chunks + " chunks, " + rows + " rows, last key " + upper
+                            + ", " + (now - start) + " ms");
+
+                    lastLog = now;
+                }
+
+                if (pause > 0) {
+                    try {
+                        Thread.sleep(pause);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+
+                        throw new FlywayException("Interrupted while executing " + desc + " by chunks", e);
+                    }
+                }
+            }
+
+            LOG.info("Executed " + desc + " by " + chunks + " chunks of up to " + chunkSize + " rows: " + rows + " rows in "
+                    + (System.currentTimeMillis() - start) + " ms");
+
+            return rows;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.apache.ignite.IgniteJdbcThinDataSource;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.client.IgniteClient;
+import org.apache.ignite.configuration.ClientConfiguration;
+import org.apache.ignite.internal.util.typedef.F;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+
+/**
+ * Creates thin clients that connect to the same cluster as the Flyway JDBC connection. The JDBC thin driver and
+ * the thin client share the client connector, so the JDBC addresses are reused as is.
+ */
+public class IgniteThinClientFactory {
+    /**
+     * Resolves connection properties: a configured {@link IgniteJdbcThinDataSource} is used as is, otherwise they are
+     * parsed from the JDBC url.
+     *
+     * @param cfg     Flyway configuration.
+     * @param jdbcUrl JDBC url of the Flyway connection.
+     */
+    public static IgniteJdbcThinDataSource dataSource(Configuration cfg, String jdbcUrl) {
+        DataSource dataSrc = cfg.getDataSource();
+
+        if (dataSrc instanceof IgniteJdbcThinDataSource) {
+            return (IgniteJdbcThinDataSource) dataSrc;
+        }
+
+        try {
+            IgniteJdbcThinDataSource src = new IgniteJdbcThinDataSource();
+
+            src.setUrl(jdbcUrl);
+
+            if (!F.isEmpty(cfg.getUser())) {
+                src.setUsername(cfg.getUser());
+                src.setPassword(cfg.getPassword());
+            }
+
+            return src;
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to parse Apache Ignite JDBC url", e);
+        }
+    }
+
+    /**
+     * Thin client configuration with the addresses and credentials of the data source. Partition awareness is on, so
+     * key operations go straight to the primary node of the key.
+     *
+     * @param src Data source.
+     */
+    public static ClientConfiguration clientConfiguration(IgniteJdbcThinDataSource src) {
+        ClientConfiguration clientCfg = new ClientConfiguration()
+                .setAddresses(src.getAddresses())
+                .setPartitionAwarenessEnabled(true);
+
+        if (!F.isEmpty(src.getUsername())) {
+            clientCfg.setUserName(src.getUsername())
+                    .setUserPassword(src.getPassword());
+        }
+
+        return clientCfg;
+    }
+
+    /**
+     * Starts a thin client.
+     *
+     * @param cfg     Flyway configuration.
+     * @param jdbcUrl JDBC url of the Flyway connection.
+     */
+    public static IgniteClient startClient(Configuration cfg, String jdbcUrl) {
+        return Ignition.startClient(clientConfiguration(dataSource(cfg, jdbcUrl)));
+    }
+}
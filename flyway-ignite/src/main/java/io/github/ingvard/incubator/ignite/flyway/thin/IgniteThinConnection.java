@@ -33,13 +33,26 @@
 package io.github.ingvard.incubator.ignite.flyway.thin;
 
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.flywaydb.core.internal.database.base.Connection;
 import org.flywaydb.core.internal.database.base.Schema;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 
 /**
  * Apache Ignite Thin connection.
  */
 public class IgniteThinConnection extends Connection<IgniteThinDatabase> {
+    /**
+     * Cached schema metadata by schema name.
+     */
+    private final Map<String, IgniteThinSchemaMetadata> metadata = new ConcurrentHashMap<>();
+
+    /**
+     * Jdbc template that reads the schema history through the on-disk cache or {@code null} if the cache is disabled.
+     */
+    private final JdbcTemplate historyJdbcTemplate;
+
     /**
      * Default constructor.
      *
@@ -48,6 +61,18 @@ public class IgniteThinConnection extends Connection<IgniteThinDatabase> {
      */
     IgniteThinConnection(IgniteThinDatabase db, java.sql.Connection conn) {
         super(db, conn);
+
+        String cacheDir = db.getPluginConfiguration().getHistoryCacheDir();
+
+        historyJdbcTemplate = cacheDir == null ? null : new IgniteThinHistoryJdbcTemplate(conn, db, cacheDir);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JdbcTemplate getJdbcTemplate() {
+        return historyJdbcTemplate != null ? historyJdbcTemplate : super.getJdbcTemplate();
     }
 
     /**
@@ -63,7 +88,41 @@ public class IgniteThinConnection extends Connection<IgniteThinDatabase> {
      */
     @Override
     public Schema getSchema(String name) {
-        return new IgniteThinSchema(jdbcTemplate, database, name);
+        return new IgniteThinSchema(jdbcTemplate, database, this, name);
+    }
+
+    /**
+     * Gets metadata of the schema, it is loaded on the first request and cached until invalidated.
+     *
+     * @param schema Schema name.
+     * @throws SQLException If failed.
+     */
+    IgniteThinSchemaMetadata getSchemaMetadata(String schema) throws SQLException {
+        IgniteThinSchemaMetadata meta = metadata.get(schema);
+
+        if (meta == null) {
+            meta = IgniteThinSchemaMetadata.load(jdbcTemplate, schema);
+
+            metadata.put(schema, meta);
+        }
+
+        return meta;
+    }
+
+    /**
+     * Returns cached metadata of the schema or {@code null}.
+     *
+     * @param schema Schema name.
+     */
+    IgniteThinSchemaMetadata getCachedSchemaMetadata(String schema) {
+        return metadata.get(schema);
+    }
+
+    /**
+     * Drops cached metadata.
+     */
+    void invalidateMetadata() {
+        metadata.clear();
     }
 
     /**
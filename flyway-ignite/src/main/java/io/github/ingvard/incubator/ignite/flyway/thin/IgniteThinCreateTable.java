@@ -0,0 +1,534 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import io.github.ingvard.incubator.ignite.flyway.compute.TableDefinition;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.cache.CacheWriteSynchronizationMode;
+
+/**
+ * Parses {@code CREATE TABLE} statements into {@link TableDefinition}s. Only the common subset of the grammar is
+ * supported: columns with a type, an optional precision and {@code [NOT] NULL} / {@code PRIMARY KEY} constraints,
+ * a {@code PRIMARY KEY (...)} clause and the {@code WITH} parameters. Any other statement is left to the SQL engine.
+ */
+class IgniteThinCreateTable {
+    /**
+     * Java types of the supported SQL types.
+     */
+    private static final Map<String, String> JAVA_TYPES = Map.ofEntries(
+            Map.entry("BOOLEAN", Boolean.class.getName()),
+            Map.entry("BOOL", Boolean.class.getName()),
+            Map.entry("TINYINT", Byte.class.getName()),
+            Map.entry("SMALLINT", Short.class.getName()),
+            Map.entry("INT", Integer.class.getName()),
+            Map.entry("INTEGER", Integer.class.getName()),
+            Map.entry("BIGINT", Long.class.getName()),
+            Map.entry("REAL", Float.class.getName()),
+            Map.entry("DOUBLE", Double.class.getName()),
+            Map.entry("FLOAT", Double.class.getName()),
+            Map.entry("DECIMAL", java.math.BigDecimal.class.getName()),
+            Map.entry("NUMERIC", java.math.BigDecimal.class.getName()),
+            Map.entry("CHAR", String.class.getName()),
+            Map.entry("VARCHAR", String.class.getName()),
+            Map.entry("DATE", java.sql.Date.class.getName()),
+            Map.entry("TIME", java.sql.Time.class.getName()),
+            Map.entry("TIMESTAMP", java.sql.Timestamp.class.getName()),
+            Map.entry("UUID", java.util.UUID.class.getName()),
+            Map.entry("BINARY", byte[].class.getName()),
+            Map.entry("VARBINARY", byte[].class.getName())
+    );
+
+    /**
+     * Supported {@code WITH} parameters.
+     */
+    private static final Set<String> PARAMS = Set.of("TEMPLATE", "BACKUPS", "ATOMICITY", "WRITE_SYNCHRONIZATION_MODE",
+            "CACHE_GROUP", "CACHE_NAME", "DATA_REGION", "AFFINITY_KEY", "KEY_TYPE", "VALUE_TYPE", "WRAP_KEY", "WRAP_VALUE",
+            "PARALLELISM");
+
+    /**
+     * Statement.
+     */
+    private final String sql;
+
+    /**
+     * Current position.
+     */
+    private int pos;
+
+    /**
+     * Default constructor.
+     *
+     * @param sql Statement.
+     */
+    private IgniteThinCreateTable(String sql) {
+        this.sql = sql;
+    }
+
+    /**
+     * Parses a {@code CREATE TABLE} statement.
+     *
+     * @param sql        Statement.
+     * @param dfltSchema Schema of an unqualified table.
+     * @return Definition or {@code null} if the statement uses syntax that is not supported.
+     */
+    static Parsed parse(String sql, String dfltSchema) {
+        try {
+            return new IgniteThinCreateTable(sql).parse(dfltSchema);
+        } catch (UnsupportedSyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the statement.
+     *
+     * @param dfltSchema Schema of an unqualified table.
+     */
+    private Parsed parse(String dfltSchema) throws UnsupportedSyntaxException {
+        expectWord("CREATE");
+        expectWord("TABLE");
+
+        boolean ifNotExists = false;
+
+        if (peekWord("IF")) {
+            expectWord("IF");
+            expectWord("NOT");
+            expectWord("EXISTS");
+
+            ifNotExists = true;
+        }
+
+        String first = name();
+        TableDefinition tbl;
+
+        if (peek('.')) {
+            pos++;
+
+            tbl = new TableDefinition(first, name());
+        } else {
+            tbl = new TableDefinition(dfltSchema, first);
+        }
+
+        expect('(');
+
+        do {
+            if (peekWord("PRIMARY")) {
+                expectWord("PRIMARY");
+                expectWord("KEY");
+                expect('(');
+
+                do {
+                    tbl.getKeyColumns().add(name());
+                } while (consume(','));
+
+                expect(')');
+            } else {
+                column(tbl);
+            }
+        } while (consume(','));
+
+        expect(')');
+
+        if (peekWord("WITH")) {
+            expectWord("WITH");
+
+            params(tbl, quoted());
+        }
+
+        tbl.setSql(sql.substring(0, pos).trim());
+
+        consume(';');
+        skip();
+
+        if (pos != sql.length()) {
+            throw new UnsupportedSyntaxException();
+        }
+
+        validate(tbl);
+
+        return new Parsed(tbl, ifNotExists);
+    }
+
+    /**
+     * Parses a column definition.
+     *
+     * @param tbl Table definition.
+     */
+    private void column(TableDefinition tbl) throws UnsupportedSyntaxException {
+        String col = name();
+        String type = word().toUpperCase(Locale.ROOT);
+        String javaType = JAVA_TYPES.get(type);
+
+        if (javaType == null || tbl.getColumns().containsKey(col)) {
+            throw new UnsupportedSyntaxException();
+        }
+
+        tbl.getColumns().put(col, javaType);
+
+        if (consume('(')) {
+            tbl.getPrecisions().put(col, number(word()));
+
+            if (consume(',')) {
+                tbl.getScales().put(col, number(word()));
+            }
+
+            expect(')');
+        }
+
+        while (true) {
+            if (peekWord("NOT")) {
+                expectWord("NOT");
+                expectWord("NULL");
+
+                tbl.getNotNullColumns().add(col);
+            } else if (peekWord("NULL")) {
+                expectWord("NULL");
+            } else if (peekWord("PRIMARY")) {
+                expectWord("PRIMARY");
+                expectWord("KEY");
+
+                tbl.getKeyColumns().add(col);
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Parses {@code WITH} parameters.
+     *
+     * @param tbl    Table definition.
+     * @param params Parameters, {@code KEY=value} separated by commas.
+     */
+    private static void params(TableDefinition tbl, String params) throws UnsupportedSyntaxException {
+        for (String param : params.split(",")) {
+            int eq = param.indexOf('=');
+
+            if (eq < 0) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            String key = param.substring(0, eq).trim().toUpperCase(Locale.ROOT);
+            String val = param.substring(eq + 1).trim();
+
+            if (!PARAMS.contains(key) || val.isEmpty() || tbl.getParams().put(key, val) != null) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            // Values the task can't apply are left to the SQL engine, so the error is reported by the engine.
+            switch (key) {
+                case "BACKUPS":
+                case "PARALLELISM":
+                    number(val);
+
+                    break;
+
+                case "ATOMICITY":
+                    constant(CacheAtomicityMode.class, val);
+
+                    break;
+
+                case "WRITE_SYNCHRONIZATION_MODE":
+                    constant(CacheWriteSynchronizationMode.class, val);
+
+                    break;
+
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Parses a non-negative number.
+     *
+     * @param val Value.
+     */
+    private static int number(String val) throws UnsupportedSyntaxException {
+        try {
+            int res = Integer.parseInt(val);
+
+            if (res < 0) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            return res;
+        } catch (NumberFormatException e) {
+            throw new UnsupportedSyntaxException();
+        }
+    }
+
+    /**
+     * Checks that the value is a constant of the enum, the case is ignored.
+     *
+     * @param cls Enum class.
+     * @param val Value.
+     * @param <E> Enum type.
+     */
+    private static <E extends Enum<E>> void constant(Class<E> cls, String val) throws UnsupportedSyntaxException {
+        try {
+            Enum.valueOf(cls, val.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new UnsupportedSyntaxException();
+        }
+    }
+
+    /**
+     * Checks the rules {@code CREATE TABLE} enforces, a definition that breaks them is left to the SQL engine, so the
+     * error is reported by the engine.
+     *
+     * @param tbl Table definition.
+     */
+    private static void validate(TableDefinition tbl) throws UnsupportedSyntaxException {
+        List<String> keyCols = tbl.getKeyColumns();
+        Map<String, String> params = tbl.getParams();
+
+        if (keyCols.isEmpty() || keyCols.size() == tbl.getColumns().size()
+                || !tbl.getColumns().keySet().containsAll(keyCols) || keyCols.stream().distinct().count() != keyCols.size()) {
+            throw new UnsupportedSyntaxException();
+        }
+
+        // Primary key columns are implicitly not null.
+        tbl.getNotNullColumns().addAll(keyCols);
+
+        if (params.containsKey("WRAP_KEY") && !Boolean.parseBoolean(params.get("WRAP_KEY")) && keyCols.size() != 1) {
+            throw new UnsupportedSyntaxException();
+        }
+
+        // A custom key type of a single column key changes wrapping, such statements are left to the SQL engine.
+        if (params.containsKey("KEY_TYPE") && !params.containsKey("WRAP_KEY") && keyCols.size() == 1) {
+            throw new UnsupportedSyntaxException();
+        }
+
+        if (params.containsKey("WRAP_VALUE") && !Boolean.parseBoolean(params.get("WRAP_VALUE"))
+                && tbl.getColumns().size() - keyCols.size() != 1) {
+            throw new UnsupportedSyntaxException();
+        }
+
+        String affKey = params.get("AFFINITY_KEY");
+
+        if (affKey != null) {
+            List<String> cols = new ArrayList<>(tbl.getColumns().keySet());
+            String resolved = cols.contains(affKey) ? affKey : cols.contains(affKey.toUpperCase(Locale.ROOT))
+                    ? affKey.toUpperCase(Locale.ROOT)
+                    : null;
+
+            // The affinity key must be a part of a wrapped primary key.
+            if (resolved == null || !keyCols.contains(resolved) || keyCols.size() == 1) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            params.put("AFFINITY_KEY", resolved);
+        }
+    }
+
+    /**
+     * Reads a name: a quoted name as is, an unquoted one in upper case.
+     */
+    private String name() throws UnsupportedSyntaxException {
+        skip();
+
+        if (peek('"')) {
+            return quoted();
+        }
+
+        String word = word();
+
+        if (word.isEmpty() || Character.isDigit(word.charAt(0))) {
+            throw new UnsupportedSyntaxException();
+        }
+
+        return word.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Reads a double-quoted text, doubled quotes are unescaped.
+     */
+    private String quoted() throws UnsupportedSyntaxException {
+        skip();
+        expect('"');
+
+        StringBuilder res = new StringBuilder();
+
+        while (true) {
+            if (pos == sql.length()) {
+                throw new UnsupportedSyntaxException();
+            }
+
+            char c = sql.charAt(pos++);
+
+            if (c == '"') {
+                if (pos < sql.length() && sql.charAt(pos) == '"') {
+                    pos++;
+                } else {
+                    return res.toString();
+                }
+            }
+
+            res.append(c);
+        }
+    }
+
+    /**
+     * Reads a word of letters, digits and underscores.
+     */
+    private String word() {
+        skip();
+
+        int start = pos;
+
+        while (pos < sql.length() && (Character.isLetterOrDigit(sql.charAt(pos)) || sql.charAt(pos) == '_')) {
+            pos++;
+        }
+
+        return sql.substring(start, pos);
+    }
+
+    /**
+     * Returns {@code true} if the next word is the given keyword.
+     *
+     * @param kw Keyword.
+     */
+    private boolean peekWord(String kw) {
+        int start = pos;
+
+        try {
+            return word().equalsIgnoreCase(kw);
+        } finally {
+            pos = start;
+        }
+    }
+
+    /**
+     * Reads the given keyword.
+     *
+     * @param kw Keyword.
+     */
+    private void expectWord(String kw) throws UnsupportedSyntaxException {
+        if (!word().equalsIgnoreCase(kw)) {
+            throw new UnsupportedSyntaxException();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the next significant character is the given one.
+     *
+     * @param c Character.
+     */
+    private boolean peek(char c) {
+        skip();
+
+        return pos < sql.length() && sql.charAt(pos) == c;
+    }
+
+    /**
+     * Reads the given character if it is next.
+     *
+     * @param c Character.
+     */
+    private boolean consume(char c) {
+        if (peek(c)) {
+            pos++;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the given character.
+     *
+     * @param c Character.
+     */
+    private void expect(char c) throws UnsupportedSyntaxException {
+        if (!consume(c)) {
+            throw new UnsupportedSyntaxException();
+        }
+    }
+
+    /**
+     * Skips whitespaces and comments.
+     */
+    private void skip() {
+        pos = IgniteThinStatementType.skipComments(sql, pos);
+    }
+
+    /**
+     * Signals a statement that uses syntax the parser doesn't support, such a statement is left to the SQL engine.
+     */
+    static class UnsupportedSyntaxException extends Exception {
+        /**
+         * Serial version uid.
+         */
+        private static final long serialVersionUID = 0L;
+
+        /**
+         * Default constructor.
+         */
+        UnsupportedSyntaxException() {
+            // The exception is a signal, so neither the message nor the stack trace is needed.
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * Parsed statement.
+     */
+    static class Parsed {
+        /**
+         * Table definition.
+         */
+        private final TableDefinition tbl;
+
+        /**
+         * {@code True} if the statement has {@code IF NOT EXISTS}.
+         */
+        private final boolean ifNotExists;
+
+        /**
+         * Default constructor.
+         *
+         * @param tbl         Table definition.
+         * @param ifNotExists {@code True} if the statement has {@code IF NOT EXISTS}.
+         */
+        Parsed(TableDefinition tbl, boolean ifNotExists) {
+            this.tbl = tbl;
+            this.ifNotExists = ifNotExists;
+        }
+
+        /**
+         * Gets table definition.
+         */
+        TableDefinition table() {
+            return tbl;
+        }
+
+        /**
+         * Returns {@code true} if the statement has {@code IF NOT EXISTS}.
+         */
+        boolean ifNotExists() {
+            return ifNotExists;
+        }
+    }
+}
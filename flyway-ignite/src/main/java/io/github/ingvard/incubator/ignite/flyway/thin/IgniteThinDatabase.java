@@ -32,10 +32,17 @@
 
 package io.github.ingvard.incubator.ignite.flyway.thin;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import org.apache.ignite.client.IgniteClient;
 import org.flywaydb.core.api.FlywayException;
 import org.flywaydb.core.api.MigrationVersion;
 import org.flywaydb.core.api.configuration.Configuration;
@@ -49,6 +56,47 @@ import org.flywaydb.core.internal.jdbc.StatementInterceptor;
  * Apache Ignite database.
  */
 public class IgniteThinDatabase extends Database<IgniteThinConnection> {
+    /**
+     * Open databases by their configurations, Java migrations look up the thin client of their database by the
+     * configuration of the migration context. A database is registered on creation and removed by {@link #close()}.
+     */
+    private static final Map<Configuration, IgniteThinDatabase> OPEN_DATABASES = new ConcurrentHashMap<>();
+
+    /**
+     * Thin client, it is started on demand by {@link #getThinClient()}.
+     */
+    private IgniteClient thinClient;
+
+    /**
+     * Pool SQL migrations are pre-parsed in, it is started on demand by {@link #getParsePool()}.
+     */
+    private ForkJoinPool parsePool;
+
+    /**
+     * Connections opened by the database, they are tracked to invalidate their cached metadata.
+     */
+    private final List<IgniteThinConnection> conns = new CopyOnWriteArrayList<>();
+
+    /**
+     * Schema history tables by their qualified names, see {@link #registerHistoryTable(Table)}.
+     */
+    private final Map<String, Table> historyTbls = new ConcurrentHashMap<>();
+
+    /**
+     * Connection properties, they are collected on demand by {@link #getBootstrap()}.
+     */
+    private IgniteThinBootstrap bootstrap;
+
+    /**
+     * Lease heartbeats of the locks held by the database.
+     */
+    private final Set<IgniteThinLockHeartbeat> heartbeats = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Schema history tables whose lock has been skipped because the awaited version had been applied by another instance.
+     */
+    private final Set<Table> skippedLocks = ConcurrentHashMap.newKeySet();
+
     /**
      * Default constructor.
      *
@@ -59,6 +107,244 @@ public class IgniteThinDatabase extends Database<IgniteThinConnection> {
     public IgniteThinDatabase(Configuration configuration, JdbcConnectionFactory jdbcConnectionFactory,
                               StatementInterceptor statementInterceptor) {
         super(configuration, jdbcConnectionFactory, statementInterceptor);
+
+        OPEN_DATABASES.put(configuration, this);
+    }
+
+    /**
+     * Gets the thin client of the open database with the given configuration, the client is shared by all users of
+     * the database and is closed together with it.
+     *
+     * @param configuration Flyway configuration.
+     * @return Thin client or {@code null} if there is no open database with the configuration.
+     */
+    public static IgniteClient getThinClient(Configuration configuration) {
+        IgniteThinDatabase db = configuration == null ? null : OPEN_DATABASES.get(configuration);
+
+        return db == null ? null : db.getThinClient();
+    }
+
+    /**
+     * Gets the pool SQL migrations are pre-parsed in by the open database with the given configuration.
+     *
+     * @param configuration Flyway configuration.
+     * @return Pool or {@code null} if there is no open database with the configuration.
+     */
+    static ForkJoinPool getParsePool(Configuration configuration) {
+        IgniteThinDatabase db = configuration == null ? null : OPEN_DATABASES.get(configuration);
+
+        return db == null ? null : db.getParsePool();
+    }
+
+    /**
+     * Drops schema metadata cached by the open database with the given configuration, it is called after DDL is run
+     * over connections the database doesn't know about.
+     *
+     * @param configuration Flyway configuration.
+     */
+    static void invalidateMetadata(Configuration configuration) {
+        IgniteThinDatabase db = configuration == null ? null : OPEN_DATABASES.get(configuration);
+
+        if (db != null) {
+            db.invalidateMetadata();
+        }
+    }
+
+    /**
+     * Fails if the open database with the given configuration has lost the lease of a lock it holds.
+     *
+     * @param configuration Flyway configuration.
+     * @throws FlywayException If a lease was lost.
+     */
+    static void checkLease(Configuration configuration) {
+        IgniteThinDatabase db = configuration == null ? null : OPEN_DATABASES.get(configuration);
+
+        if (db != null) {
+            for (IgniteThinLockHeartbeat heartbeat : db.heartbeats) {
+                heartbeat.check();
+            }
+        }
+    }
+
+    /**
+     * Fails if the open database with the given configuration has skipped the lock of a schema history table, so no
+     * migration is executed without the lock.
+     *
+     * @param configuration Flyway configuration.
+     * @throws FlywayException If a lock was skipped.
+     */
+    public static void checkLockNotSkipped(Configuration configuration) {
+        IgniteThinDatabase db = configuration == null ? null : OPEN_DATABASES.get(configuration);
+
+        if (db != null) {
+            for (Table tbl : db.skippedLocks) {
+                throw db.lockSkippedException(tbl);
+            }
+        }
+    }
+
+    /**
+     * Registers a schema history table whose lock has been skipped.
+     *
+     * @param tbl Schema history table.
+     */
+    void addSkippedLock(Table tbl) {
+        skippedLocks.add(tbl);
+    }
+
+    /**
+     * Unregisters a schema history table whose skipped lock has been released.
+     *
+     * @param tbl Schema history table.
+     */
+    void removeSkippedLock(Table tbl) {
+        skippedLocks.remove(tbl);
+    }
+
+    /**
+     * Creates the error of a migration that would be applied without the lock.
+     *
+     * @param tbl Schema history table whose lock has been skipped.
+     */
+    private FlywayException lockSkippedException(Table tbl) {
+        return new FlywayException("Version " + getPluginConfiguration().getLockWaitForVersion() + " has been applied by "
+                + "another Flyway instance and the lock on " + tbl + " was skipped, but this instance has pending migrations. "
+                + "Raise or remove " + IgniteProperty.LOCK_WAIT_FOR_VERSION.getKey() + ", no migration has been applied");
+    }
+
+    /**
+     * Registers the lease heartbeat of a lock taken by the database.
+     *
+     * @param heartbeat Heartbeat.
+     */
+    void addHeartbeat(IgniteThinLockHeartbeat heartbeat) {
+        heartbeats.add(heartbeat);
+    }
+
+    /**
+     * Unregisters the lease heartbeat of a released lock.
+     *
+     * @param heartbeat Heartbeat.
+     */
+    void removeHeartbeat(IgniteThinLockHeartbeat heartbeat) {
+        heartbeats.remove(heartbeat);
+    }
+
+    /**
+     * Gets the Flyway configuration.
+     */
+    Configuration getFlywayConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Gets the Ignite plugin configuration.
+     */
+    IgniteConfigurationExtension getPluginConfiguration() {
+        return IgniteConfigurationExtension.of(configuration);
+    }
+
+    /**
+     * Gets a thin client connected to the same cluster, the client is closed together with the database.
+     */
+    synchronized IgniteClient getThinClient() {
+        if (thinClient == null) {
+            thinClient = IgniteThinClientFactory.startClient(configuration, jdbcConnectionFactory.getJdbcUrl());
+        }
+
+        return thinClient;
+    }
+
+    /**
+     * Gets the pool of {@link IgniteConfigurationExtension#getParseParallelism()} threads SQL migrations are pre-parsed
+     * in, the pool is shut down together with the database.
+     */
+    synchronized ForkJoinPool getParsePool() {
+        if (parsePool == null) {
+            parsePool = new ForkJoinPool(getPluginConfiguration().getParseParallelism());
+        }
+
+        return parsePool;
+    }
+
+    /**
+     * Gets connection properties, they are collected by the first call.
+     *
+     * @throws SQLException If failed.
+     */
+    synchronized IgniteThinBootstrap getBootstrap() throws SQLException {
+        if (bootstrap == null) {
+            bootstrap = IgniteThinBootstrap.load(getMainConnection().getJdbcTemplate());
+        }
+
+        return bootstrap;
+    }
+
+    /**
+     * Gets JDBC url of the Flyway connections.
+     */
+    String getJdbcUrl() {
+        return jdbcConnectionFactory.getJdbcUrl();
+    }
+
+    /**
+     * Registers a table obtained from a schema if it is named after the schema history table of the configuration, so
+     * reads of its rows can be recognized by {@link #getHistoryTable(String)}.
+     *
+     * @param tbl Table.
+     */
+    void registerHistoryTable(Table tbl) {
+        if (tbl.getName().equals(configuration.getTable())) {
+            historyTbls.putIfAbsent(tbl.toString(), tbl);
+        }
+    }
+
+    /**
+     * Gets the registered schema history table the select statement is built for or {@code null}.
+     *
+     * @param selectSql Statement.
+     */
+    Table getHistoryTable(String selectSql) {
+        for (Table tbl : historyTbls.values()) {
+            if (getSelectStatement(tbl).equals(selectSql)) {
+                return tbl;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Opens a JDBC connection that is independent of the Flyway connections, the caller is responsible for closing it.
+     */
+    Connection openDedicatedConnection() {
+        return jdbcConnectionFactory.openConnection();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() {
+        OPEN_DATABASES.remove(configuration, this);
+
+        try {
+            super.close();
+        } finally {
+            synchronized (this) {
+                if (thinClient != null) {
+                    thinClient.close();
+
+                    thinClient = null;
+                }
+
+                if (parsePool != null) {
+                    parsePool.shutdownNow();
+
+                    parsePool = null;
+                }
+            }
+        }
     }
 
     /**
@@ -66,7 +352,20 @@ public class IgniteThinDatabase extends Database<IgniteThinConnection> {
      */
     @Override
     protected IgniteThinConnection doGetConnection(Connection conn) {
-        return new IgniteThinConnection(this, conn);
+        IgniteThinConnection thinConn = new IgniteThinConnection(this, conn);
+
+        conns.add(thinConn);
+
+        return thinConn;
+    }
+
+    /**
+     * Drops schema metadata cached by all connections, it is called after the plugin runs DDL.
+     */
+    void invalidateMetadata() {
+        for (IgniteThinConnection conn : conns) {
+            conn.invalidateMetadata();
+        }
     }
 
     /**
@@ -75,10 +374,7 @@ public class IgniteThinDatabase extends Database<IgniteThinConnection> {
     @Override
     protected MigrationVersion determineVersion() {
         try {
-            int buildId = getMainConnection().getJdbcTemplate()
-                    .queryForInt("SELECT VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE NAME = 'info.BUILD_ID'");
-
-            return MigrationVersion.fromVersion(super.determineVersion().getVersion() + "." + buildId);
+            return MigrationVersion.fromVersion(super.determineVersion().getVersion() + "." + getBootstrap().getBuildId());
         } catch (SQLException e) {
             throw new FlywaySqlException("Unable to determine Apache Ignite build ID", e);
         }
@@ -97,6 +393,7 @@ public class IgniteThinDatabase extends Database<IgniteThinConnection> {
      */
     @Override
     public String getRawCreateScript(Table tbl, boolean baseline) {
+        // The script is executed by IgniteThinSqlScriptExecutor, which invalidates the metadata after the DDL.
         StringBuilder tableBuilder = new StringBuilder("CREATE TABLE IF NOT EXISTS ").append(tbl).append(" (");
 
         tableBuilder.append("\"installed_rank\" INT PRIMARY KEY").append(",");
@@ -109,18 +406,61 @@ public class IgniteThinDatabase extends Database<IgniteThinConnection> {
         tableBuilder.append("\"installed_on\" TIMESTAMP NOT NULL").append(",");
         tableBuilder.append("\"execution_time\" INT NOT NULL").append(",");
         tableBuilder.append(" \"success\" BOOLEAN NOT NULL");
-        tableBuilder.append(") WITH \"TEMPLATE=REPLICATED, BACKUPS=1, ATOMICITY=ATOMIC\";");
+        tableBuilder.append(") WITH \"").append(historyTableParameters(getPluginConfiguration())).append("\";");
 
         if (baseline) {
             tableBuilder.append(getBaselineStatement(tbl)).append(";");
         }
 
-        String idx = "CREATE INDEX IF NOT EXISTS \"" + tbl.getSchema().getName() + "\".\"" + tbl.getName() + "_s_idx\" ON " + tbl
-                + " (\"success\");";
+        String idx = historyIndex(tbl, "_s_idx", "\"success\"");
+
+        if (getPluginConfiguration().isHistoryLockIndex()) {
+            idx += " " + historyIndex(tbl, "_lock_idx", "\"version\", \"description\"");
+        }
 
         return tableBuilder + " " + idx;
     }
 
+    /**
+     * Gets the {@code WITH} parameters of the schema history table according to the plugin configuration, tables kept
+     * next to the schema history table use them as well.
+     *
+     * @param cfg Plugin configuration.
+     */
+    static String historyTableParameters(IgniteConfigurationExtension cfg) {
+        StringBuilder params = new StringBuilder("TEMPLATE=").append(cfg.getHistoryTemplate())
+                .append(", BACKUPS=").append(cfg.getHistoryBackups())
+                .append(", ATOMICITY=").append(cfg.getHistoryAtomicity());
+
+        if (cfg.getHistoryWriteSynchronizationMode() != null) {
+            params.append(", WRITE_SYNCHRONIZATION_MODE=").append(cfg.getHistoryWriteSynchronizationMode());
+        }
+
+        if (cfg.getHistoryCacheGroup() != null) {
+            params.append(", CACHE_GROUP=").append(cfg.getHistoryCacheGroup());
+        }
+
+        if (cfg.getHistoryDataRegion() != null) {
+            params.append(", DATA_REGION=").append(cfg.getHistoryDataRegion());
+        }
+
+        return params.toString();
+    }
+
+    /**
+     * Gets the statement that creates an index of the schema history table.
+     *
+     * @param tbl     Schema history table.
+     * @param suffix  Index name suffix.
+     * @param columns Quoted index columns.
+     */
+    private String historyIndex(Table tbl, String suffix, String columns) {
+        int inlineSize = getPluginConfiguration().getHistoryInlineSize();
+
+        return "CREATE INDEX IF NOT EXISTS \"" + tbl.getSchema().getName() + "\".\"" + tbl.getName() + suffix + "\" ON " + tbl
+                + " (" + columns + ")" + (inlineSize > 0 ? " INLINE_SIZE " + inlineSize : "") + ";";
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -139,6 +479,10 @@ public class IgniteThinDatabase extends Database<IgniteThinConnection> {
      */
     @Override
     public String getInsertStatement(Table tbl) {
+        if (skippedLocks.contains(tbl)) {
+            throw lockSkippedException(tbl);
+        }
+
         return "INSERT INTO " + tbl + " (" + quote("installed_rank") + ", " + quote("version") + ", " + quote("description") + ", "
                 + quote("type") + ", " + quote("script") + ", " + quote("checksum") + ", " + quote("installed_by") + ", "
                 + quote("installed_on") + ", " + quote("execution_time") + ", " + quote("success") + ")"
@@ -149,20 +493,8 @@ public class IgniteThinDatabase extends Database<IgniteThinConnection> {
      * {@inheritDoc}
      */
     @Override
-    protected String doGetCurrentUser() {
-        String userName;
-        try {
-            Field connPropsField = getMainConnection().getJdbcConnection().getClass().getDeclaredField("connProps");
-            connPropsField.setAccessible(true);
-            Object connProps = connPropsField.get(getMainConnection().getJdbcConnection());
-            userName = (String) connProps.getClass().getMethod("getUsername").invoke(connProps);
-            if (userName == null || userName.equals("")) {
-                return "ignite";
-            }
-        } catch (NoSuchFieldException | NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
-            throw new FlywayException(e);
-        }
-        return userName;
+    protected String doGetCurrentUser() throws SQLException {
+        return getBootstrap().getUser();
     }
 
     /**
@@ -32,18 +32,24 @@
 
 package io.github.ingvard.incubator.ignite.flyway.thin;
 
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
 import java.sql.Connection;
 import java.sql.Types;
+import java.util.concurrent.ForkJoinPool;
 import org.apache.ignite.IgniteJdbcThinDriver;
 import org.apache.ignite.internal.jdbc.thin.JdbcThinUtils;
 import org.flywaydb.core.api.ResourceProvider;
 import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.callback.CallbackExecutor;
 import org.flywaydb.core.internal.database.base.BaseDatabaseType;
 import org.flywaydb.core.internal.database.base.Database;
 import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 import org.flywaydb.core.internal.jdbc.StatementInterceptor;
 import org.flywaydb.core.internal.parser.Parser;
 import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutorFactory;
+import org.flywaydb.core.internal.sqlscript.SqlScriptFactory;
 
 /**
  * Ignite thin database type.
@@ -120,4 +126,60 @@ public class IgniteThinDatabaseType extends BaseDatabaseType {
     ) {
         return new IgniteThinParser(configuration, parsingCtx);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SqlScriptFactory createSqlScriptFactory(Configuration configuration, ParsingContext parsingCtx) {
+        SqlScriptFactory dflt = super.createSqlScriptFactory(configuration, parsingCtx);
+        IgniteConfigurationExtension pluginCfg = IgniteConfigurationExtension.of(configuration);
+        int parallelism = pluginCfg.getParseParallelism();
+        String cacheDir = pluginCfg.getParseCacheDir();
+
+        // The pool is owned by the open database and is shut down together with it.
+        ForkJoinPool pool = parallelism > 0 ? IgniteThinDatabase.getParsePool(configuration) : null;
+
+        if (cacheDir == null && pool == null) {
+            return dflt;
+        }
+
+        return (rsrc, mixed, rsrcProvider) -> {
+            IgniteThinCachedSqlScript script = new IgniteThinCachedSqlScript(
+                    dflt.createSqlScript(rsrc, mixed, rsrcProvider),
+                    configuration,
+                    cacheDir,
+                    mixed,
+                    // Script configuration files can override transactionality, such scripts are left to Flyway.
+                    rsrcProvider != null && rsrcProvider.getResource(rsrc.getRelativePath() + ".conf") != null
+            );
+
+            if (pool != null) {
+                pool.execute(script::preParse);
+            }
+
+            return script;
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SqlScriptExecutorFactory createSqlScriptExecutorFactory(
+            JdbcConnectionFactory jdbcConnFactory,
+            CallbackExecutor callbackExecutor,
+            StatementInterceptor statementInterceptor
+    ) {
+        SqlScriptExecutorFactory dflt = super.createSqlScriptExecutorFactory(jdbcConnFactory, callbackExecutor, statementInterceptor);
+
+        return (conn, undo, batch, outputQryResults) -> new IgniteThinSqlScriptExecutor(
+                new JdbcTemplate(conn, this),
+                dflt.createSqlScriptExecutor(conn, undo, batch, outputQryResults),
+                jdbcConnFactory::openConnection,
+                this,
+                jdbcConnFactory.getJdbcUrl(),
+                statementInterceptor
+        );
+    }
 }
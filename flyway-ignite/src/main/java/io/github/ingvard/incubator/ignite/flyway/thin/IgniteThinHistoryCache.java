@@ -0,0 +1,604 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.database.base.Table;
+
+/**
+ * On-disk cache of schema history rows. Rows that have already been read are kept in a file keyed by the JDBC url and
+ * the history table, only rows installed after the cached ones are fetched. The cached rows are stored with a
+ * fingerprint of their rank range computed by the cluster: the row count, the maximum rank and the sum of 32-bit
+ * prefixes of per-row hashes of all columns. Before the cache is used, the fingerprint is checked by one aggregate
+ * query that returns a single row, so any change, for example after {@code repair}, {@code clean} or a cluster reset,
+ * drops the cache without the history being transferred.
+ * <p>
+ * The file is plain text: a header line, the fingerprint line, a line of column labels with their SQL types and a line
+ * per row with the values separated by tabs. It is parsed as data only, so a file planted in a shared directory can at
+ * worst be found invalid.
+ */
+class IgniteThinHistoryCache {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinHistoryCache.class);
+
+    /**
+     * Rank parameter of the history select statement that means the whole history.
+     */
+    private static final int FROM_START = -1;
+
+    /**
+     * First line of a cache file, a file with another first line is ignored.
+     */
+    private static final String HEADER = "flyway-ignite schema history cache v3";
+
+    /**
+     * The number of hex digits of a row hash summed up by the fingerprint, 32 bits keep the sum within a long.
+     */
+    private static final int HASH_PREFIX_DIGITS = 8;
+
+    /**
+     * Stored null value.
+     */
+    private static final String NULL = "\\N";
+
+    /**
+     * Database.
+     */
+    private final IgniteThinDatabase db;
+
+    /**
+     * History table.
+     */
+    private final Table tbl;
+
+    /**
+     * Cache file.
+     */
+    private final Path file;
+
+    /**
+     * Default constructor.
+     *
+     * @param db       Database.
+     * @param tbl      History table.
+     * @param cacheDir Cache directory.
+     */
+    IgniteThinHistoryCache(IgniteThinDatabase db, Table tbl, String cacheDir) {
+        this.db = db;
+        this.tbl = tbl;
+
+        file = Paths.get(cacheDir).resolve("flyway-ignite-history-" + key(db.getJdbcUrl() + '|' + tbl) + ".txt");
+    }
+
+    /**
+     * Reads the history rows with rank greater than the given one. Cached rows are validated, rows after them are
+     * fetched by the history select statement and appended to the cache.
+     *
+     * @param conn      Connection.
+     * @param selectSql History select statement with the rank parameter.
+     * @param fromRank  Rank to read rows after.
+     * @return Rows, column labels are in lower case.
+     * @throws SQLException If failed.
+     */
+    CachedRowSet read(Connection conn, String selectSql, int fromRank) throws SQLException {
+        Rows cached = load();
+
+        if (cached != null && !cached.fingerprint.equals(fingerprint(conn, cached.labels, cached.lastRank()))) {
+            LOG.info("Schema history cache " + file + " is outdated, reading the whole history of " + tbl);
+
+            cached = null;
+        }
+
+        Rows delta = select(conn, selectSql, cached == null ? FROM_START : cached.lastRank());
+
+        if (cached != null && !cached.hasColumnsOf(delta)) {
+            LOG.info("Schema history cache " + file + " has other columns, reading the whole history of " + tbl);
+
+            cached = null;
+            delta = select(conn, selectSql, FROM_START);
+        }
+
+        LOG.debug("Read " + delta.rows.size() + " schema history rows of " + tbl + ", "
+                + (cached == null ? 0 : cached.rows.size()) + " rows are cached");
+
+        Rows rows = cached == null ? delta : cached;
+
+        if (!delta.rows.isEmpty()) {
+            if (rows != delta) {
+                rows.rows.addAll(delta.rows);
+            }
+
+            rows.fingerprint = fingerprint(conn, rows.labels, rows.lastRank());
+
+            // The history could have been changed between the queries, such rows are not cached.
+            if (rows.fingerprint.startsWith(rows.rows.size() + ":" + rows.lastRank() + ":")) {
+                save(rows);
+            }
+        }
+
+        return rows.rowSet(fromRank);
+    }
+
+    /**
+     * Gets the fingerprint of the history rows up to the rank: the row count, the maximum rank and the sum of 32-bit
+     * prefixes of hashes of all columns of every row. All of them are computed by the cluster in one aggregate row, the
+     * sum doesn't depend on the row order, so the query also runs on a partitioned history table.
+     *
+     * @param conn   Connection.
+     * @param labels Column labels.
+     * @param toRank Rank of the last row.
+     * @throws SQLException If failed.
+     */
+    private String fingerprint(Connection conn, String[] labels, int toRank) throws SQLException {
+        StringBuilder row = new StringBuilder();
+
+        for (String label : labels) {
+            if (row.length() > 0) {
+                row.append(" || CHAR(31) || ");
+            }
+
+            // Null and empty values must give different hashes.
+            row.append("CASE WHEN ").append(db.quote(label)).append(" IS NULL THEN 'N' ELSE 'V' || CAST(")
+                    .append(db.quote(label)).append(" AS VARCHAR) END");
+        }
+
+        String hash = "LOWER(CAST(HASH('SHA256', STRINGTOUTF8(" + row + "), 1) AS VARCHAR))";
+
+        // The hex prefix of the hash is converted to a number digit by digit.
+        StringBuilder prefix = new StringBuilder();
+
+        for (int i = 0; i < HASH_PREFIX_DIGITS; i++) {
+            prefix.append(i == 0 ? "" : " + ").append("CAST(LOCATE(SUBSTRING(").append(hash).append(", ").append(i + 1)
+                    .append(", 1), '0123456789abcdef') - 1 AS BIGINT) * ").append(1L << (4 * (HASH_PREFIX_DIGITS - 1 - i)));
+        }
+
+        String sql = "SELECT COUNT(*), MAX(" + db.quote("installed_rank") + "), SUM(" + prefix + ") FROM " + tbl
+                + " WHERE " + db.quote("type") + " != 'TABLE' AND " + db.quote("installed_rank") + " > ? AND "
+                + db.quote("installed_rank") + " <= ?";
+
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, FROM_START);
+            stmt.setInt(2, toRank);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                rs.next();
+
+                return rs.getLong(1) + ":" + rs.getInt(2) + ":" + rs.getLong(3);
+            }
+        }
+    }
+
+    /**
+     * Selects history rows after the rank.
+     *
+     * @param conn      Connection.
+     * @param selectSql History select statement.
+     * @param fromRank  Rank.
+     * @throws SQLException If failed.
+     */
+    private static Rows select(Connection conn, String selectSql, int fromRank) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(selectSql)) {
+            stmt.setInt(1, fromRank);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                ResultSetMetaData meta = rs.getMetaData();
+                Rows res = new Rows(new String[meta.getColumnCount()], new int[meta.getColumnCount()]);
+
+                for (int i = 0; i < res.labels.length; i++) {
+                    res.labels[i] = meta.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+                    res.types[i] = meta.getColumnType(i + 1);
+                }
+
+                while (rs.next()) {
+                    Object[] row = new Object[res.labels.length];
+
+                    for (int i = 0; i < row.length; i++) {
+                        row[i] = rs.getObject(i + 1);
+                    }
+
+                    res.rows.add(row);
+                }
+
+                return res;
+            }
+        }
+    }
+
+    /**
+     * Loads cached rows.
+     *
+     * @return Rows or {@code null} if the file is missing, broken or has no rows.
+     */
+    private Rows load() {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IllegalArgumentException("unknown format");
+            }
+
+            String fingerprint = reader.readLine();
+
+            if (fingerprint == null || !fingerprint.matches("\\d+:-?\\d+:-?\\d+")) {
+                throw new IllegalArgumentException("invalid fingerprint");
+            }
+
+            String[] cols = fields(reader.readLine());
+            Rows res = new Rows(new String[cols.length], new int[cols.length]);
+
+            res.fingerprint = fingerprint;
+
+            for (int i = 0; i < cols.length; i++) {
+                int colon = cols[i].lastIndexOf(':');
+
+                res.labels[i] = cols[i].substring(0, colon);
+                res.types[i] = Integer.parseInt(cols[i].substring(colon + 1));
+
+                // Labels are put into the hash query.
+                if (!res.labels[i].matches("[a-z_][a-z0-9_]*")) {
+                    throw new IllegalArgumentException("invalid column label: " + res.labels[i]);
+                }
+            }
+
+            int rankIdx = Arrays.asList(res.labels).indexOf("installed_rank");
+
+            if (rankIdx < 0 || res.types[rankIdx] != Types.INTEGER) {
+                throw new IllegalArgumentException("no installed_rank column");
+            }
+
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = fields(line);
+
+                if (fields.length != cols.length) {
+                    throw new IllegalArgumentException("unexpected number of values at row " + (res.rows.size() + 1));
+                }
+
+                Object[] row = new Object[cols.length];
+
+                for (int i = 0; i < row.length; i++) {
+                    row[i] = decode(fields[i], res.types[i]);
+                }
+
+                res.rows.add(row);
+            }
+
+            return res.rows.isEmpty() ? null : res;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to read schema history cache " + file + ": " + e.getMessage());
+
+            return null;
+        }
+    }
+
+    /**
+     * Saves rows, the file is replaced atomically, so concurrent Flyway instances never see a partial file.
+     *
+     * @param rows Rows.
+     */
+    private void save(Rows rows) {
+        try {
+            StringBuilder text = new StringBuilder(HEADER).append('\n').append(rows.fingerprint).append('\n');
+
+            for (int i = 0; i < rows.labels.length; i++) {
+                text.append(i == 0 ? "" : "\t").append(escape(rows.labels[i])).append(':').append(rows.types[i]);
+            }
+
+            for (Object[] row : rows.rows) {
+                text.append('\n');
+
+                for (int i = 0; i < rows.labels.length; i++) {
+                    text.append(i == 0 ? "" : "\t").append(encode(row[i], rows.types[i]));
+                }
+            }
+
+            Files.createDirectories(file.getParent());
+
+            Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(text.toString());
+            }
+
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.warn("Unable to write schema history cache " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Encodes a value of the SQL type.
+     *
+     * @param val  Value.
+     * @param type SQL type.
+     * @throws IllegalArgumentException If the type is not supported.
+     */
+    private static String encode(Object val, int type) {
+        if (val == null) {
+            return NULL;
+        }
+
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.BOOLEAN:
+            case Types.BIT:
+            case Types.TIMESTAMP:
+                return val.toString();
+
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                return escape(val.toString());
+
+            default:
+                throw new IllegalArgumentException("Unsupported SQL type: " + type);
+        }
+    }
+
+    /**
+     * Decodes a value of the SQL type.
+     *
+     * @param val  Encoded value.
+     * @param type SQL type.
+     * @throws IllegalArgumentException If the value or the type is not supported.
+     */
+    private static Object decode(String val, int type) {
+        if (NULL.equals(val)) {
+            return null;
+        }
+
+        switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                return Integer.valueOf(val);
+
+            case Types.BIGINT:
+                return Long.valueOf(val);
+
+            case Types.BOOLEAN:
+            case Types.BIT:
+                if (!"true".equals(val) && !"false".equals(val)) {
+                    throw new IllegalArgumentException("Invalid boolean: " + val);
+                }
+
+                return Boolean.valueOf(val);
+
+            case Types.TIMESTAMP:
+                return Timestamp.valueOf(val);
+
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+                return unescape(val);
+
+            default:
+                throw new IllegalArgumentException("Unsupported SQL type: " + type);
+        }
+    }
+
+    /**
+     * Escapes backslashes, tabs and line breaks.
+     *
+     * @param val Value.
+     */
+    private static String escape(String val) {
+        return val.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    /**
+     * Reverts {@link #escape(String)}.
+     *
+     * @param val Escaped value.
+     */
+    private static String unescape(String val) {
+        StringBuilder res = new StringBuilder(val.length());
+
+        for (int i = 0; i < val.length(); i++) {
+            char c = val.charAt(i);
+
+            if (c != '\\') {
+                res.append(c);
+
+                continue;
+            }
+
+            char next = val.charAt(++i);
+
+            res.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+        }
+
+        return res.toString();
+    }
+
+    /**
+     * Splits a line into tab separated fields.
+     *
+     * @param line Line.
+     */
+    private static String[] fields(String line) {
+        if (line == null) {
+            throw new IllegalArgumentException("unexpected end of file");
+        }
+
+        return line.split("\t", -1);
+    }
+
+    /**
+     * Hashes the cache key into a file name part.
+     *
+     * @param key Key.
+     */
+    private static String key(String key) {
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Converts bytes to a hex string.
+     *
+     * @param bytes Bytes.
+     */
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+    /**
+     * History rows with their fingerprint computed by the cluster.
+     */
+    private static class Rows {
+        /**
+         * Column labels in lower case.
+         */
+        private final String[] labels;
+
+        /**
+         * SQL types of the columns.
+         */
+        private final int[] types;
+
+        /**
+         * Rows ordered by rank.
+         */
+        private final List<Object[]> rows = new ArrayList<>();
+
+        /**
+         * Fingerprint of {@link #rows}, see {@link IgniteThinHistoryCache#fingerprint(Connection, String[], int)}.
+         */
+        private String fingerprint;
+
+        /**
+         * Default constructor.
+         *
+         * @param labels Column labels in lower case.
+         * @param types  SQL types of the columns.
+         */
+        Rows(String[] labels, int[] types) {
+            this.labels = labels;
+            this.types = types;
+        }
+
+        /**
+         * Gets installed rank of the last row.
+         */
+        int lastRank() {
+            return ((Number) rows.get(rows.size() - 1)[Arrays.asList(labels).indexOf("installed_rank")]).intValue();
+        }
+
+        /**
+         * Returns {@code true} if the rows have the same columns as the given ones.
+         *
+         * @param other Rows.
+         */
+        boolean hasColumnsOf(Rows other) {
+            return Arrays.equals(labels, other.labels) && Arrays.equals(types, other.types);
+        }
+
+        /**
+         * Creates a row set of the rows with rank greater than the given one.
+         *
+         * @param fromRank Rank.
+         * @throws SQLException If failed.
+         */
+        CachedRowSet rowSet(int fromRank) throws SQLException {
+            RowSetMetaDataImpl meta = new RowSetMetaDataImpl();
+
+            meta.setColumnCount(labels.length);
+
+            for (int i = 0; i < labels.length; i++) {
+                meta.setColumnName(i + 1, labels[i]);
+                meta.setColumnLabel(i + 1, labels[i]);
+                meta.setColumnType(i + 1, types[i]);
+                meta.setNullable(i + 1, ResultSetMetaData.columnNullable);
+            }
+
+            CachedRowSet res = RowSetProvider.newFactory().createCachedRowSet();
+
+            res.setMetaData(meta);
+
+            int rankIdx = Arrays.asList(labels).indexOf("installed_rank");
+
+            for (Object[] row : rows) {
+                if (((Number) row[rankIdx]).intValue() <= fromRank) {
+                    continue;
+                }
+
+                // A row is inserted before the cursor, so the cursor is kept after the last row to keep the order.
+                res.afterLast();
+                res.moveToInsertRow();
+
+                for (int i = 0; i < row.length; i++) {
+                    if (row[i] == null) {
+                        res.updateNull(i + 1);
+                    } else {
+                        res.updateObject(i + 1, row[i]);
+                    }
+                }
+
+                res.insertRow();
+                res.moveToCurrentRow();
+            }
+
+            res.beforeFirst();
+
+            return res;
+        }
+    }
+}
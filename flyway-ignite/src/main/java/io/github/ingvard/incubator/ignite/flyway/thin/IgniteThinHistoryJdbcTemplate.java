@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.sql.rowset.CachedRowSet;
+import org.flywaydb.core.internal.database.base.Table;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.RowMapper;
+
+/**
+ * Jdbc template that serves the schema history select statement from {@link IgniteThinHistoryCache}, other
+ * statements are executed as is.
+ */
+class IgniteThinHistoryJdbcTemplate extends JdbcTemplate {
+    /**
+     * Database.
+     */
+    private final IgniteThinDatabase db;
+
+    /**
+     * Cache directory.
+     */
+    private final String cacheDir;
+
+    /**
+     * Default constructor.
+     *
+     * @param conn     Connection.
+     * @param db       Database.
+     * @param cacheDir Cache directory.
+     */
+    IgniteThinHistoryJdbcTemplate(Connection conn, IgniteThinDatabase db, String cacheDir) {
+        super(conn, db.getDatabaseType());
+
+        this.db = db;
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <T> List<T> query(String qry, RowMapper<T> rowMapper, Object... params) throws SQLException {
+        Table tbl = db.getHistoryTable(qry);
+
+        if (tbl == null || params.length != 1 || !(params[0] instanceof Integer)) {
+            return super.query(qry, rowMapper, params);
+        }
+
+        try (CachedRowSet rows = new IgniteThinHistoryCache(db, tbl, cacheDir).read(getConnection(), qry, (Integer) params[0])) {
+            List<T> res = new ArrayList<>(rows.size());
+
+            while (rows.next()) {
+                res.add(rowMapper.mapRow(rows));
+            }
+
+            return res;
+        }
+    }
+}
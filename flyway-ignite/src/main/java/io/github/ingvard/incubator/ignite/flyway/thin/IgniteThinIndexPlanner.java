@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Plans {@code CREATE INDEX} statements: {@code PARALLEL} is set to the CPU count of the smallest server node and
+ * {@code INLINE_SIZE} is computed from the types of the indexed columns. Options set by the statement are kept, a
+ * statement with the {@code ignite:noplan} hint is not changed.
+ */
+class IgniteThinIndexPlanner {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinIndexPlanner.class);
+
+    /**
+     * Hint that disables planning of a statement.
+     */
+    static final String NO_PLAN_HINT = "noplan";
+
+    /**
+     * Possibly quoted name.
+     */
+    private static final String NAME = "(?:\"(?:[^\"]|\"\")*\"|[A-Za-z_][\\w$]*)";
+
+    /**
+     * {@code CREATE INDEX [IF NOT EXISTS] name ON [schema.]tbl (cols) options}.
+     */
+    private static final Pattern CREATE_INDEX = Pattern.compile("(?is)CREATE\\s+INDEX\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?(" + NAME
+            + ")\\s+ON\\s+(?:(" + NAME + ")\\s*\\.\\s*)?(" + NAME + ")\\s*\\(([^()]*)\\)(.*)");
+
+    /**
+     * Inline sizes of fixed size types: a type byte and the value.
+     */
+    private static final Map<String, Integer> FIXED_INLINE_SIZES = Map.ofEntries(
+            Map.entry(Boolean.class.getName(), 2),
+            Map.entry(Byte.class.getName(), 2),
+            Map.entry(Short.class.getName(), 3),
+            Map.entry(Integer.class.getName(), 5),
+            Map.entry(Long.class.getName(), 9),
+            Map.entry(Float.class.getName(), 5),
+            Map.entry(Double.class.getName(), 9),
+            Map.entry(java.sql.Date.class.getName(), 9),
+            Map.entry(java.sql.Time.class.getName(), 9),
+            Map.entry(java.sql.Timestamp.class.getName(), 17),
+            Map.entry(java.util.UUID.class.getName(), 17)
+    );
+
+    /**
+     * Header of an inlined variable length value: a type byte and the length.
+     */
+    private static final int VAR_INLINE_HEADER = 3;
+
+    /**
+     * Jdbc template.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Maximum parallelism, {@code 0} if it is limited only by the CPU count.
+     */
+    private final int maxParallelism;
+
+    /**
+     * Maximum inline size.
+     */
+    private final int maxInlineSize;
+
+    /**
+     * CPU count of the smallest server node, {@code 0} if unknown, {@code null} if not read yet.
+     */
+    private Integer cpus;
+
+    /**
+     * Default constructor.
+     *
+     * @param jdbcTemplate   Jdbc template.
+     * @param maxParallelism Maximum parallelism, {@code 0} if it is limited only by the CPU count.
+     * @param maxInlineSize  Maximum inline size.
+     */
+    IgniteThinIndexPlanner(JdbcTemplate jdbcTemplate, int maxParallelism, int maxInlineSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxParallelism = maxParallelism;
+        this.maxInlineSize = maxInlineSize;
+    }
+
+    /**
+     * Plans a {@code CREATE INDEX} statement, the table must exist, other statements are returned as is. An
+     * unqualified table is looked up in the current schema of the migration connection.
+     *
+     * @param sql Statement.
+     * @return Statement with the planned options or the given statement if it is not planned.
+     */
+    String plan(String sql) {
+        if (IgniteThinStatementType.of(sql) != IgniteThinStatementType.DDL || IgniteThinStatementType.hasHint(sql, NO_PLAN_HINT)) {
+            return sql;
+        }
+
+        String stmt = sql.trim();
+
+        if (stmt.endsWith(";")) {
+            stmt = stmt.substring(0, stmt.length() - 1).trim();
+        }
+
+        Matcher m = CREATE_INDEX.matcher(stmt);
+
+        if (!m.region(IgniteThinStatementType.skipComments(stmt, 0), stmt.length()).matches()) {
+            return sql;
+        }
+
+        String opts = m.group(5).toUpperCase(Locale.ROOT);
+        String schema = m.group(2) == null ? currentSchema() : name(m.group(2));
+        String tbl = name(m.group(3));
+        StringBuilder planned = new StringBuilder(stmt);
+        List<String> report = new ArrayList<>();
+
+        if (!opts.matches("(?s).*\\bPARALLEL\\b.*")) {
+            int parallelism = parallelism();
+
+            if (parallelism > 1) {
+                planned.append(" PARALLEL ").append(parallelism);
+                report.add("PARALLEL " + parallelism);
+            }
+        }
+
+        if (!opts.matches("(?s).*\\bINLINE_SIZE\\b.*")) {
+            int inlineSize = inlineSize(schema, tbl, m.group(4));
+
+            if (inlineSize > 0) {
+                planned.append(" INLINE_SIZE ").append(inlineSize);
+                report.add("INLINE_SIZE " + inlineSize);
+            }
+        }
+
+        if (report.isEmpty()) {
+            return sql;
+        }
+
+        LOG.info("Planned index " + name(m.group(1)) + " on " + schema + "." + tbl + "(" + m.group(4).trim() + "): "
+                + String.join(", ", report));
+
+        return planned.toString();
+    }
+
+    /**
+     * Gets index build parallelism: the CPU count of the smallest server node limited by {@link #maxParallelism}.
+     */
+    private int parallelism() {
+        if (cpus == null) {
+            try {
+                cpus = jdbcTemplate.queryForInt("SELECT MIN(M.TOTAL_CPU) FROM SYS.NODE_METRICS M "
+                        + "JOIN SYS.NODES N ON M.NODE_ID = N.NODE_ID WHERE N.IS_CLIENT = FALSE");
+            } catch (SQLException e) {
+                LOG.debug("Unable to read the CPU count of server nodes: " + e.getMessage());
+
+                cpus = 0;
+            }
+        }
+
+        return maxParallelism > 0 ? Math.min(cpus, maxParallelism) : cpus;
+    }
+
+    /**
+     * Computes inline size of the index columns. Columns are inlined in the index order until a column that can't be
+     * inlined, a variable length column takes its precision or the rest of {@link #maxInlineSize}.
+     *
+     * @param schema Schema.
+     * @param tbl    Table.
+     * @param cols   Index columns as written in the statement.
+     * @return Inline size or {@code 0} if it is unknown.
+     */
+    private int inlineSize(String schema, String tbl, String cols) {
+        Map<String, Map<String, String>> types = new HashMap<>();
+
+        try {
+            List<Map<String, String>> rows = jdbcTemplate.queryForList(
+                    "SELECT COLUMN_NAME, TYPE, PRECISION FROM SYS.TABLE_COLUMNS WHERE SCHEMA_NAME = ? AND TABLE_NAME = ?", schema, tbl);
+
+            for (Map<String, String> row : rows) {
+                types.put(row.get("COLUMN_NAME"), row);
+            }
+        } catch (SQLException e) {
+            LOG.debug("Unable to read columns of " + schema + "." + tbl + ": " + e.getMessage());
+
+            return 0;
+        }
+
+        int size = 0;
+
+        for (String col : cols.split(",")) {
+            Map<String, String> column = types.get(name(col.trim().split("\\s+")[0]));
+
+            if (column == null) {
+                return 0;
+            }
+
+            String type = String.valueOf(column.get("TYPE"));
+
+            if (FIXED_INLINE_SIZES.containsKey(type)) {
+                size += FIXED_INLINE_SIZES.get(type);
+            } else if (String.class.getName().equals(type) || byte[].class.getName().equals(type)) {
+                int precision = column.get("PRECISION") == null ? -1 : Integer.parseInt(column.get("PRECISION"));
+
+                size += precision > 0 && precision < Integer.MAX_VALUE - VAR_INLINE_HEADER
+                        ? VAR_INLINE_HEADER + precision
+                        : maxInlineSize;
+            } else {
+                break;
+            }
+
+            if (size >= maxInlineSize) {
+                break;
+            }
+        }
+
+        return Math.min(size, maxInlineSize);
+    }
+
+    /**
+     * Gets the current schema of the migration connection.
+     */
+    private String currentSchema() {
+        try {
+            String schema = jdbcTemplate.getConnection().getSchema();
+
+            return schema == null ? "PUBLIC" : schema;
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to get the current schema", e);
+        }
+    }
+
+    /**
+     * Normalizes a name: a quoted name is unquoted, an unquoted one is upper-cased.
+     *
+     * @param name Name.
+     */
+    private static String name(String name) {
+        return name.startsWith("\"")
+                ? name.substring(1, name.length() - 1).replace("\"\"", "\"")
+                : name.toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+
+/**
+ * SQL script that checks the lease of the schema history lock before every statement is handed out, so a script
+ * executed by the default Flyway executor stops as soon as the lease is lost and is executed as usual otherwise.
+ */
+class IgniteThinLeaseCheckedSqlScript implements SqlScript {
+    /**
+     * Script.
+     */
+    private final SqlScript delegate;
+
+    /**
+     * Flyway configuration of the open database that holds the lock.
+     */
+    private final Configuration config;
+
+    /**
+     * Default constructor.
+     *
+     * @param delegate Script.
+     * @param config   Flyway configuration of the open database that holds the lock.
+     */
+    IgniteThinLeaseCheckedSqlScript(SqlScript delegate, Configuration config) {
+        this.delegate = delegate;
+        this.config = config;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SqlStatementIterator getSqlStatements() {
+        SqlStatementIterator it = delegate.getSqlStatements();
+
+        return new SqlStatementIterator() {
+            @Override public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override public SqlStatement next() {
+                SqlStatement stmt = it.next();
+
+                // Another instance may have taken the lock over, nothing more can be executed safely.
+                IgniteThinDatabase.checkLease(config);
+
+                return stmt;
+            }
+
+            @Override public void close() {
+                it.close();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSqlStatementCount() {
+        return delegate.getSqlStatementCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LoadableResource getResource() {
+        return delegate.getResource();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean executeInTransaction() {
+        return delegate.executeInTransaction();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean shouldExecute() {
+        return delegate.shouldExecute();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void validate() {
+        delegate.validate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo(SqlScript o) {
+        return delegate.compareTo(o);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Extends the lease of the schema history lock row while the lock is held. The lease is extended over a dedicated
+ * connection, so a long migration statement on the main connection doesn't delay the heartbeat. The lease is
+ * considered lost if another instance has taken the lock over or if no extension has succeeded for the lease time,
+ * for example the heartbeat connection has failed, as the lock may be reaped by then.
+ */
+class IgniteThinLockHeartbeat implements AutoCloseable {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinLockHeartbeat.class);
+
+    /**
+     * Dedicated connection.
+     */
+    private final Connection conn;
+
+    /**
+     * Jdbc template over the dedicated connection.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lease extension statement.
+     */
+    private final String extendSql;
+
+    /**
+     * Lock description used in log messages.
+     */
+    private final String lockName;
+
+    /**
+     * Lease time in milliseconds.
+     */
+    private final long leaseTime;
+
+    /**
+     * Time of the last successful lease extension, the lock is taken with a fresh lease.
+     */
+    private volatile long lastExtended = System.currentTimeMillis();
+
+    /**
+     * Heartbeat executor.
+     */
+    private final ScheduledExecutorService exec;
+
+    /**
+     * {@code True} if the lease was found expired or removed by another instance.
+     */
+    private volatile boolean lost;
+
+    /**
+     * Starts the heartbeat.
+     *
+     * @param db         Database.
+     * @param extendSql  Lease extension statement, it must update exactly one row while the lock is held.
+     * @param lockName   Lock description used in log messages.
+     * @param leaseTime  Lease time in milliseconds.
+     * @param intervalMs Heartbeat interval in milliseconds.
+     */
+    IgniteThinLockHeartbeat(IgniteThinDatabase db, String extendSql, String lockName, long leaseTime, long intervalMs) {
+        this.extendSql = extendSql;
+        this.lockName = lockName;
+        this.leaseTime = leaseTime;
+
+        conn = db.openDedicatedConnection();
+        jdbcTemplate = new JdbcTemplate(conn, db.getDatabaseType());
+
+        exec = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "flyway-ignite-lock-heartbeat");
+
+            t.setDaemon(true);
+
+            return t;
+        });
+
+        exec.scheduleWithFixedDelay(this::extend, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Extends the lease.
+     */
+    private void extend() {
+        try {
+            long now = System.currentTimeMillis();
+
+            if (jdbcTemplate.update(extendSql) == 0) {
+                if (!lost) {
+                    lost = true;
+
+                    LOG.error("Lease of " + lockName + " has expired and was taken over by another Flyway instance");
+                }
+            } else {
+                lastExtended = now;
+            }
+        } catch (SQLException | RuntimeException e) {
+            // The next heartbeat retries, the lease stays valid until the lease time elapses since the last extension.
+            LOG.warn("Unable to extend lease of " + lockName + ": " + e.getMessage());
+
+            // Marks the lease lost if the failures have lasted for the lease time.
+            isLost();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the lease was lost while the lock was held, the lease is lost as well once it hasn't been
+     * extended for the lease time.
+     */
+    boolean isLost() {
+        if (!lost && System.currentTimeMillis() - lastExtended >= leaseTime) {
+            lost = true;
+
+            LOG.error("Lease of " + lockName + " hasn't been extended for " + leaseTime + " ms, it may be taken over by "
+                    + "another Flyway instance");
+        }
+
+        return lost;
+    }
+
+    /**
+     * Fails if the lease was lost, it is called between migration statements, so a migration stops as soon as another
+     * instance may have taken the lock over.
+     *
+     * @throws FlywayException If the lease was lost.
+     */
+    void check() {
+        if (isLost()) {
+            throw new FlywayException("Lease of " + lockName + " has expired and may have been taken over by another "
+                    + "Flyway instance, the migration is aborted");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void close() {
+        exec.shutdownNow();
+
+        try {
+            exec.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            LOG.debug("Unable to close heartbeat connection: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.cache.event.CacheEntryEvent;
+import org.apache.ignite.cache.query.ContinuousQuery;
+import org.apache.ignite.cache.query.QueryCursor;
+import org.apache.ignite.client.ClientCache;
+import org.apache.ignite.client.IgniteClient;
+
+/**
+ * Waits for changes of the schema history lock row. The continuous query mode wakes a waiter up as soon as the lock
+ * row is changed, the polling mode just sleeps the whole interval.
+ */
+class IgniteThinLockWatcher implements AutoCloseable {
+    /**
+     * Lock row changes that haven't been consumed by a waiter yet.
+     */
+    private final Semaphore changes = new Semaphore(0);
+
+    /**
+     * Continuous query cursor or {@code null} in the polling mode.
+     */
+    private final QueryCursor<?> cursor;
+
+    /**
+     * Polling watcher.
+     */
+    private IgniteThinLockWatcher() {
+        cursor = null;
+    }
+
+    /**
+     * Continuous query watcher.
+     *
+     * @param cache   Schema history cache.
+     * @param lockKey Key of the lock row or {@code null} to listen all rows.
+     */
+    private IgniteThinLockWatcher(ClientCache<Object, Object> cache, Object lockKey) {
+        ContinuousQuery<Object, Object> qry = new ContinuousQuery<>();
+
+        qry.setLocalListener(evts -> {
+            for (CacheEntryEvent<?, ?> evt : evts) {
+                if (lockKey == null || lockKey.equals(evt.getKey())) {
+                    changes.release();
+                }
+            }
+        });
+
+        cursor = cache.query(qry);
+    }
+
+    /**
+     * Creates a watcher that sleeps the whole interval.
+     */
+    static IgniteThinLockWatcher polling() {
+        return new IgniteThinLockWatcher();
+    }
+
+    /**
+     * Creates a watcher that listens changes of the lock row by a continuous query.
+     *
+     * @param client    Thin client.
+     * @param cacheName Schema history cache name.
+     * @param lockKey   Key of the lock row or {@code null} to listen all rows.
+     */
+    static IgniteThinLockWatcher continuous(IgniteClient client, String cacheName, Object lockKey) {
+        return new IgniteThinLockWatcher(client.cache(cacheName).withKeepBinary(), lockKey);
+    }
+
+    /**
+     * Waits until the lock row changes or the timeout elapses.
+     *
+     * @param timeoutMs Timeout in milliseconds.
+     * @throws InterruptedException If interrupted.
+     */
+    void await(long timeoutMs) throws InterruptedException {
+        if (cursor == null) {
+            Thread.sleep(timeoutMs);
+        } else if (changes.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            // Several changes are handled by a single retry.
+            changes.drainPermits();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void close() {
+        if (cursor != null) {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.PacingMode;
+import java.sql.SQLException;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Waits until the cluster is settled: no partition is being rebalanced and the CPU load of every node is under the
+ * threshold. The state is read from {@code SYS.PARTITION_STATES} and {@code SYS.NODE_METRICS}, if the views can't be
+ * read, the pacer doesn't wait. Whether the pacer waits after a script or after DDL statements as well is decided by
+ * the {@link PacingMode}. While the cluster is busy, the poll interval doubles from {@link #MIN_POLL_INTERVAL} up to
+ * {@link #MAX_POLL_INTERVAL}, so a long rebalance isn't polled every moment.
+ */
+class IgniteThinPacer {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinPacer.class);
+
+    /**
+     * First poll interval in milliseconds.
+     */
+    private static final long MIN_POLL_INTERVAL = 100;
+
+    /**
+     * Maximum poll interval in milliseconds.
+     */
+    private static final long MAX_POLL_INTERVAL = 5_000;
+
+    /**
+     * Progress log interval in milliseconds.
+     */
+    private static final long LOG_INTERVAL = 10_000;
+
+    /**
+     * The number of partitions being rebalanced.
+     */
+    private static final String MOVING_PARTITIONS_QRY = "SELECT COUNT(*) FROM SYS.PARTITION_STATES WHERE STATE = 'MOVING'";
+
+    /**
+     * The highest CPU load of the nodes in percent.
+     */
+    private static final String MAX_CPU_LOAD_QRY = "SELECT MAX(CUR_CPU_LOAD) * 100 FROM SYS.NODE_METRICS";
+
+    /**
+     * Jdbc template.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Pacing mode.
+     */
+    private final PacingMode mode;
+
+    /**
+     * Timeout in milliseconds.
+     */
+    private final long timeout;
+
+    /**
+     * Whether the pacer waits for rebalancing to finish.
+     */
+    private final boolean rebalance;
+
+    /**
+     * Maximum CPU load in percent, {@code 0} disables the check.
+     */
+    private final int maxCpuLoad;
+
+    /**
+     * {@code True} if the views couldn't be read, the pacer doesn't wait then.
+     */
+    private boolean disabled;
+
+    /**
+     * Default constructor.
+     *
+     * @param jdbcTemplate Jdbc template.
+     * @param pluginCfg    Plugin configuration.
+     */
+    IgniteThinPacer(JdbcTemplate jdbcTemplate, IgniteConfigurationExtension pluginCfg) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        mode = pluginCfg.getPacingMode();
+        timeout = pluginCfg.getPacingTimeout();
+        rebalance = pluginCfg.isPacingRebalance();
+        maxCpuLoad = pluginCfg.getPacingMaxCpuLoad();
+    }
+
+    /**
+     * Returns {@code true} if the pacer waits after DDL statements, so they can't be executed by the default executor.
+     */
+    boolean pacesStatements() {
+        return mode == PacingMode.STATEMENT;
+    }
+
+    /**
+     * Waits until the cluster is settled after a script unless pacing is disabled.
+     *
+     * @param script Script name.
+     * @throws FlywayException If the cluster isn't settled within the timeout.
+     */
+    void afterScript(String script) {
+        if (mode != PacingMode.NONE) {
+            await(script);
+        }
+    }
+
+    /**
+     * Waits until the cluster is settled after DDL statements if statement pacing is enabled.
+     *
+     * @param stmts  Statements, for logging.
+     * @param script Script name.
+     * @throws FlywayException If the cluster isn't settled within the timeout.
+     */
+    void afterStatements(String stmts, String script) {
+        if (mode == PacingMode.STATEMENT) {
+            await(stmts + " of " + script);
+        }
+    }
+
+    /**
+     * Waits until the cluster is settled.
+     *
+     * @param after What the cluster is settling after, for logging.
+     * @throws FlywayException If the cluster isn't settled within the timeout.
+     */
+    void await(String after) {
+        if (disabled || (!rebalance && maxCpuLoad <= 0)) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long lastLog = start;
+        long interval = MIN_POLL_INTERVAL;
+
+        while (true) {
+            int moving;
+            double cpuLoad;
+
+            try {
+                moving = rebalance ? jdbcTemplate.queryForInt(MOVING_PARTITIONS_QRY) : 0;
+                cpuLoad = maxCpuLoad > 0 ? cpuLoad() : 0;
+            } catch (SQLException e) {
+                LOG.warn("Unable to read the cluster state, pacing is disabled: " + e.getMessage());
+
+                disabled = true;
+
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+
+            if (moving == 0 && (maxCpuLoad <= 0 || cpuLoad < maxCpuLoad)) {
+                if (interval > MIN_POLL_INTERVAL) {
+                    LOG.info("Cluster settled after " + after + " in " + (now - start) + " ms");
+                }
+
+                return;
+            }
+
+            String state = (rebalance ? "moving partitions=" + moving : "")
+                    + (rebalance && maxCpuLoad > 0 ? ", " : "")
+                    + (maxCpuLoad > 0 ? "max CPU load=" + Math.round(cpuLoad) + "%" : "");
+
+            if (now - start >= timeout) {
+                throw new FlywayException("Cluster didn't settle after " + after + " in " + timeout + " ms [" + state + "]");
+            }
+
+            if (now - lastLog >= LOG_INTERVAL) {
+                LOG.info("Waiting for the cluster to settle after " + after + " for " + (now - start) + " ms [" + state + "]");
+
+                lastLog = now;
+            }
+
+            try {
+                Thread.sleep(Math.min(interval, timeout - (now - start)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new FlywayException("Interrupted while waiting for the cluster to settle", e);
+            }
+
+            interval = Math.min(interval * 2, MAX_POLL_INTERVAL);
+        }
+    }
+
+    /**
+     * Gets the highest CPU load of the nodes in percent.
+     *
+     * @throws SQLException If the metrics couldn't be read.
+     */
+    private double cpuLoad() throws SQLException {
+        String load = jdbcTemplate.queryForString(MAX_CPU_LOAD_QRY);
+
+        return load == null ? 0 : Double.parseDouble(load);
+    }
+}
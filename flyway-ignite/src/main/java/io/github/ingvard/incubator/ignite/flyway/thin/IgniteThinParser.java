@@ -52,6 +52,11 @@ public class IgniteThinParser extends Parser {
      */
     private static final List<String> DDL_KEYWORDS = Arrays.asList("CREATE", "ALTER", "DROP");
 
+    /**
+     * Max length of a dollar quote tag, {@code $tag$}, longer sequences are not treated as dollar quotes.
+     */
+    private static final int MAX_DOLLAR_TAG_LENGTH = 64;
+
     /**
      * Default constructor.
      *
@@ -82,17 +87,51 @@ public class IgniteThinParser extends Parser {
             int line,
             int col
     ) throws IOException {
-        String dollarQuote = (char) reader.read() + reader.readUntilIncluding('$');
+        // The tag is looked up within a bounded window: a stray '$' must not read the rest of a huge script into memory.
+        String ahead = reader.peek(MAX_DOLLAR_TAG_LENGTH + 2);
+        int tagEnd = ahead == null ? -1 : ahead.indexOf('$', 1);
+
+        if (tagEnd < 0 || !isDollarTag(ahead.substring(1, tagEnd))) {
+            reader.swallow();
+
+            return new Token(TokenType.SYMBOL, pos, line, col, "$", "$", ctx.getParensDepth());
+        }
+
+        String dollarQuote = ahead.substring(0, tagEnd + 1);
+
+        reader.swallow(dollarQuote.length());
         reader.swallowUntilExcluding(dollarQuote);
         reader.swallow(dollarQuote.length());
         return new Token(TokenType.STRING, pos, line, col, null, null, ctx.getParensDepth());
     }
 
+    /**
+     * Returns {@code true} if the text between two dollar signs is a valid dollar quote tag: empty or an identifier.
+     *
+     * @param tag Tag.
+     */
+    private static boolean isDollarTag(String tag) {
+        for (int i = 0; i < tag.length(); i++) {
+            char c = tag.charAt(i);
+
+            if (!(Character.isLetter(c) || c == '_' || i > 0 && Character.isDigit(c))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
     @Override
     protected Boolean detectCanExecuteInTransaction(String simplifiedStatement, List<Token> keywords) {
+        // COPY is executed by the JDBC driver in its own bulk load requests.
+        if (!keywords.isEmpty() && "COPY".equalsIgnoreCase(keywords.get(0).getText())) {
+            return false;
+        }
+
         return keywords.stream().noneMatch(token -> token.getType().equals(TokenType.KEYWORD) && DDL_KEYWORDS.contains(token.getText()));
     }
 }
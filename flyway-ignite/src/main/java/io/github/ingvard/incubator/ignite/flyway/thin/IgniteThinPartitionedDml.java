@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinChunkedDml.Word;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.apache.ignite.cache.query.FieldsQueryCursor;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.apache.ignite.client.IgniteClient;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Executes an {@code UPDATE}, {@code DELETE} or {@code INSERT/MERGE ... SELECT} statement partition by partition
+ * through the thin client: every partition of the table the statement reads is processed by its own
+ * {@link SqlFieldsQuery#setPartitions(int...)} query, up to the configured number of queries run concurrently.
+ * The statement must read a single partitioned table or tables collocated with it.
+ */
+class IgniteThinPartitionedDml {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinPartitionedDml.class);
+
+    /**
+     * Hint that marks a statement to be executed partition by partition.
+     */
+    static final String HINT = "partitioned";
+
+    /**
+     * Progress log interval in milliseconds.
+     */
+    private static final long LOG_INTERVAL = 10_000;
+
+    /**
+     * The number of partitions of a partitioned table.
+     */
+    private static final String PARTITIONS_QRY = "SELECT MAX(P.PARTITION_ID) + 1 FROM SYS.PARTITION_STATES P "
+            + "JOIN SYS.TABLES T ON P.CACHE_GROUP_ID = T.CACHE_GROUP_ID "
+            + "JOIN SYS.CACHES C ON C.CACHE_NAME = T.CACHE_NAME "
+            + "WHERE T.SCHEMA_NAME = ? AND T.TABLE_NAME = ? AND C.CACHE_MODE = 'PARTITIONED'";
+
+    /**
+     * Jdbc template.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Thin client supplier.
+     */
+    private final Supplier<IgniteClient> client;
+
+    /**
+     * The number of partitions processed concurrently.
+     */
+    private final int parallelism;
+
+    /**
+     * Default constructor.
+     *
+     * @param jdbcTemplate Jdbc template.
+     * @param client       Thin client supplier.
+     * @param parallelism  The number of partitions processed concurrently.
+     */
+    IgniteThinPartitionedDml(JdbcTemplate jdbcTemplate, Supplier<IgniteClient> client, int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.client = client;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Gets the number of partitions of the table the statement reads.
+     *
+     * @param sql    Statement.
+     * @param schema Schema of an unqualified table.
+     * @return The number of partitions or {@code 0} if the statement can't be executed partition by partition.
+     * @throws SQLException If the partitions couldn't be read.
+     */
+    int partitions(String sql, String schema) throws SQLException {
+        String tbl = sourceTable(sql);
+
+        if (tbl == null) {
+            return 0;
+        }
+
+        List<String> name = IgniteThinChunkedDml.splitName(tbl);
+        String parts = jdbcTemplate.queryForString(PARTITIONS_QRY, name.size() > 1 ? name.get(0) : schema,
+                name.get(name.size() - 1));
+
+        return parts == null ? 0 : Integer.parseInt(parts);
+    }
+
+    /**
+     * Executes the statement partition by partition.
+     *
+     * @param sql    Statement.
+     * @param schema Schema the statement is executed in.
+     * @param parts  The number of partitions.
+     * @param desc   Statement description for logging.
+     * @return The number of affected rows.
+     * @throws SQLException If a partition failed.
+     */
+    long execute(String sql, String schema, int parts, String desc) throws SQLException {
+        IgniteClient thinClient = client.get();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, parts));
+        CompletionService<Long> completion = new ExecutorCompletionService<>(pool);
+        List<Future<Long>> futs = new ArrayList<>(parts);
+
+        long start = System.currentTimeMillis();
+        long lastLog = start;
+        long rows = 0;
+
+        try {
+            for (int p = 0; p < parts; p++) {
+                SqlFieldsQuery qry = new SqlFieldsQuery(sql).setSchema(schema).setPartitions(p);
+
+                futs.add(completion.submit(() -> {
+                    try (FieldsQueryCursor<List<?>> cur = thinClient.query(qry)) {
+                        List<List<?>> res = cur.getAll();
+
+                        return res.isEmpty() || !(res.get(0).get(0) instanceof Number) ? 0L : ((Number) res.get(0).get(0)).longValue();
+                    }
+                }));
+            }
+
+            for (int done = 1; done <= parts; done++) {
+                rows += completion.take().get();
+
+                long now = System.currentTimeMillis();
+
+                if (now - lastLog >= LOG_INTERVAL) {
+                    LOG.info("Executing " + desc + " by partitions: " + done + " of " + parts + " partitions, " + rows + " rows, "
+                            + (now - start) + " ms");
+
+                    lastLog = now;
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new SQLException("Unable to execute " + desc + " on a partition: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new FlywayException("Interrupted while executing " + desc + " by partitions", e);
+        } finally {
+            futs.forEach(fut -> fut.cancel(true));
+            pool.shutdownNow();
+        }
+
+        LOG.info("Executed " + desc + " on " + parts + " partitions over " + Math.min(parallelism, parts) + " threads: " + rows
+                + " rows in " + (System.currentTimeMillis() - start) + " ms");
+
+        return rows;
+    }
+
+    /**
+     * Gets the table the statement reads: the target of {@code UPDATE} and {@code DELETE}, the first table after the
+     * top level {@code FROM} of {@code INSERT/MERGE ... SELECT}.
+     *
+     * @param sql Statement.
+     * @return Table as written in the statement or {@code null} if the statement is not supported.
+     */
+    private static String sourceTable(String sql) {
+        List<Word> words = IgniteThinChunkedDml.words(sql);
+
+        if (words.size() < 3) {
+            return null;
+        }
+
+        String first = words.get(0).text();
+
+        if ("UPDATE".equals(first)) {
+            return words.get(1).original(sql);
+        }
+
+        if ("DELETE".equals(first) && "FROM".equals(words.get(1).text())) {
+            return words.get(2).original(sql);
+        }
+
+        if (!"INSERT".equals(first) && !"MERGE".equals(first)) {
+            return null;
+        }
+
+        boolean select = false;
+
+        for (int i = 1; i + 1 < words.size(); i++) {
+            if ("SELECT".equals(words.get(i).text())) {
+                select = true;
+            } else if (select && "FROM".equals(words.get(i).text())) {
+                return words.get(i + 1).original(sql);
+            }
+        }
+
+        return null;
+    }
+}
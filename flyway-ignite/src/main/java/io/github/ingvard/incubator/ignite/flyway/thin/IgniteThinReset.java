@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.database.base.Database;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.license.VersionPrinter;
+
+/**
+ * Fast alternative of clean followed by migrate for test suites: rows of all tables of the configured schemas are
+ * removed, while the tables, indexes and caches are kept, so no cache is destroyed or created. Schema history rows
+ * above {@link io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension#getResetVersion()} are removed,
+ * so the next migrate applies those migrations again, they should be data migrations or rerunnable DDL.
+ */
+public class IgniteThinReset {
+    /**
+     * Resets the schemas of the configuration. Reset removes data as clean does, so it is refused unless clean is
+     * enabled.
+     *
+     * @param cfg Flyway configuration.
+     * @throws FlywayException If clean is disabled or the database isn't Apache Ignite.
+     */
+    public static IgniteThinResetResult reset(Configuration cfg) {
+        if (cfg.isCleanDisabled()) {
+            throw new FlywayException("Unable to execute reset as it has been disabled with the 'flyway.cleanDisabled' "
+                    + "property, reset removes data as clean does.");
+        }
+
+        JdbcConnectionFactory connFactory = new JdbcConnectionFactory(cfg.getDataSource(), cfg, null);
+        Database<?> database = connFactory.getDatabaseType().createDatabase(cfg, false, connFactory, null);
+
+        if (!(database instanceof IgniteThinDatabase)) {
+            database.close();
+
+            throw new FlywayException("Reset is supported by Apache Ignite only: " + connFactory.getDatabaseType());
+        }
+
+        IgniteThinDatabase db = (IgniteThinDatabase) database;
+
+        try {
+            return reset(db, cfg);
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to reset schemas", e);
+        } finally {
+            db.close();
+        }
+    }
+
+    /**
+     * Resets the schemas under the schema history lock.
+     *
+     * @param db  Database.
+     * @param cfg Flyway configuration.
+     * @throws SQLException If failed.
+     */
+    private static IgniteThinResetResult reset(IgniteThinDatabase db, Configuration cfg) throws SQLException {
+        IgniteThinConnection conn = db.getMainConnection();
+
+        List<IgniteThinSchema> schemas = new ArrayList<>();
+
+        for (String schemaName : cfg.getSchemas()) {
+            schemas.add((IgniteThinSchema) conn.getSchema(schemaName));
+        }
+
+        if (schemas.isEmpty()) {
+            schemas.add((IgniteThinSchema) conn.getCurrentSchema());
+        }
+
+        String histSchema = cfg.getDefaultSchema() != null ? cfg.getDefaultSchema() : schemas.get(0).getName();
+
+        IgniteThinTable hist = (IgniteThinTable) conn.getSchema(histSchema).getTable(cfg.getTable());
+
+        boolean histExists = hist.exists();
+
+        IgniteThinResetResult res = new IgniteThinResetResult();
+
+        res.flywayVersion = VersionPrinter.getVersion();
+        res.database = db.getCatalog();
+        res.operation = "reset";
+
+        if (histExists) {
+            hist.lock();
+        }
+
+        try {
+            for (IgniteThinSchema schema : schemas) {
+                res.tablesCleared += schema.clearTables(hist);
+            }
+
+            MigrationVersion ver = db.getPluginConfiguration().getResetVersion();
+
+            if (histExists && ver != null) {
+                res.migrationsRemoved = hist.removeMigrationsAbove(ver);
+            }
+        } finally {
+            if (histExists) {
+                hist.unlock();
+            }
+        }
+
+        return res;
+    }
+}
@@ -32,15 +32,26 @@
 
 package io.github.ingvard.incubator.ignite.flyway.thin;
 
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.CleanStrategy;
+import io.github.ingvard.incubator.ignite.flyway.compute.DestroyCachesTask;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinSchemaMetadata.Kind;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.apache.ignite.client.IgniteClient;
+import org.flywaydb.core.api.FlywayException;
 import org.flywaydb.core.api.logging.Log;
 import org.flywaydb.core.api.logging.LogFactory;
 import org.flywaydb.core.internal.database.base.Schema;
 import org.flywaydb.core.internal.database.base.Table;
 import org.flywaydb.core.internal.jdbc.JdbcTemplate;
-import org.flywaydb.core.internal.util.StringUtils;
 
 /**
  * Apache Ignite implementation of Schema.
@@ -51,15 +62,23 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
      */
     private static final Log LOG = LogFactory.getLog(IgniteThinSchema.class);
 
+    /**
+     * Connection the schema belongs to, it caches the schema metadata.
+     */
+    private final IgniteThinConnection conn;
+
     /**
      * Creates a new Ignite schema.
      *
      * @param jdbcTemplate The Jdbc Template for communicating with the DB.
      * @param db           The database-specific support.
+     * @param conn         The connection the schema belongs to.
      * @param name         The name of the schema.
      */
-    IgniteThinSchema(JdbcTemplate jdbcTemplate, IgniteThinDatabase db, String name) {
+    IgniteThinSchema(JdbcTemplate jdbcTemplate, IgniteThinDatabase db, IgniteThinConnection conn, String name) {
         super(jdbcTemplate, db, name);
+
+        this.conn = conn;
     }
 
     /**
@@ -67,15 +86,22 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
      */
     @Override
     protected boolean doExists() throws SQLException {
-        return jdbcTemplate.queryForInt("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SCHEMATA WHERE SCHEMA_NAME=?", name) > 0;
+        return conn.getSchemaMetadata(name).exists();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    protected boolean doEmpty() {
-        return allTables().length == 0;
+    protected boolean doEmpty() throws SQLException {
+        IgniteThinSchemaMetadata meta = conn.getCachedSchemaMetadata(name);
+
+        if (meta != null) {
+            return meta.names(Kind.TABLE).isEmpty();
+        }
+
+        return jdbcTemplate.queryForStringList("SELECT TABLE_NAME FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = ? "
+                + "AND TABLE_TYPE = 'TABLE' AND TABLE_NAME != '__T0' LIMIT 1", name).isEmpty();
     }
 
     /**
@@ -83,7 +109,11 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
      */
     @Override
     protected void doCreate() throws SQLException {
-        jdbcTemplate.execute("CREATE SCHEMA " + database.quote(name)); //Unsupported now by Ignite
+        try {
+            jdbcTemplate.execute("CREATE SCHEMA " + database.quote(name)); //Unsupported now by Ignite
+        } finally {
+            database.invalidateMetadata();
+        }
     }
 
     /**
@@ -91,7 +121,11 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
      */
     @Override
     protected void doDrop() throws SQLException {
-        jdbcTemplate.execute("DROP SCHEMA " + database.quote(name));  //Unsupported now by Ignite
+        try {
+            jdbcTemplate.execute("DROP SCHEMA " + database.quote(name));  //Unsupported now by Ignite
+        } finally {
+            database.invalidateMetadata();
+        }
     }
 
     /**
@@ -99,21 +133,54 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
      */
     @Override
     protected void doClean() throws SQLException {
-        for (Table table : allTables()) {
-            table.drop();
+        try {
+            cleanObjects();
+        } finally {
+            database.invalidateMetadata();
+        }
+    }
+
+    /**
+     * Drops all objects of the schema.
+     *
+     * @throws SQLException If failed.
+     */
+    private void cleanObjects() throws SQLException {
+        long start = System.currentTimeMillis();
+
+        // Table drops invalidate the cached metadata, the names of the other objects are taken from the same snapshot.
+        IgniteThinSchemaMetadata meta = conn.getSchemaMetadata(name);
+
+        IgniteThinTable[] tbls = allTables();
+
+        List<IgniteThinTable> rest = database.getPluginConfiguration().getCleanStrategy() == CleanStrategy.CACHE_GROUP
+                ? destroyCacheGroups(tbls)
+                : Arrays.asList(tbls);
+
+        int parallelism = Math.min(database.getPluginConfiguration().getCleanParallelism(), rest.size());
+
+        if (parallelism > 1) {
+            dropTables(rest, parallelism);
+        } else {
+            for (Table table : rest) {
+                table.drop();
+            }
         }
 
-        List<String> seqNames = listObjectNames("SEQUENCE", "IS_GENERATED = false");
+        LOG.info("Dropped " + tbls.length + " tables of schema " + database.quote(name) + " in "
+                + (System.currentTimeMillis() - start) + " ms (parallelism: " + Math.max(parallelism, 1) + ")");
+
+        List<String> seqNames = meta.names(Kind.SEQUENCE);
         for (String statement : generateDropStatements("SEQUENCE", seqNames)) {
             jdbcTemplate.execute(statement);
         }
 
-        List<String> constantNames = listObjectNames("CONSTANT", "");
+        List<String> constantNames = meta.names(Kind.CONSTANT);
         for (String statement : generateDropStatements("CONSTANT", constantNames)) {
             jdbcTemplate.execute(statement);
         }
 
-        List<String> domainNames = listObjectNames("DOMAIN", "");
+        List<String> domainNames = meta.names(Kind.DOMAIN);
         if (!domainNames.isEmpty()) {
             if (name.equals(database.getMainConnection().getCurrentSchema().getName())) {
                 for (String statement : generateDropStatementsForCurrentSchema("DOMAIN", domainNames)) {
@@ -125,6 +192,177 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
         }
     }
 
+    /**
+     * Removes all rows of the schema tables, the tables, indexes and other objects are kept. Caches are cleared through
+     * the thin client concurrently, if it isn't possible the rows are deleted by {@code DELETE} statements over
+     * {@link IgniteConfigurationExtension#getCleanParallelism()} connections.
+     *
+     * @param excluded Table to keep the rows of, for example the schema history table, or {@code null}.
+     * @return The number of cleared tables.
+     * @throws SQLException If failed.
+     */
+    public int clearTables(Table excluded) throws SQLException {
+        long start = System.currentTimeMillis();
+
+        List<IgniteThinTable> tbls = new ArrayList<>();
+
+        for (IgniteThinTable tbl : allTables()) {
+            if (excluded == null || !name.equals(excluded.getSchema().getName()) || !tbl.getName().equals(excluded.getName())) {
+                tbls.add(tbl);
+            }
+        }
+
+        try {
+            clearCaches(tbls);
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("Unable to clear caches of schema " + database.quote(name) + ", falling back to deleting rows: "
+                    + e.getMessage());
+
+            deleteRows(tbls);
+        }
+
+        LOG.info("Cleared " + tbls.size() + " tables of schema " + database.quote(name) + " in "
+                + (System.currentTimeMillis() - start) + " ms");
+
+        return tbls.size();
+    }
+
+    /**
+     * Clears caches of the tables by the thin client, all caches are cleared concurrently.
+     *
+     * @param tbls Tables.
+     * @throws SQLException If cache names couldn't be read.
+     */
+    private void clearCaches(List<IgniteThinTable> tbls) throws SQLException {
+        IgniteClient client = database.getThinClient();
+
+        List<Future<Void>> futs = new ArrayList<>(tbls.size());
+
+        for (IgniteThinTable tbl : tbls) {
+            futs.add(client.cache(tbl.getCacheName()).clearAsync());
+        }
+
+        for (Future<Void> fut : futs) {
+            try {
+                fut.get();
+            } catch (ExecutionException e) {
+                throw new FlywayException("Unable to clear cache: " + e.getCause().getMessage(), e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new FlywayException("Interrupted while clearing caches", e);
+            }
+        }
+    }
+
+    /**
+     * Deletes rows of the tables by SQL.
+     *
+     * @param tbls Tables.
+     * @throws SQLException If failed.
+     */
+    private void deleteRows(List<IgniteThinTable> tbls) throws SQLException {
+        List<String> stmts = new ArrayList<>(tbls.size());
+
+        for (IgniteThinTable tbl : tbls) {
+            stmts.add("DELETE FROM " + tbl);
+        }
+
+        int parallelism = Math.min(database.getPluginConfiguration().getCleanParallelism(), stmts.size());
+
+        if (parallelism > 1) {
+            try (IgniteThinStatementPool pool = new IgniteThinStatementPool(database, parallelism)) {
+                pool.executeAll(stmts);
+            }
+        } else {
+            for (String stmt : stmts) {
+                jdbcTemplate.execute(stmt);
+            }
+        }
+    }
+
+    /**
+     * Destroys caches of the tables that share a cache group by one {@link DestroyCachesTask} per group, so a group is
+     * torn down by a single exchange instead of one exchange per table. The task is started by the thin client, if it
+     * isn't available on the cluster, the tables are left to be dropped one by one.
+     *
+     * @param tbls Tables.
+     * @return Tables that are left to be dropped.
+     * @throws SQLException If cache groups couldn't be read.
+     */
+    private List<IgniteThinTable> destroyCacheGroups(IgniteThinTable[] tbls) throws SQLException {
+        if (!database.getBootstrap().hasSysView("TABLES")) {
+            LOG.warn("SYS.TABLES view is not available, cache groups of schema " + database.quote(name) + " are unknown");
+
+            return new ArrayList<>(Arrays.asList(tbls));
+        }
+
+        Map<String, IgniteThinTable> byName = new HashMap<>();
+
+        for (IgniteThinTable tbl : tbls) {
+            byName.put(tbl.getName(), tbl);
+        }
+
+        Map<String, Map<String, IgniteThinTable>> groups = new LinkedHashMap<>();
+
+        for (Map<String, String> row : jdbcTemplate.queryForList(
+                "SELECT TABLE_NAME, CACHE_NAME, CACHE_GROUP_NAME FROM SYS.TABLES WHERE SCHEMA_NAME = ?", name)) {
+            IgniteThinTable tbl = byName.get(row.get("TABLE_NAME"));
+
+            if (tbl != null && row.get("CACHE_GROUP_NAME") != null) {
+                groups.computeIfAbsent(row.get("CACHE_GROUP_NAME"), g -> new LinkedHashMap<>()).put(row.get("CACHE_NAME"), tbl);
+            }
+        }
+
+        for (Map.Entry<String, Map<String, IgniteThinTable>> grp : groups.entrySet()) {
+            Map<String, IgniteThinTable> caches = grp.getValue();
+
+            // A table without an explicit group forms a group of its own, the regular drop is as good for it.
+            if (caches.size() < 2) {
+                continue;
+            }
+
+            try {
+                database.getThinClient().compute().execute(DestroyCachesTask.class.getName(), new ArrayList<>(caches.keySet()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new FlywayException("Interrupted while destroying cache group " + grp.getKey(), e);
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to destroy cache group " + grp.getKey() + " by a compute task, falling back to dropping "
+                        + "tables one by one: " + e.getMessage());
+
+                break;
+            }
+
+            LOG.info("Destroyed cache group " + grp.getKey() + " with " + caches.size() + " tables");
+
+            byName.values().removeAll(caches.values());
+        }
+
+        return new ArrayList<>(byName.values());
+    }
+
+    /**
+     * Drops the tables over several connections, every drop destroys a cache and triggers a partition map exchange, so
+     * independent drops are sent concurrently.
+     *
+     * @param tbls        Tables.
+     * @param parallelism The number of connections.
+     * @throws SQLException If any drop has failed.
+     */
+    private void dropTables(List<IgniteThinTable> tbls, int parallelism) throws SQLException {
+        List<String> stmts = new ArrayList<>(tbls.size());
+
+        for (IgniteThinTable tbl : tbls) {
+            stmts.add(tbl.getDropStatement());
+        }
+
+        try (IgniteThinStatementPool pool = new IgniteThinStatementPool(database, parallelism)) {
+            pool.executeAll(stmts);
+        }
+    }
+
     /**
      * Generate the statements for dropping all the objects of this type in this schema.
      *
@@ -170,7 +408,7 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
      */
     @Override
     protected IgniteThinTable[] doAllTables() throws SQLException {
-        List<String> tblNames = listObjectNames("TABLE", "TABLE_TYPE = 'TABLE' AND TABLE_NAME !='__T0'");
+        List<String> tblNames = conn.getSchemaMetadata(name).names(Kind.TABLE);
 
         IgniteThinTable[] tbls = new IgniteThinTable[tblNames.size()];
 
@@ -181,29 +419,15 @@ public class IgniteThinSchema extends Schema<IgniteThinDatabase, IgniteThinTable
         return tbls;
     }
 
-    /**
-     * List the names of the objects of this type in this schema.
-     *
-     * @param objType   The type of objects to list (Sequence, constant, ...)
-     * @param qrySuffix Suffix to append to the query to find the objects to list.
-     * @return The names of the objects.
-     * @throws SQLException when the object names could not be listed.
-     */
-    private List<String> listObjectNames(String objType, String qrySuffix) throws SQLException {
-        String qry = "SELECT " + objType + "_NAME FROM INFORMATION_SCHEMA." + objType
-                + "S WHERE " + objType + "_SCHEMA = ?";
-        if (StringUtils.hasLength(qrySuffix)) {
-            qry += " AND " + qrySuffix;
-        }
-
-        return jdbcTemplate.queryForStringList(qry, name);
-    }
-
     /**
      * {@inheritDoc}
      */
     @Override
     public Table getTable(String tblName) {
-        return new IgniteThinTable(jdbcTemplate, database, this, tblName);
+        IgniteThinTable tbl = new IgniteThinTable(jdbcTemplate, database, this, tblName);
+
+        database.registerHistoryTable(tbl);
+
+        return tbl;
     }
 }
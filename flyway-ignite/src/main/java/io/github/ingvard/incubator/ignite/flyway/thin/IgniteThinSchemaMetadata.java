@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Names of schema objects loaded by a single query. It is cached by {@link IgniteThinConnection} and invalidated when
+ * the plugin runs DDL, see {@link IgniteThinDatabase#invalidateMetadata()}.
+ */
+class IgniteThinSchemaMetadata {
+    /**
+     * Schema object kind.
+     */
+    enum Kind {
+        /**
+         * Schema itself.
+         */
+        SCHEMA,
+
+        /**
+         * Table.
+         */
+        TABLE,
+
+        /**
+         * Sequence.
+         */
+        SEQUENCE,
+
+        /**
+         * Constant.
+         */
+        CONSTANT,
+
+        /**
+         * Domain.
+         */
+        DOMAIN
+    }
+
+    /**
+     * Query of all object names of a schema, the schema name is bound to every part.
+     */
+    private static final String QUERY = "SELECT 'SCHEMA' AS KIND, SCHEMA_NAME AS NAME FROM INFORMATION_SCHEMA.SCHEMATA "
+            + "WHERE SCHEMA_NAME = ? "
+            + "UNION ALL SELECT 'TABLE', TABLE_NAME FROM INFORMATION_SCHEMA.TABLES "
+            + "WHERE TABLE_SCHEMA = ? AND TABLE_TYPE = 'TABLE' AND TABLE_NAME != '__T0' "
+            + "UNION ALL SELECT 'SEQUENCE', SEQUENCE_NAME FROM INFORMATION_SCHEMA.SEQUENCES "
+            + "WHERE SEQUENCE_SCHEMA = ? AND IS_GENERATED = false "
+            + "UNION ALL SELECT 'CONSTANT', CONSTANT_NAME FROM INFORMATION_SCHEMA.CONSTANTS WHERE CONSTANT_SCHEMA = ? "
+            + "UNION ALL SELECT 'DOMAIN', DOMAIN_NAME FROM INFORMATION_SCHEMA.DOMAINS WHERE DOMAIN_SCHEMA = ?";
+
+    /**
+     * Object names by kind.
+     */
+    private final Map<Kind, List<String>> names;
+
+    /**
+     * Default constructor.
+     *
+     * @param names Object names by kind.
+     */
+    private IgniteThinSchemaMetadata(Map<Kind, List<String>> names) {
+        this.names = names;
+    }
+
+    /**
+     * Loads metadata of a schema.
+     *
+     * @param jdbcTemplate Jdbc template.
+     * @param schema       Schema name.
+     * @throws SQLException If failed.
+     */
+    static IgniteThinSchemaMetadata load(JdbcTemplate jdbcTemplate, String schema) throws SQLException {
+        Map<Kind, List<String>> names = new HashMap<>();
+
+        for (Map<String, String> row : jdbcTemplate.queryForList(QUERY, schema, schema, schema, schema, schema)) {
+            names.computeIfAbsent(Kind.valueOf(row.get("KIND")), k -> new ArrayList<>()).add(row.get("NAME"));
+        }
+
+        return new IgniteThinSchemaMetadata(names);
+    }
+
+    /**
+     * Returns {@code true} if the schema exists.
+     */
+    boolean exists() {
+        return names.containsKey(Kind.SCHEMA);
+    }
+
+    /**
+     * Gets names of objects of the kind.
+     *
+     * @param kind Object kind.
+     */
+    List<String> names(Kind kind) {
+        return names.getOrDefault(kind, Collections.emptyList());
+    }
+}
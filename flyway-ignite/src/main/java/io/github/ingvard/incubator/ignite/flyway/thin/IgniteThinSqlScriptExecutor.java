@@ -0,0 +1,1177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.compute.CreateTablesTask;
+import io.github.ingvard.incubator.ignite.flyway.compute.TableDefinition;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import org.apache.ignite.client.IgniteClient;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.database.DatabaseType;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.jdbc.StatementInterceptor;
+import org.flywaydb.core.internal.sqlscript.FlywaySqlScriptException;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+
+/**
+ * Executes SQL migrations with optimizations for data and schema migrations:
+ * <ul>
+ *     <li>consecutive DML statements are sent as JDBC batches of {@link IgniteConfigurationExtension#getBatchSize()}
+ *     statements, a failed batch is reported with the statement that has failed;</li>
+ *     <li>a run of at least {@link IgniteConfigurationExtension#getStreamingThreshold()} {@code INSERT} statements into
+ *     one table is sent in the JDBC streaming mode, {@code SET STREAMING ON/OFF} statements of the script itself are
+ *     honoured as well;</li>
+ *     <li>a run of consecutive DDL statements is executed over {@link IgniteConfigurationExtension#getDdlParallelism()}
+ *     connections: statements on different tables run concurrently, statements on the same table keep their order,
+ *     a statement on an unknown table is executed alone;</li>
+ *     <li>if {@link IgniteConfigurationExtension#isDdlCoalesceCreateTables()} is set, a run of consecutive
+ *     {@code CREATE TABLE} statements is executed by one {@link CreateTablesTask}, so their caches are started by one
+ *     partition map exchange.</li>
+ * </ul>
+ * {@code COPY FROM 'file'} statements are executed with a relative file resolved next to the migration script, the
+ * loaded bytes and rows are reported. If a script has no {@code COPY} statements and all optimizations are disabled,
+ * it is executed by the default Flyway executor. Either way the executor fails before the next statement as soon as
+ * the lease of the lock is lost.
+ * <p>
+ * Depending on {@link IgniteConfigurationExtension#getPacingMode()}, the executor waits for the cluster to settle by
+ * {@link IgniteThinPacer} after the script or after every DDL statement. If
+ * {@link IgniteConfigurationExtension#isIndexPlan()} is set, {@code CREATE INDEX} statements are planned by
+ * {@link IgniteThinIndexPlanner}. {@code UPDATE} and {@code DELETE} statements with the {@code ignite:chunked} hint are
+ * executed by {@link IgniteThinChunkedDml}, which records their progress if
+ * {@link IgniteConfigurationExtension#isCheckpointEnabled()} is set. DML statements with the {@code ignite:partitioned}
+ * hint are executed partition by partition by {@link IgniteThinPartitionedDml}.
+ */
+class IgniteThinSqlScriptExecutor implements SqlScriptExecutor {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinSqlScriptExecutor.class);
+
+    /**
+     * {@code ALLOW_OVERWRITE ON} streaming option.
+     */
+    private static final Pattern ALLOW_OVERWRITE = Pattern.compile("\\bALLOW_OVERWRITE\\s+ON\\b", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Jdbc template of the migration connection.
+     */
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Default Flyway executor.
+     */
+    private final SqlScriptExecutor dflt;
+
+    /**
+     * Factory of connections independent of the migration connection.
+     */
+    private final Supplier<Connection> connFactory;
+
+    /**
+     * Database type.
+     */
+    private final DatabaseType dbType;
+
+    /**
+     * JDBC url of the migration connection.
+     */
+    private final String jdbcUrl;
+
+    /**
+     * Statement interceptor or {@code null}.
+     */
+    private final StatementInterceptor statementInterceptor;
+
+    /**
+     * Default constructor.
+     *
+     * @param jdbcTemplate         Jdbc template of the migration connection.
+     * @param dflt                 Default Flyway executor.
+     * @param connFactory          Factory of connections independent of the migration connection.
+     * @param dbType               Database type.
+     * @param jdbcUrl              JDBC url of the migration connection.
+     * @param statementInterceptor Statement interceptor or {@code null}.
+     */
+    IgniteThinSqlScriptExecutor(JdbcTemplate jdbcTemplate, SqlScriptExecutor dflt, Supplier<Connection> connFactory,
+                                DatabaseType dbType, String jdbcUrl, StatementInterceptor statementInterceptor) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dflt = dflt;
+        this.connFactory = connFactory;
+        this.dbType = dbType;
+        this.jdbcUrl = jdbcUrl;
+        this.statementInterceptor = statementInterceptor;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void execute(SqlScript sqlScript, Configuration config) {
+        IgniteConfigurationExtension pluginCfg = config == null
+                ? new IgniteConfigurationExtension()
+                : IgniteConfigurationExtension.of(config);
+
+        IgniteThinDatabase.checkLockNotSkipped(config);
+
+        IgniteThinPacer pacer = new IgniteThinPacer(jdbcTemplate, pluginCfg);
+
+        if (pluginCfg.getBatchSize() <= 1 && pluginCfg.getStreamingThreshold() <= 0 && pluginCfg.getDdlParallelism() <= 1
+                && !pluginCfg.isDdlCoalesceCreateTables() && !pacer.pacesStatements()
+                && !pluginCfg.isIndexPlan() && !hasPluginStatements(sqlScript)) {
+            try {
+                // Only the lease check is added to the default execution.
+                dflt.execute(pluginCfg.getLockLeaseTime() > 0 ? new IgniteThinLeaseCheckedSqlScript(sqlScript, config) : sqlScript,
+                        config);
+            } finally {
+                // The default executor runs the statements over a plain template of the migration connection.
+                IgniteThinDatabase.invalidateMetadata(config);
+            }
+        } else {
+            ClassLoader clsLdr = config == null ? Thread.currentThread().getContextClassLoader() : config.getClassLoader();
+
+            ScriptExecution exec = new ScriptExecution(sqlScript, config, pluginCfg, clsLdr, pacer);
+
+            if (statementInterceptor != null) {
+                statementInterceptor.sqlScript(sqlScript);
+            }
+
+            try (SqlStatementIterator it = sqlScript.getSqlStatements()) {
+                while (it.hasNext()) {
+                    exec.accept(it.next());
+                }
+
+                exec.finish();
+            } finally {
+                exec.abort();
+            }
+        }
+
+        pacer.afterScript(sqlScript.getResource().getFilename());
+    }
+
+    /**
+     * Returns {@code true} if a line of the script starts with {@code COPY} or has the {@code ignite:chunked} or
+     * {@code ignite:partitioned} hint, the check is cheap and may give false positives, for example in comments.
+     *
+     * @param sqlScript Script.
+     */
+    private static boolean hasPluginStatements(SqlScript sqlScript) {
+        try (BufferedReader reader = new BufferedReader(sqlScript.getResource().read())) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+
+                if (trimmed.regionMatches(true, 0, "COPY", 0, 4)
+                        && (trimmed.length() == 4 || !Character.isLetterOrDigit(trimmed.charAt(4)))) {
+                    return true;
+                }
+
+                if (IgniteThinStatementType.hasHint(trimmed, IgniteThinChunkedDml.HINT)
+                        || IgniteThinStatementType.hasHint(trimmed, IgniteThinPartitionedDml.HINT)) {
+                    return true;
+                }
+            }
+
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read " + sqlScript.getResource().getFilename(), e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the streaming options overwrite existing keys, otherwise the streamer skips them.
+     *
+     * @param options Options of {@code SET STREAMING ON} or {@code null}.
+     */
+    static boolean allowsOverwrite(String options) {
+        return options != null && ALLOW_OVERWRITE.matcher(options).find();
+    }
+
+    /**
+     * Finds the index of the failed statement of a batch: update counts either cover the statements executed before
+     * the failure or mark the failed ones.
+     *
+     * @param e         Batch exception.
+     * @param batchSize Batch size.
+     */
+    static int failedIndex(BatchUpdateException e, int batchSize) {
+        int[] cnts = e.getUpdateCounts();
+
+        if (cnts == null) {
+            return 0;
+        }
+
+        for (int i = 0; i < cnts.length; i++) {
+            if (cnts[i] == Statement.EXECUTE_FAILED) {
+                return Math.min(i, batchSize - 1);
+            }
+        }
+
+        return Math.min(cnts.length, batchSize - 1);
+    }
+
+    /**
+     * State of a single script execution.
+     */
+    private class ScriptExecution {
+        /**
+         * Script.
+         */
+        private final SqlScript sqlScript;
+
+        /**
+         * Batch size.
+         */
+        private final int batchSize;
+
+        /**
+         * The number of INSERT statements into one table that turns streaming on, {@code 0} if disabled.
+         */
+        private final int streamingThreshold;
+
+        /**
+         * Options of {@code SET STREAMING ON}.
+         */
+        private final String streamingOptions;
+
+        /**
+         * Class loader to look up {@code COPY} files of classpath migrations.
+         */
+        private final ClassLoader clsLdr;
+
+        /**
+         * The number of connections a run of DDL statements is executed over, {@code 1} disables parallel DDL.
+         */
+        private final int ddlParallelism;
+
+        /**
+         * Consecutive DDL statements that are held back to be executed in parallel.
+         */
+        private final List<SqlStatement> ddlRun = new ArrayList<>();
+
+        /**
+         * Connections for parallel DDL, they are opened by the first run of independent DDL statements.
+         */
+        private IgniteThinStatementPool ddlPool;
+
+        /**
+         * Flyway configuration or {@code null}.
+         */
+        private final Configuration config;
+
+        /**
+         * Whether runs of {@code CREATE TABLE} statements are executed by one cache start request.
+         */
+        private final boolean coalesceCreateTables;
+
+        /**
+         * Consecutive {@code CREATE TABLE} statements that are held back to be executed together.
+         */
+        private final List<SqlStatement> createRun = new ArrayList<>();
+
+        /**
+         * Parsed {@link #createRun} statements.
+         */
+        private final List<IgniteThinCreateTable.Parsed> createDefs = new ArrayList<>();
+
+        /**
+         * Pacer to wait for the cluster to settle after DDL statements.
+         */
+        private final IgniteThinPacer pacer;
+
+        /**
+         * Planner of {@code CREATE INDEX} statements or {@code null}.
+         */
+        private final IgniteThinIndexPlanner indexPlanner;
+
+        /**
+         * Executor of statements with the {@code ignite:chunked} hint.
+         */
+        private final IgniteThinChunkedDml chunkedDml;
+
+        /**
+         * Executor of statements with the {@code ignite:partitioned} hint.
+         */
+        private final IgniteThinPartitionedDml partitionedDml;
+
+        /**
+         * Thin client started by the execution if there is no open database to share one, it is started on first use.
+         */
+        private IgniteClient thinClient;
+
+        /**
+         * Collected batch.
+         */
+        private final List<SqlStatement> batch = new ArrayList<>();
+
+        /**
+         * INSERT statements into {@link #runTbl} that are held back until it is known whether the run is long enough
+         * to be streamed.
+         */
+        private final List<SqlStatement> run = new ArrayList<>();
+
+        /**
+         * Target table of {@link #run}.
+         */
+        private String runTbl;
+
+        /**
+         * Table streaming was turned on for by this executor or {@code null}.
+         */
+        private String streamTbl;
+
+        /**
+         * {@code True} if streaming was turned on by the script itself.
+         */
+        private boolean scriptStreaming;
+
+        /**
+         * The number of statements streamed since streaming was turned on.
+         */
+        private long streamed;
+
+        /**
+         * Time streaming was turned on.
+         */
+        private long streamStart;
+
+        /**
+         * Default constructor.
+         *
+         * @param sqlScript Script.
+         * @param config    Flyway configuration or {@code null}.
+         * @param pluginCfg Plugin configuration.
+         * @param clsLdr    Class loader to look up {@code COPY} files of classpath migrations.
+         * @param pacer     Pacer to wait for the cluster to settle after DDL statements.
+         */
+        ScriptExecution(SqlScript sqlScript, Configuration config, IgniteConfigurationExtension pluginCfg, ClassLoader clsLdr,
+                        IgniteThinPacer pacer) {
+            this.sqlScript = sqlScript;
+            this.config = config;
+            this.clsLdr = clsLdr;
+            this.pacer = pacer;
+
+            batchSize = pluginCfg.getBatchSize();
+            streamingThreshold = pluginCfg.getStreamingThreshold();
+            streamingOptions = pluginCfg.getStreamingOptions();
+            ddlParallelism = Math.max(1, pluginCfg.getDdlParallelism());
+            coalesceCreateTables = config != null && pluginCfg.isDdlCoalesceCreateTables();
+            chunkedDml = new IgniteThinChunkedDml(jdbcTemplate, pluginCfg.getChunkSize(), pluginCfg.getChunkPause(),
+                    config != null && pluginCfg.isCheckpointEnabled() ? config : null);
+            partitionedDml = new IgniteThinPartitionedDml(jdbcTemplate, this::thinClient, pluginCfg.getDmlParallelism());
+            indexPlanner = pluginCfg.isIndexPlan()
+                    ? new IgniteThinIndexPlanner(jdbcTemplate, pluginCfg.getIndexMaxParallelism(), pluginCfg.getIndexMaxInlineSize())
+                    : null;
+        }
+
+        /**
+         * Executes or holds back the next statement of the script.
+         *
+         * @param stmt Statement.
+         */
+        void accept(SqlStatement stmt) {
+            String sql = stmt.getSql();
+
+            // Another instance may have taken the lock over, nothing more can be executed safely.
+            IgniteThinDatabase.checkLease(config);
+
+            // Every statement of the script is reported once, whichever way it is executed.
+            if (statementInterceptor != null) {
+                statementInterceptor.sqlStatement(stmt);
+            }
+
+            if (coalesceCreateTables && IgniteThinStatementType.of(sql) == IgniteThinStatementType.DDL) {
+                IgniteThinCreateTable.Parsed parsed = IgniteThinCreateTable.parse(sql, currentSchema());
+
+                if (parsed != null) {
+                    flushDdl();
+                    flushRun();
+                    stopStreaming();
+                    executeBatch();
+
+                    createRun.add(stmt);
+                    createDefs.add(parsed);
+
+                    return;
+                }
+            }
+
+            flushCreates();
+
+            if (ddlParallelism > 1 && IgniteThinStatementType.of(sql) == IgniteThinStatementType.DDL) {
+                flushRun();
+                stopStreaming();
+                executeBatch();
+
+                if (IgniteThinStatementType.ddlTarget(sql) == null) {
+                    flushDdl();
+                    executeStatement(stmt);
+                } else {
+                    ddlRun.add(stmt);
+                }
+
+                return;
+            }
+
+            flushDdl();
+
+            if (IgniteThinStatementType.isStreamingOn(sql) || IgniteThinStatementType.isStreamingOff(sql)) {
+                flushRun();
+                stopStreaming();
+                executeBatch();
+                executeStatement(stmt);
+
+                scriptStreaming = IgniteThinStatementType.isStreamingOn(sql);
+
+                if (scriptStreaming) {
+                    startStats();
+                } else {
+                    logStats("script");
+                }
+
+                return;
+            }
+
+            if (IgniteThinStatementType.of(sql) == IgniteThinStatementType.COPY) {
+                flushRun();
+                stopStreaming();
+                executeBatch();
+                executeCopy(stmt);
+
+                return;
+            }
+
+            IgniteThinStatementType type = IgniteThinStatementType.of(sql);
+
+            if ((type == IgniteThinStatementType.UPDATE || type == IgniteThinStatementType.DELETE)
+                    && IgniteThinStatementType.hasHint(sql, IgniteThinChunkedDml.HINT)) {
+                flushRun();
+                stopStreaming();
+                executeBatch();
+                executeChunked(stmt);
+
+                return;
+            }
+
+            if (type.isBatchable() && config != null && IgniteThinStatementType.hasHint(sql, IgniteThinPartitionedDml.HINT)) {
+                flushRun();
+                stopStreaming();
+                executeBatch();
+                executePartitioned(stmt);
+
+                return;
+            }
+
+            String target = IgniteThinStatementType.insertTarget(sql);
+
+            if (scriptStreaming && target != null) {
+                executeStatement(stmt);
+
+                streamed++;
+
+                return;
+            }
+
+            if (streamingThreshold > 0 && !scriptStreaming && target != null) {
+                if (target.equals(streamTbl)) {
+                    executeStatement(stmt);
+
+                    streamed++;
+
+                    return;
+                }
+
+                stopStreaming();
+
+                if (!target.equals(runTbl)) {
+                    flushRun();
+
+                    runTbl = target;
+                }
+
+                run.add(stmt);
+
+                if (run.size() >= streamingThreshold) {
+                    startStreaming();
+                }
+
+                return;
+            }
+
+            flushRun();
+            stopStreaming();
+
+            submit(stmt);
+        }
+
+        /**
+         * Completes the execution, statements held back are executed and streaming is turned off.
+         */
+        void finish() {
+            flushCreates();
+            flushDdl();
+            flushRun();
+            stopStreaming();
+            executeBatch();
+
+            if (scriptStreaming) {
+                LOG.warn("Streaming was left on by " + sqlScript.getResource().getFilename() + ", turning it off");
+
+                turnStreamingOff();
+                logStats("script");
+            }
+
+            try {
+                chunkedDml.clearCheckpoints(sqlScript.getResource().getRelativePath());
+            } catch (SQLException e) {
+                throw new FlywaySqlException("Unable to clear checkpoints of " + sqlScript.getResource().getFilename(), e);
+            }
+        }
+
+        /**
+         * Turns streaming off without reporting errors if the execution has failed in the streaming mode.
+         */
+        void abort() {
+            if (thinClient != null) {
+                thinClient.close();
+
+                thinClient = null;
+            }
+
+            if (ddlPool != null) {
+                ddlPool.close();
+
+                ddlPool = null;
+            }
+
+            if (streamTbl == null && !scriptStreaming) {
+                return;
+            }
+
+            streamTbl = null;
+            scriptStreaming = false;
+
+            try (Statement stmt = jdbcTemplate.getConnection().createStatement()) {
+                stmt.execute("SET STREAMING OFF");
+            } catch (SQLException e) {
+                LOG.debug("Unable to turn streaming off: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Executes the held back {@code CREATE TABLE} statements. Tables that don't exist yet are created by one
+         * {@link CreateTablesTask}, if the task can't be executed, the statements are executed one by one.
+         */
+        private void flushCreates() {
+            if (createRun.isEmpty()) {
+                return;
+            }
+
+            List<SqlStatement> stmts = new ArrayList<>(createRun);
+            List<IgniteThinCreateTable.Parsed> defs = new ArrayList<>(createDefs);
+
+            createRun.clear();
+            createDefs.clear();
+
+            Set<String> existing = stmts.size() > 1 ? existingTables() : null;
+
+            if (existing == null) {
+                stmts.forEach(this::executeStatement);
+
+                return;
+            }
+
+            Set<String> seen = new HashSet<>(existing);
+            List<TableDefinition> toCreate = new ArrayList<>();
+
+            for (IgniteThinCreateTable.Parsed def : defs) {
+                if (!seen.add(def.table().toString())) {
+                    if (!def.ifNotExists()) {
+                        // The statement must fail in its turn, the regular execution reports it.
+                        stmts.forEach(this::executeStatement);
+
+                        return;
+                    }
+
+                    continue;
+                }
+
+                toCreate.add(def.table());
+            }
+
+            if (toCreate.size() < 2) {
+                stmts.forEach(this::executeStatement);
+
+                return;
+            }
+
+            long start = System.nanoTime();
+
+            try {
+                thinClient().compute().execute(CreateTablesTask.class.getName(), toCreate);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new FlywayException("Interrupted while creating tables of " + sqlScript.getResource().getFilename(), e);
+            } catch (RuntimeException e) {
+                // Some of the tables could have been created before the task failed.
+                IgniteThinDatabase.invalidateMetadata(config);
+
+                LOG.warn("Unable to create " + toCreate.size() + " tables by a compute task, falling back to creating "
+                        + "them one by one: " + e.getMessage());
+
+                Set<String> now = existingTables();
+
+                for (int i = 0; i < stmts.size(); i++) {
+                    String tbl = defs.get(i).table().toString();
+
+                    // Tables created by the task before it failed are skipped.
+                    if (now == null || !now.contains(tbl) || existing.contains(tbl)) {
+                        executeStatement(stmts.get(i));
+                    }
+                }
+
+                return;
+            }
+
+            // The tables are created bypassing the SQL engine of the migration connection.
+            IgniteThinDatabase.invalidateMetadata(config);
+
+            LOG.info("Created " + toCreate.size() + " tables by one cache start request in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+            pacer.afterStatements(toCreate.size() + " CREATE TABLE statements at line " + stmts.get(0).getLineNumber(),
+                    sqlScript.getResource().getFilename());
+        }
+
+        /**
+         * Gets the thin client of the open database, so one client is shared by all scripts of a command. A client of
+         * the execution is started on first use if there is no open database with the configuration.
+         */
+        private IgniteClient thinClient() {
+            IgniteClient shared = IgniteThinDatabase.getThinClient(config);
+
+            if (shared != null) {
+                return shared;
+            }
+
+            if (thinClient == null) {
+                thinClient = IgniteThinClientFactory.startClient(config, jdbcUrl);
+            }
+
+            return thinClient;
+        }
+
+        /**
+         * Gets existing tables as {@code "SCHEMA"."TABLE"}.
+         *
+         * @return Tables or {@code null} if the {@code SYS.TABLES} view is not available.
+         */
+        private Set<String> existingTables() {
+            try {
+                Set<String> tbls = new HashSet<>();
+
+                for (Map<String, String> row : jdbcTemplate.queryForList("SELECT SCHEMA_NAME, TABLE_NAME FROM SYS.TABLES")) {
+                    tbls.add(new TableDefinition(row.get("SCHEMA_NAME"), row.get("TABLE_NAME")).toString());
+                }
+
+                return tbls;
+            } catch (SQLException e) {
+                LOG.debug("Unable to read SYS.TABLES: " + e.getMessage());
+
+                return null;
+            }
+        }
+
+        /**
+         * Gets the current schema of the migration connection.
+         */
+        private String currentSchema() {
+            try {
+                String schema = jdbcTemplate.getConnection().getSchema();
+
+                return schema == null ? "PUBLIC" : schema;
+            } catch (SQLException e) {
+                throw new FlywaySqlException("Unable to get the current schema", e);
+            }
+        }
+
+        /**
+         * Executes the held back DDL statements. A statement waits only for the preceding statements on the same table,
+         * so every step executes statements on different tables concurrently.
+         */
+        private void flushDdl() {
+            if (ddlRun.isEmpty()) {
+                return;
+            }
+
+            if (ddlRun.size() == 1) {
+                executeStatement(ddlRun.remove(0));
+
+                return;
+            }
+
+            Map<String, Integer> tblSteps = new HashMap<>();
+            List<List<SqlStatement>> steps = new ArrayList<>();
+
+            for (SqlStatement stmt : ddlRun) {
+                String tbl = IgniteThinStatementType.ddlTarget(stmt.getSql());
+                int step = tblSteps.merge(tbl, 0, (prev, ignored) -> prev + 1);
+
+                if (step == steps.size()) {
+                    steps.add(new ArrayList<>());
+                }
+
+                steps.get(step).add(stmt);
+            }
+
+            int stmtCnt = ddlRun.size();
+
+            ddlRun.clear();
+
+            if (ddlPool == null) {
+                ddlPool = new IgniteThinStatementPool(connFactory, dbType, ddlParallelism);
+            }
+
+            try {
+                // The schema could have been changed by the configuration or the script since the previous run.
+                ddlPool.setSchema(currentSchema());
+            } catch (SQLException e) {
+                throw new FlywaySqlException("Unable to set the current schema of DDL connections", e);
+            }
+
+            long start = System.nanoTime();
+
+            try {
+                for (List<SqlStatement> step : steps) {
+                    List<String> sqls = new ArrayList<>(step.size());
+
+                    for (SqlStatement stmt : step) {
+                        String sql = indexPlanner == null ? stmt.getSql() : indexPlanner.plan(stmt.getSql());
+
+                        LOG.debug("Executing SQL: " + sql);
+
+                        sqls.add(sql);
+                    }
+
+                    try {
+                        ddlPool.executeAll(sqls);
+                    } catch (IgniteThinStatementPool.StatementFailure e) {
+                        throw new FlywaySqlScriptException(sqlScript.getResource(), step.get(e.index()), e.failure());
+                    }
+                }
+            } finally {
+                // The statements are executed over connections the database doesn't know about, some of them could
+                // have been executed even if the run has failed.
+                IgniteThinDatabase.invalidateMetadata(config);
+            }
+
+            LOG.info("Executed " + stmtCnt + " DDL statements on " + tblSteps.size() + " tables in " + steps.size()
+                    + " steps over " + ddlPool.parallelism() + " connections in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+
+            pacer.afterStatements(stmtCnt + " DDL statements at line " + steps.get(0).get(0).getLineNumber(),
+                    sqlScript.getResource().getFilename());
+        }
+
+        /**
+         * Executes the held back statements in the regular way, the run is too short to be streamed.
+         */
+        private void flushRun() {
+            for (SqlStatement stmt : run) {
+                submit(stmt);
+            }
+
+            run.clear();
+            runTbl = null;
+        }
+
+        /**
+         * Turns streaming on and streams the held back statements.
+         */
+        private void startStreaming() {
+            executeBatch();
+
+            streamTbl = runTbl;
+
+            LOG.info("Streaming INSERT statements into " + streamTbl);
+
+            if (!allowsOverwrite(streamingOptions)) {
+                LOG.warn("Streaming INSERT statements into " + streamTbl + " without ALLOW_OVERWRITE ON: rows whose keys "
+                        + "already exist are skipped instead of failing the migration, add ALLOW_OVERWRITE ON to "
+                        + IgniteProperty.STREAMING_OPTIONS.getKey() + " to overwrite them");
+            }
+
+            execute("SET STREAMING ON" + (streamingOptions == null ? "" : " " + streamingOptions));
+
+            startStats();
+
+            for (SqlStatement stmt : run) {
+                executeStatement(stmt);
+            }
+
+            streamed += run.size();
+
+            run.clear();
+            runTbl = null;
+        }
+
+        /**
+         * Flushes the streamer and turns streaming off if it was turned on by this executor.
+         */
+        private void stopStreaming() {
+            if (streamTbl == null) {
+                return;
+            }
+
+            turnStreamingOff();
+            logStats(streamTbl);
+
+            streamTbl = null;
+        }
+
+        /**
+         * Turns streaming off, the streamer is flushed and its errors are reported.
+         */
+        private void turnStreamingOff() {
+            try {
+                execute("SET STREAMING OFF");
+            } finally {
+                streamTbl = null;
+                scriptStreaming = false;
+            }
+        }
+
+        /**
+         * Resets the streaming statistics.
+         */
+        private void startStats() {
+            streamed = 0;
+            streamStart = System.nanoTime();
+        }
+
+        /**
+         * Logs the streaming rate.
+         *
+         * @param target Streaming target.
+         */
+        private void logStats(String target) {
+            long ms = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - streamStart));
+
+            LOG.info("Streamed " + streamed + " INSERT statements into " + target + " in " + ms + " ms ("
+                    + streamed * 1000 / ms + " statements/s)");
+
+            streamed = 0;
+        }
+
+        /**
+         * Executes a statement directly or adds it to the batch.
+         *
+         * @param stmt Statement.
+         */
+        private void submit(SqlStatement stmt) {
+            if (batchSize > 1 && IgniteThinStatementType.of(stmt.getSql()).isBatchable()) {
+                batch.add(stmt);
+
+                if (batch.size() >= batchSize) {
+                    executeBatch();
+                }
+            } else {
+                executeBatch();
+                executeStatement(stmt);
+            }
+        }
+
+        /**
+         * Executes a single statement.
+         *
+         * @param stmt Statement.
+         */
+        private void executeStatement(SqlStatement stmt) {
+            String sql = indexPlanner == null ? stmt.getSql() : indexPlanner.plan(stmt.getSql());
+
+            LOG.debug("Executing SQL: " + sql);
+
+            Results results = jdbcTemplate.executeStatement(sql);
+            boolean ddl = IgniteThinStatementType.of(stmt.getSql()) == IgniteThinStatementType.DDL;
+
+            if (ddl) {
+                IgniteThinDatabase.invalidateMetadata(config);
+            }
+
+            if (results.getException() != null) {
+                throw new FlywaySqlScriptException(sqlScript.getResource(), stmt, results.getException());
+            }
+
+            if (ddl) {
+                pacer.afterStatements("DDL statement at line " + stmt.getLineNumber(), sqlScript.getResource().getFilename());
+            }
+        }
+
+        /**
+         * Executes an {@code UPDATE} or {@code DELETE} statement by chunks, a statement that can't be chunked is
+         * executed as is.
+         *
+         * @param stmt Statement.
+         */
+        private void executeChunked(SqlStatement stmt) {
+            String desc = "statement at line " + stmt.getLineNumber() + " of " + sqlScript.getResource().getFilename();
+
+            try {
+                if (!chunkedDml.execute(stmt.getSql(), desc, sqlScript.getResource().getRelativePath(), "line " + stmt.getLineNumber())) {
+                    LOG.warn("Unable to execute " + desc + " by chunks: the table must have a single column primary key "
+                            + "and the statement can't have ORDER BY or LIMIT, executing it as is");
+
+                    executeStatement(stmt);
+                }
+            } catch (SQLException e) {
+                throw new FlywaySqlScriptException(sqlScript.getResource(), stmt, e);
+            }
+        }
+
+        /**
+         * Executes a DML statement partition by partition, a statement whose table isn't partitioned is executed as is.
+         *
+         * @param stmt Statement.
+         */
+        private void executePartitioned(SqlStatement stmt) {
+            String desc = "statement at line " + stmt.getLineNumber() + " of " + sqlScript.getResource().getFilename();
+            String schema = currentSchema();
+
+            try {
+                int parts = partitionedDml.partitions(stmt.getSql(), schema);
+
+                if (parts <= 1) {
+                    LOG.warn("Unable to execute " + desc + " by partitions: the statement must read a partitioned table, "
+                            + "executing it as is");
+
+                    executeStatement(stmt);
+
+                    return;
+                }
+
+                partitionedDml.execute(stmt.getSql(), schema, parts, desc);
+            } catch (SQLException e) {
+                throw new FlywaySqlScriptException(sqlScript.getResource(), stmt, e);
+            }
+        }
+
+        /**
+         * Executes a {@code COPY FROM 'file'} statement, a relative file is resolved next to the script.
+         *
+         * @param stmt Statement.
+         */
+        private void executeCopy(SqlStatement stmt) {
+            String file = IgniteThinStatementType.copyFile(stmt.getSql());
+
+            if (file == null) {
+                executeStatement(stmt);
+
+                return;
+            }
+
+            Path tmp = null;
+
+            try {
+                Path path = Paths.get(file);
+
+                if (!path.isAbsolute()) {
+                    Path resolved = resolveOnDisk(file);
+
+                    if (resolved == null) {
+                        URL url = resolveOnClasspath(file);
+
+                        if (url != null && "file".equals(url.getProtocol().toLowerCase(Locale.ROOT))) {
+                            resolved = Paths.get(url.toURI());
+                        } else if (url != null) {
+                            resolved = tmp = extract(url);
+                        }
+                    }
+
+                    if (resolved != null) {
+                        path = resolved;
+                    } else {
+                        LOG.warn("COPY file " + file + " is not found next to " + sqlScript.getResource().getFilename()
+                                + ", it is resolved against the working directory");
+                    }
+                }
+
+                String sql = IgniteThinStatementType.withCopyFile(stmt.getSql(), path.toString());
+                long bytes = Files.isRegularFile(path) ? Files.size(path) : -1;
+
+                LOG.debug("Executing SQL: " + sql);
+
+                long start = System.nanoTime();
+                long rows;
+
+                try (Statement jdbcStmt = jdbcTemplate.getConnection().createStatement()) {
+                    rows = jdbcStmt.executeUpdate(sql);
+                } catch (SQLException e) {
+                    throw new FlywaySqlScriptException(sqlScript.getResource(), stmt, e);
+                }
+
+                long ms = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+                LOG.info("Loaded " + rows + " rows" + (bytes >= 0 ? " (" + bytes + " bytes)" : "") + " from " + file
+                        + " in " + ms + " ms (" + rows * 1000 / ms + " rows/s)");
+            } catch (IOException | URISyntaxException e) {
+                throw new FlywayException("Unable to read COPY file " + file + " of "
+                        + sqlScript.getResource().getFilename(), e);
+            } finally {
+                if (tmp != null) {
+                    try {
+                        Files.deleteIfExists(tmp);
+                    } catch (IOException e) {
+                        LOG.debug("Unable to delete " + tmp + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Resolves a file next to a filesystem migration or a classpath migration in a directory.
+         *
+         * @param file Relative file.
+         * @return Path or {@code null} if the script is not on disk or there is no such file.
+         */
+        private Path resolveOnDisk(String file) {
+            String script = sqlScript.getResource().getAbsolutePathOnDisk();
+
+            if (script == null) {
+                return null;
+            }
+
+            Path path = Paths.get(script).resolveSibling(file).normalize();
+
+            return Files.isRegularFile(path) ? path : null;
+        }
+
+        /**
+         * Looks up a file next to a classpath migration.
+         *
+         * @param file Relative file.
+         * @return Resource url or {@code null} if there is no such resource.
+         */
+        private URL resolveOnClasspath(String file) {
+            if (clsLdr == null) {
+                return null;
+            }
+
+            String script = sqlScript.getResource().getAbsolutePath().replace('\\', '/');
+            int sep = script.lastIndexOf('/');
+
+            return clsLdr.getResource(Paths.get(script.substring(0, sep + 1) + file).normalize().toString().replace('\\', '/'));
+        }
+
+        /**
+         * Copies a classpath resource packed into a jar to a temporary file, the JDBC driver reads {@code COPY} files
+         * from the filesystem only.
+         *
+         * @param url Resource url.
+         * @return Temporary file.
+         * @throws IOException If failed.
+         */
+        private Path extract(URL url) throws IOException {
+            String name = url.getPath();
+            int dot = name.lastIndexOf('.');
+            Path tmp = Files.createTempFile("flyway-ignite-copy", dot <= name.lastIndexOf('/') ? null : name.substring(dot));
+
+            try (InputStream in = url.openStream()) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                Files.deleteIfExists(tmp);
+
+                throw e;
+            }
+
+            return tmp;
+        }
+
+        /**
+         * Executes a statement that is not a part of the script.
+         *
+         * @param sql Statement.
+         */
+        private void execute(String sql) {
+            try {
+                jdbcTemplate.execute(sql);
+            } catch (SQLException e) {
+                throw new FlywaySqlException("Unable to execute " + sql + " for " + sqlScript.getResource().getFilename(), e);
+            }
+        }
+
+        /**
+         * Executes collected statements by a JDBC batch and clears them.
+         */
+        private void executeBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            LOG.debug("Executing batch of " + batch.size() + " statements starting at line " + batch.get(0).getLineNumber());
+
+            try (Statement stmt = jdbcTemplate.getConnection().createStatement()) {
+                for (SqlStatement sqlStmt : batch) {
+                    stmt.addBatch(sqlStmt.getSql());
+                }
+
+                stmt.executeBatch();
+            } catch (BatchUpdateException e) {
+                throw new FlywaySqlScriptException(sqlScript.getResource(), batch.get(failedIndex(e, batch.size())), e);
+            } catch (SQLException e) {
+                throw new FlywaySqlScriptException(sqlScript.getResource(), batch.get(0), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.database.DatabaseType;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+/**
+ * Executes independent statements over a bounded set of dedicated connections. Every connection runs one statement at
+ * a time, so the degree of parallelism is the number of connections.
+ */
+class IgniteThinStatementPool implements AutoCloseable {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinStatementPool.class);
+
+    /**
+     * Dedicated connections.
+     */
+    private final List<Connection> conns = new ArrayList<>();
+
+    /**
+     * Jdbc templates of the connections that are not busy.
+     */
+    private final BlockingQueue<JdbcTemplate> idle;
+
+    /**
+     * Executor.
+     */
+    private final ExecutorService exec;
+
+    /**
+     * Current schema of the connections or {@code null} if it hasn't been set by {@link #setSchema(String)}.
+     */
+    private String schema;
+
+    /**
+     * Opens the connections.
+     *
+     * @param db          Database.
+     * @param parallelism The number of connections.
+     */
+    IgniteThinStatementPool(IgniteThinDatabase db, int parallelism) {
+        this(db::openDedicatedConnection, db.getDatabaseType(), parallelism);
+    }
+
+    /**
+     * Opens the connections.
+     *
+     * @param connFactory Factory of connections independent of the Flyway connections.
+     * @param dbType      Database type.
+     * @param parallelism The number of connections.
+     */
+    IgniteThinStatementPool(Supplier<Connection> connFactory, DatabaseType dbType, int parallelism) {
+        idle = new ArrayBlockingQueue<>(parallelism);
+
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                Connection conn = connFactory.get();
+
+                conns.add(conn);
+                idle.add(new JdbcTemplate(conn, dbType));
+            }
+        } catch (RuntimeException e) {
+            closeConnections();
+
+            throw e;
+        }
+
+        exec = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "flyway-ignite-statement-pool");
+
+            t.setDaemon(true);
+
+            return t;
+        });
+    }
+
+    /**
+     * Gets the degree of parallelism.
+     */
+    int parallelism() {
+        return conns.size();
+    }
+
+    /**
+     * Sets the current schema of all connections, unqualified names of the next statements are resolved in it. Must not
+     * be called while statements are executed.
+     *
+     * @param schema Schema or {@code null} to keep the current one.
+     * @throws SQLException If failed.
+     */
+    void setSchema(String schema) throws SQLException {
+        if (schema == null || schema.equals(this.schema)) {
+            return;
+        }
+
+        for (Connection conn : conns) {
+            conn.setSchema(schema);
+        }
+
+        this.schema = schema;
+    }
+
+    /**
+     * Executes the statements and waits for all of them to complete, a failed statement doesn't cancel the others.
+     *
+     * @param stmts Statements.
+     * @throws StatementFailure The first failure, the others are suppressed.
+     */
+    void executeAll(List<String> stmts) throws StatementFailure {
+        List<Future<?>> futs = new ArrayList<>(stmts.size());
+
+        for (String stmt : stmts) {
+            futs.add(exec.submit(() -> {
+                JdbcTemplate tpl = idle.take();
+
+                try {
+                    tpl.execute(stmt);
+                } finally {
+                    idle.add(tpl);
+                }
+
+                return null;
+            }));
+        }
+
+        StatementFailure err = null;
+
+        for (int i = 0; i < futs.size(); i++) {
+            try {
+                futs.get(i).get();
+            } catch (ExecutionException e) {
+                SQLException sqlErr = e.getCause() instanceof SQLException
+                        ? (SQLException) e.getCause()
+                        : new SQLException(e.getCause());
+
+                if (err == null) {
+                    err = new StatementFailure(i, sqlErr);
+                } else {
+                    err.addSuppressed(sqlErr);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new FlywayException("Interrupted while waiting for statements to complete", e);
+            }
+        }
+
+        if (err != null) {
+            throw err;
+        }
+    }
+
+    /**
+     * Failure of a statement executed by {@link #executeAll(List)}.
+     */
+    static class StatementFailure extends SQLException {
+        /**
+         * Serial version uid.
+         */
+        private static final long serialVersionUID = 0L;
+
+        /**
+         * Index of the failed statement.
+         */
+        private final int idx;
+
+        /**
+         * Default constructor.
+         *
+         * @param idx   Index of the failed statement.
+         * @param cause Failure.
+         */
+        StatementFailure(int idx, SQLException cause) {
+            super(cause.getMessage(), cause.getSQLState(), cause.getErrorCode(), cause);
+
+            this.idx = idx;
+        }
+
+        /**
+         * Gets index of the failed statement.
+         */
+        int index() {
+            return idx;
+        }
+
+        /**
+         * Gets the failure of the statement.
+         */
+        SQLException failure() {
+            return (SQLException) getCause();
+        }
+    }
+
+    /**
+     * Closes the connections.
+     */
+    private void closeConnections() {
+        for (Connection conn : conns) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                LOG.debug("Unable to close connection: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void close() {
+        exec.shutdownNow();
+
+        closeConnections();
+    }
+}
@@ -0,0 +1,411 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Type of SQL statement determined by its first keyword.
+ */
+enum IgniteThinStatementType {
+    /**
+     * {@code CREATE}, {@code ALTER} or {@code DROP}.
+     */
+    DDL(false),
+
+    /**
+     * {@code INSERT}.
+     */
+    INSERT(true),
+
+    /**
+     * {@code MERGE}.
+     */
+    MERGE(true),
+
+    /**
+     * {@code UPDATE}.
+     */
+    UPDATE(true),
+
+    /**
+     * {@code DELETE}.
+     */
+    DELETE(true),
+
+    /**
+     * {@code SELECT} or {@code WITH}.
+     */
+    QUERY(false),
+
+    /**
+     * {@code COPY FROM}.
+     */
+    COPY(false),
+
+    /**
+     * {@code SET}, for example {@code SET STREAMING ON}.
+     */
+    SET(false),
+
+    /**
+     * Anything else.
+     */
+    OTHER(false);
+
+    /**
+     * File literal of a {@code COPY FROM} statement.
+     */
+    private static final Pattern COPY_FILE = Pattern.compile("(?i)\\bFROM\\s+'((?:[^']|'')*)'");
+
+    /**
+     * Whether statements of the type can be sent in a JDBC batch.
+     */
+    private final boolean batchable;
+
+    /**
+     * Default constructor.
+     *
+     * @param batchable Whether statements of the type can be sent in a JDBC batch.
+     */
+    IgniteThinStatementType(boolean batchable) {
+        this.batchable = batchable;
+    }
+
+    /**
+     * Returns {@code true} if statements of the type can be sent in a JDBC batch.
+     */
+    boolean isBatchable() {
+        return batchable;
+    }
+
+    /**
+     * Determines type of the statement.
+     *
+     * @param sql Statement.
+     */
+    static IgniteThinStatementType of(String sql) {
+        String kw = firstKeyword(sql).toUpperCase(Locale.ROOT);
+
+        switch (kw) {
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+                return DDL;
+
+            case "INSERT":
+                return INSERT;
+
+            case "MERGE":
+                return MERGE;
+
+            case "UPDATE":
+                return UPDATE;
+
+            case "DELETE":
+                return DELETE;
+
+            case "SELECT":
+            case "WITH":
+                return QUERY;
+
+            case "COPY":
+                return COPY;
+
+            case "SET":
+                return SET;
+
+            default:
+                return OTHER;
+        }
+    }
+
+    /**
+     * Gets the first keyword of the statement, leading whitespaces and comments are skipped.
+     *
+     * @param sql Statement.
+     */
+    static String firstKeyword(String sql) {
+        int i = skipComments(sql, 0);
+        int start = i;
+
+        while (i < sql.length() && Character.isLetter(sql.charAt(i))) {
+            i++;
+        }
+
+        return sql.substring(start, i);
+    }
+
+    /**
+     * Gets the target table of an {@code INSERT INTO} statement as written in the statement.
+     *
+     * @param sql Statement.
+     * @return Table name or {@code null} if it isn't an {@code INSERT INTO} statement.
+     */
+    static String insertTarget(String sql) {
+        int i = skipComments(sql, 0);
+
+        if (!sql.regionMatches(true, i, "INSERT", 0, 6)) {
+            return null;
+        }
+
+        i = skipComments(sql, i + 6);
+
+        if (!sql.regionMatches(true, i, "INTO", 0, 4)) {
+            return null;
+        }
+
+        i = skipComments(sql, i + 4);
+
+        int start = i;
+        boolean quoted = false;
+
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (Character.isWhitespace(c) || c == '(')) {
+                break;
+            }
+
+            i++;
+        }
+
+        return i > start ? sql.substring(start, i) : null;
+    }
+
+    /**
+     * Gets the table a DDL statement changes: {@code CREATE TABLE}, {@code ALTER TABLE}, {@code DROP TABLE} or
+     * {@code CREATE INDEX ... ON}. The name is normalized, unquoted names are upper-cased and the schema is dropped, so
+     * same-named tables of different schemas are treated as one table.
+     *
+     * @param sql Statement.
+     * @return Table name or {@code null} if the table is unknown, for example {@code DROP INDEX}.
+     */
+    static String ddlTarget(String sql) {
+        List<String> words = new ArrayList<>();
+        int i = skipComments(sql, 0);
+
+        // CREATE [SPATIAL] INDEX [IF NOT EXISTS] idx ON tbl is the longest prefix.
+        while (i < sql.length() && words.size() < 9) {
+            int end = nameEnd(sql, i);
+
+            if (end == i) {
+                break;
+            }
+
+            words.add(sql.substring(i, end));
+
+            i = skipComments(sql, end);
+        }
+
+        if (words.size() < 3) {
+            return null;
+        }
+
+        String cmd = words.get(0).toUpperCase(Locale.ROOT);
+        String obj = words.get(1).toUpperCase(Locale.ROOT);
+        int pos = 2;
+
+        if ("TABLE".equals(obj) && ("CREATE".equals(cmd) || "ALTER".equals(cmd) || "DROP".equals(cmd))) {
+            pos = skipIfExists(words, pos);
+
+            return pos < words.size() ? tableName(words.get(pos)) : null;
+        }
+
+        if (!"CREATE".equals(cmd)) {
+            return null;
+        }
+
+        if ("SPATIAL".equals(obj) && "INDEX".equalsIgnoreCase(words.get(2))) {
+            pos = 3;
+        } else if (!"INDEX".equals(obj)) {
+            return null;
+        }
+
+        pos = skipIfExists(words, pos) + 1;
+
+        return pos + 1 < words.size() && "ON".equalsIgnoreCase(words.get(pos)) ? tableName(words.get(pos + 1)) : null;
+    }
+
+    /**
+     * Skips {@code IF EXISTS} or {@code IF NOT EXISTS}.
+     *
+     * @param words Words.
+     * @param pos   Position to start from.
+     * @return Position after the clause.
+     */
+    private static int skipIfExists(List<String> words, int pos) {
+        if (pos < words.size() && "IF".equalsIgnoreCase(words.get(pos))) {
+            pos++;
+
+            if (pos < words.size() && "NOT".equalsIgnoreCase(words.get(pos))) {
+                pos++;
+            }
+
+            pos++;
+        }
+
+        return pos;
+    }
+
+    /**
+     * Finds the end of a possibly qualified and quoted name or keyword.
+     *
+     * @param sql  Statement.
+     * @param from Start position.
+     */
+    private static int nameEnd(String sql, int from) {
+        int i = from;
+        boolean quoted = false;
+
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && !(Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.')) {
+                break;
+            }
+
+            i++;
+        }
+
+        return i;
+    }
+
+    /**
+     * Normalizes a table name: the schema is dropped, an unquoted name is upper-cased.
+     *
+     * @param name Possibly qualified name.
+     */
+    private static String tableName(String name) {
+        int dot = name.lastIndexOf('.');
+
+        // A dot inside a quoted name is not a separator.
+        while (dot > 0 && name.substring(dot + 1).chars().filter(c -> c == '"').count() % 2 != 0) {
+            dot = name.lastIndexOf('.', dot - 1);
+        }
+
+        String tbl = name.substring(dot + 1);
+
+        return tbl.startsWith("\"") ? tbl.replace("\"", "") : tbl.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Gets the file of a {@code COPY FROM 'file' ...} statement.
+     *
+     * @param sql Statement.
+     * @return File or {@code null} if it isn't a {@code COPY} statement.
+     */
+    static String copyFile(String sql) {
+        Matcher m = COPY_FILE.matcher(sql);
+
+        return of(sql) == COPY && m.find(skipComments(sql, 0)) ? m.group(1).replace("''", "'") : null;
+    }
+
+    /**
+     * Replaces the file of a {@code COPY FROM 'file' ...} statement.
+     *
+     * @param sql  Statement.
+     * @param file New file.
+     */
+    static String withCopyFile(String sql, String file) {
+        Matcher m = COPY_FILE.matcher(sql);
+
+        if (!m.find(skipComments(sql, 0))) {
+            return sql;
+        }
+
+        return sql.substring(0, m.start(1)) + file.replace("'", "''") + sql.substring(m.end(1));
+    }
+
+    /**
+     * Returns {@code true} if the statement turns streaming on, {@code SET STREAMING ON ...}.
+     *
+     * @param sql Statement.
+     */
+    static boolean isStreamingOn(String sql) {
+        return streamingMode(sql).startsWith("ON");
+    }
+
+    /**
+     * Returns {@code true} if the statement turns streaming off, {@code SET STREAMING OFF}.
+     *
+     * @param sql Statement.
+     */
+    static boolean isStreamingOff(String sql) {
+        return streamingMode(sql).startsWith("OFF");
+    }
+
+    /**
+     * Gets the upper case text after {@code SET STREAMING} or an empty string for other statements.
+     *
+     * @param sql Statement.
+     */
+    private static String streamingMode(String sql) {
+        String norm = sql.substring(skipComments(sql, 0)).trim().replaceAll("\\s+", " ").toUpperCase(Locale.ROOT);
+
+        return norm.startsWith("SET STREAMING ") ? norm.substring("SET STREAMING ".length()) : "";
+    }
+
+    /**
+     * Returns {@code true} if a block or line comment of the statement starts with the given hint, for example
+     * {@code ignite:noplan}.
+     *
+     * @param sql  Statement.
+     * @param hint Hint without the {@code ignite:} prefix.
+     */
+    static boolean hasHint(String sql, String hint) {
+        return Pattern.compile("(?i)(?:/\\*|--)\\s*ignite:" + Pattern.quote(hint) + "(?![\\w-])").matcher(sql).find();
+    }
+
+    /**
+     * Skips whitespaces and comments.
+     *
+     * @param sql  Statement.
+     * @param from Position to start from.
+     * @return Position of the first significant character.
+     */
+    static int skipComments(String sql, int from) {
+        int i = from;
+
+        while (i < sql.length()) {
+            if (Character.isWhitespace(sql.charAt(i))) {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int eol = sql.indexOf('\n', i);
+
+                i = eol < 0 ? sql.length() : eol + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+
+                i = end < 0 ? sql.length() : end + 2;
+            } else {
+                break;
+            }
+        }
+
+        return i;
+    }
+}
@@ -32,9 +32,14 @@
 
 package io.github.ingvard.incubator.ignite.flyway.thin;
 
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.LockWaitMode;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationVersion;
 import org.flywaydb.core.api.logging.Log;
 import org.flywaydb.core.api.logging.LogFactory;
 import org.flywaydb.core.internal.database.base.Table;
@@ -50,11 +55,42 @@ public class IgniteThinTable extends Table<IgniteThinDatabase, IgniteThinSchema>
      */
     private static final Log LOG = LogFactory.getLog(IgniteThinTable.class);
 
+    /**
+     * Installed rank of the lock row, it is also the key of the row in the history cache.
+     */
+    private static final int LOCK_INSTALLED_RANK = -100;
+
+    /**
+     * The number of lock retries in the polling mode, it bounds the total lock wait time in all modes.
+     */
+    private static final int LOCK_RETRY_COUNT = 50;
+
+    /**
+     * Lock retry interval.
+     */
+    private static final long LOCK_RETRY_INTERVAL_MS = 1000;
+
+    /**
+     * Marker stored in the {@code script} column of a lease lock row, the {@code installed_on} column of such row is
+     * the lease expiry time. Lock rows without the marker are never reaped.
+     */
+    private static final String LEASE_MARKER = "lease";
+
     /**
      * Table lock string.
      */
     private final String tblLockStr = UUID.randomUUID().toString();
 
+    /**
+     * Lease heartbeat of the held lock or {@code null}.
+     */
+    private IgniteThinLockHeartbeat heartbeat;
+
+    /**
+     * {@code True} if the lock wasn't taken because another instance has already migrated to the awaited version.
+     */
+    private boolean lockSkipped;
+
     /**
      * Creates a new Ignite table.
      *
@@ -72,7 +108,18 @@ public class IgniteThinTable extends Table<IgniteThinDatabase, IgniteThinSchema>
      */
     @Override
     protected void doDrop() throws SQLException {
-        jdbcTemplate.execute("DROP TABLE " + database.quote(schema.getName(), name) + " CASCADE");
+        try {
+            jdbcTemplate.execute(getDropStatement());
+        } finally {
+            database.invalidateMetadata();
+        }
+    }
+
+    /**
+     * Gets the statement that drops the table.
+     */
+    String getDropStatement() {
+        return "DROP TABLE " + database.quote(schema.getName(), name) + " CASCADE";
     }
 
     /**
@@ -92,26 +139,279 @@ public class IgniteThinTable extends Table<IgniteThinDatabase, IgniteThinSchema>
             // Lock has already been taken - so the relevant row in the table already exists
             return;
         }
-        int retryCnt = 0;
-        do {
-            try {
-                if (insertLockingRow()) {
-                    return;
-                }
 
-                retryCnt++;
+        if (database.getPluginConfiguration().getLockWaitForVersion() != null) {
+            awaitVersion(database.getPluginConfiguration().getLockWaitForVersion());
+
+            // Pending migrations of this instance are refused by the executors, see IgniteThinDatabase#checkLockNotSkipped.
+            lockSkipped = true;
+
+            database.addSkippedLock(this);
+
+            return;
+        }
+
+        long deadline = System.currentTimeMillis() + LOCK_RETRY_COUNT * LOCK_RETRY_INTERVAL_MS;
+
+        IgniteThinLockWatcher watcher = null;
+
+        try {
+            do {
+                try {
+                    if (insertLockingRow()) {
+                        startHeartbeat();
+
+                        return;
+                    }
+
+                    if (reapExpiredLock()) {
+                        continue;
+                    }
+
+                    if (watcher == null) {
+                        watcher = lockWatcher();
+
+                        // The lock could have been released before the watcher was registered.
+                        continue;
+                    }
 
-                LOG.debug("Waiting for lock on " + this);
+                    LOG.debug("Waiting for lock on " + this);
 
-                Thread.sleep(1000);
-            } catch (InterruptedException ex) {
-                // Ignore - if interrupted, we still need to wait for lock to become available
+                    watcher.await(LOCK_RETRY_INTERVAL_MS);
+                } catch (InterruptedException ex) {
+                    // Ignore - if interrupted, we still need to wait for lock to become available
+                }
+            } while (System.currentTimeMillis() < deadline);
+        } finally {
+            if (watcher != null) {
+                watcher.close();
             }
-        } while (retryCnt < 50);
+        }
 
         throw new FlywayException("Unable to obtain table lock - another Flyway instance may be running");
     }
 
+    /**
+     * Waits until another instance records the version or a later one as successfully applied. The history is checked
+     * by a single query for the latest versioned row, between checks the history cache is listened in the
+     * {@link LockWaitMode#CONTINUOUS_QUERY} mode.
+     *
+     * @param ver Awaited version.
+     */
+    private void awaitVersion(MigrationVersion ver) {
+        long deadline = System.currentTimeMillis() + database.getPluginConfiguration().getLockWaitForVersionTimeout();
+
+        IgniteThinLockWatcher watcher = null;
+
+        try {
+            while (true) {
+                try {
+                    if (isVersionApplied(ver)) {
+                        LOG.info("Version " + ver + " has been applied by another Flyway instance, skipping lock on " + this);
+
+                        return;
+                    }
+
+                    if (System.currentTimeMillis() >= deadline) {
+                        break;
+                    }
+
+                    if (watcher == null) {
+                        watcher = historyWatcher();
+
+                        // The version could have been applied before the watcher was registered.
+                        continue;
+                    }
+
+                    LOG.debug("Waiting for version " + ver + " on " + this);
+
+                    watcher.await(LOCK_RETRY_INTERVAL_MS);
+                } catch (InterruptedException ex) {
+                    // Ignore - if interrupted, we still need to wait for the version
+                }
+            }
+        } finally {
+            if (watcher != null) {
+                watcher.close();
+            }
+        }
+
+        throw new FlywayException("Timed out waiting for version " + ver + " to be applied by another Flyway instance");
+    }
+
+    /**
+     * Checks that the latest versioned migration is successful and isn't older than the version.
+     *
+     * @param ver Version.
+     * @throws FlywayException If the latest versioned migration has failed.
+     */
+    private boolean isVersionApplied(MigrationVersion ver) {
+        List<Map<String, String>> rows;
+
+        try {
+            rows = jdbcTemplate.queryForList("SELECT " + database.quote("version") + ", " + database.quote("success")
+                    + " FROM " + this + " WHERE " + database.quote("installed_rank") + " = (SELECT MAX("
+                    + database.quote("installed_rank") + ") FROM " + this + " WHERE " + database.quote("installed_rank")
+                    + " > 0 AND " + database.quote("version") + " IS NOT NULL)");
+        } catch (SQLException e) {
+            // The history table may be being created by another instance.
+            LOG.debug("Unable to read schema history " + this + ": " + e.getMessage());
+
+            return false;
+        }
+
+        if (rows.isEmpty()) {
+            return false;
+        }
+
+        MigrationVersion latest = MigrationVersion.fromVersion(rows.get(0).get("version"));
+        String success = rows.get(0).get("success");
+
+        if (!"true".equalsIgnoreCase(success) && !database.getBooleanTrue().equals(success)) {
+            throw new FlywayException("Migration to version " + latest + " has failed on another Flyway instance, "
+                    + "version " + ver + " won't be applied");
+        }
+
+        return latest.compareTo(ver) >= 0;
+    }
+
+    /**
+     * Creates a watcher of any schema history change according to {@link IgniteConfigurationExtension#getLockWaitMode()}.
+     */
+    private IgniteThinLockWatcher historyWatcher() {
+        if (database.getPluginConfiguration().getLockWaitMode() != LockWaitMode.CONTINUOUS_QUERY) {
+            return IgniteThinLockWatcher.polling();
+        }
+
+        try {
+            return IgniteThinLockWatcher.continuous(database.getThinClient(), getCacheName(), null);
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("Unable to listen changes on " + this + ", falling back to polling: " + e.getMessage());
+
+            return IgniteThinLockWatcher.polling();
+        }
+    }
+
+    /**
+     * Starts the lease heartbeat if leases are enabled.
+     */
+    private void startHeartbeat() {
+        long leaseTime = database.getPluginConfiguration().getLockLeaseTime();
+
+        if (leaseTime > 0) {
+            long interval = database.getPluginConfiguration().getLockHeartbeatInterval();
+
+            // The interval could have been set bypassing the configuration properties.
+            if (interval >= leaseTime) {
+                throw new FlywayException("Lock heartbeat interval " + interval + " ms must be less than lock lease time "
+                        + leaseTime + " ms");
+            }
+
+            heartbeat = new IgniteThinLockHeartbeat(database,
+                    "UPDATE " + this + " SET " + database.quote("installed_on") + " = " + leaseExpiry(leaseTime)
+                            + " WHERE " + database.quote("installed_rank") + " = " + LOCK_INSTALLED_RANK + " AND "
+                            + database.quote("version") + " = '" + tblLockStr + "'",
+                    "lock on " + this,
+                    leaseTime,
+                    Math.max(1, interval));
+
+            database.addHeartbeat(heartbeat);
+        }
+    }
+
+    /**
+     * Removes a lease lock row whose lease has expired, so the lock can be taken over without waiting for the retries
+     * to run out. Nothing is removed if leases are disabled for this instance.
+     *
+     * @return {@code True} if an expired lock was removed.
+     */
+    private boolean reapExpiredLock() {
+        if (database.getPluginConfiguration().getLockLeaseTime() <= 0) {
+            return false;
+        }
+
+        try {
+            int reaped = jdbcTemplate.update("DELETE FROM " + this + " WHERE "
+                    + database.quote("installed_rank") + " = " + LOCK_INSTALLED_RANK + " AND "
+                    + database.quote("description") + " = 'flyway-lock' AND "
+                    + database.quote("script") + " = '" + LEASE_MARKER + "' AND "
+                    + database.quote("installed_on") + " < CURRENT_TIMESTAMP");
+
+            if (reaped > 0) {
+                LOG.warn("Removed expired lock on " + this + ", the previous lock holder hasn't extended its lease");
+
+                return true;
+            }
+        } catch (SQLException e) {
+            LOG.debug("Unable to remove expired lock on " + this + ": " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Lease expiry expression evaluated on the cluster side, so clocks of Flyway instances don't matter.
+     *
+     * @param leaseTime Lease time in milliseconds.
+     */
+    private static String leaseExpiry(long leaseTime) {
+        return "DATEADD('MILLISECOND', " + leaseTime + ", CURRENT_TIMESTAMP)";
+    }
+
+    /**
+     * Creates a lock watcher according to {@link IgniteConfigurationExtension#getLockWaitMode()}. The polling watcher is
+     * used when the history cache can't be listened.
+     */
+    private IgniteThinLockWatcher lockWatcher() {
+        if (database.getPluginConfiguration().getLockWaitMode() != LockWaitMode.CONTINUOUS_QUERY) {
+            return IgniteThinLockWatcher.polling();
+        }
+
+        try {
+            return IgniteThinLockWatcher.continuous(database.getThinClient(), getCacheName(), LOCK_INSTALLED_RANK);
+        } catch (SQLException | RuntimeException e) {
+            LOG.warn("Unable to listen lock changes on " + this + ", falling back to polling: " + e.getMessage());
+
+            return IgniteThinLockWatcher.polling();
+        }
+    }
+
+    /**
+     * Removes schema history rows installed after the last migration with the version not greater than the given one,
+     * so the removed migrations are applied again by the next migrate.
+     *
+     * @param ver Version to keep the history up to.
+     * @return The number of removed rows.
+     * @throws SQLException If failed.
+     */
+    public int removeMigrationsAbove(MigrationVersion ver) throws SQLException {
+        int keepRank = 0;
+
+        for (Map<String, String> row : jdbcTemplate.queryForList("SELECT " + database.quote("installed_rank") + ", "
+                + database.quote("version") + " FROM " + this + " WHERE " + database.quote("installed_rank") + " > 0 AND "
+                + database.quote("version") + " IS NOT NULL")) {
+            if (MigrationVersion.fromVersion(row.get("version")).compareTo(ver) <= 0) {
+                keepRank = Math.max(keepRank, Integer.parseInt(row.get("installed_rank")));
+            }
+        }
+
+        return jdbcTemplate.update("DELETE FROM " + this + " WHERE " + database.quote("installed_rank") + " > ?", keepRank);
+    }
+
+    /**
+     * Gets name of the cache that stores the table.
+     *
+     * @throws SQLException If failed.
+     */
+    String getCacheName() throws SQLException {
+        if (!database.getBootstrap().hasSysView("TABLES")) {
+            throw new SQLException("SYS.TABLES view is not available");
+        }
+
+        return jdbcTemplate.queryForString("SELECT CACHE_NAME FROM SYS.TABLES WHERE SCHEMA_NAME = ? AND TABLE_NAME = ?",
+                schema.getName(), name);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -122,6 +422,28 @@ public class IgniteThinTable extends Table<IgniteThinDatabase, IgniteThinSchema>
             return;
         }
 
+        if (lockSkipped) {
+            lockSkipped = false;
+
+            database.removeSkippedLock(this);
+
+            return;
+        }
+
+        if (heartbeat != null) {
+            database.removeHeartbeat(heartbeat);
+            heartbeat.close();
+
+            boolean lost = heartbeat.isLost();
+
+            heartbeat = null;
+
+            if (lost) {
+                throw new FlywayException("Lease of lock on " + this + " expired while the lock was held, "
+                        + "another Flyway instance may have run concurrently");
+            }
+        }
+
         // Check that there are no other locks in place. This should not happen!
         int competingLocksTaken = jdbcTemplate.queryForInt(
                 "SELECT COUNT(*) FROM " + this + " WHERE " + database.quote("version") + " != '" + tblLockStr + "' AND "
@@ -140,9 +462,14 @@ public class IgniteThinTable extends Table<IgniteThinDatabase, IgniteThinSchema>
      * Inserting locking row.
      */
     private boolean insertLockingRow() {
+        long leaseTime = database.getPluginConfiguration().getLockLeaseTime();
+
+        String script = leaseTime > 0 ? LEASE_MARKER : "";
+        String installedOn = leaseTime > 0 ? leaseExpiry(leaseTime) : "now()";
+
         // Insert the locking row - the primary keyness of installed_rank will prevent us having two.
-        Results results = jdbcTemplate.executeStatement(
-                "INSERT INTO " + this + " VALUES (-100, '" + tblLockStr + "', 'flyway-lock', '', '', 0, '', now(), 0, TRUE)");
+        Results results = jdbcTemplate.executeStatement("INSERT INTO " + this + " VALUES (" + LOCK_INSTALLED_RANK + ", '"
+                + tblLockStr + "', 'flyway-lock', '', '" + script + "', 0, '', " + installedOn + ", 0, TRUE)");
         // Succeeded if no errors.
         return results.getException() == null;
     }
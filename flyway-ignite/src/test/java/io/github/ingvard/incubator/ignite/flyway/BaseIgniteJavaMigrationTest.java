@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinDatabase;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.ignite.client.ClientCache;
+import org.apache.ignite.client.ClientException;
+import org.apache.ignite.client.IgniteClient;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Java migrations with a thin client.
+ */
+public class BaseIgniteJavaMigrationTest extends AbstractTest {
+    /**
+     * Cache the migration fills.
+     */
+    private static final String CACHE = "JavaMigrationCache";
+
+    /**
+     * The number of entries the migration puts.
+     */
+    private static final int ENTRIES = 250;
+
+    /**
+     * Batch size.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * Should execute a migration by the thin client of the Flyway database.
+     */
+    @Test
+    public void shouldMigrateBySharedClient() throws SQLException {
+        V1__Fill_cache migration = new V1__Fill_cache();
+
+        Flyway fl = Flyway.configure()
+                .dataSource(datasource())
+                .javaMigrations(migration)
+                .configuration(Map.of(IgniteProperty.JAVA_BATCH_SIZE.getKey(), String.valueOf(BATCH_SIZE)))
+                .load();
+
+        MigrateResult res = fl.migrate();
+
+        assertThat(res.success).isTrue();
+        assertThat(res.migrationsExecuted).isEqualTo(1);
+
+        assertThat(migration.shared).isTrue();
+        assertFilled(migration);
+
+        // The shared client is closed together with the database.
+        assertThatThrownBy(() -> migration.client.cacheNames()).isInstanceOf(ClientException.class);
+
+        // The closed database is not registered anymore.
+        assertThat(IgniteThinDatabase.getThinClient(fl.getConfiguration())).isNull();
+    }
+
+    /**
+     * Should execute a migration by its own thin client when there is no open Flyway database.
+     */
+    @Test
+    public void shouldMigrateByOwnClient() throws Exception {
+        V1__Fill_cache migration = new V1__Fill_cache();
+
+        Configuration cfg = Flyway.configure()
+                .dataSource(datasource())
+                .configuration(Map.of(IgniteProperty.JAVA_BATCH_SIZE.getKey(), String.valueOf(BATCH_SIZE)))
+                .load()
+                .getConfiguration();
+
+        try (Connection conn = datasource().getConnection()) {
+            migration.migrate(new Context() {
+                @Override public Configuration getConfiguration() {
+                    return cfg;
+                }
+
+                @Override public Connection getConnection() {
+                    return conn;
+                }
+            });
+        }
+
+        assertThat(migration.shared).isFalse();
+        assertFilled(migration);
+
+        // The own client lives as long as the migration.
+        assertThatThrownBy(() -> migration.client.cacheNames()).isInstanceOf(ClientException.class);
+    }
+
+    /**
+     * Checks the results of the migration.
+     *
+     * @param migration Executed migration.
+     */
+    private void assertFilled(V1__Fill_cache migration) {
+        assertThat(migration.put).isEqualTo(ENTRIES);
+        assertThat(migration.batches).containsExactly(BATCH_SIZE, BATCH_SIZE, ENTRIES - 2 * BATCH_SIZE);
+        assertThat(migration.read).isEqualTo(ENTRIES);
+        assertThat(migration.removed).isEqualTo(ENTRIES / 2);
+
+        assertThat(ignite.cache(CACHE).size()).isEqualTo(ENTRIES - ENTRIES / 2);
+        assertThat(ignite.cache(CACHE).get(ENTRIES - 1)).isEqualTo("val-" + (ENTRIES - 1));
+    }
+
+    /**
+     * Fills a cache by the batched helpers.
+     */
+    // Flyway takes the version and the description from the class name.
+    // CHECKSTYLE:OFF
+    public static class V1__Fill_cache extends BaseIgniteJavaMigration {
+        // CHECKSTYLE:ON
+        /**
+         * Client the migration was executed by.
+         */
+        private IgniteClient client;
+
+        /**
+         * Whether the client is the one of the open Flyway database.
+         */
+        private boolean shared;
+
+        /**
+         * The number of put entries.
+         */
+        private long put;
+
+        /**
+         * Sizes of read batches.
+         */
+        private final List<Integer> batches = new ArrayList<>();
+
+        /**
+         * The number of read entries.
+         */
+        private long read;
+
+        /**
+         * The number of removed entries.
+         */
+        private long removed;
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected void migrate(Context ctx, IgniteClient client) {
+            this.client = client;
+
+            shared = client == IgniteThinDatabase.getThinClient(ctx.getConfiguration());
+
+            ClientCache<Integer, String> cache = client.getOrCreateCache(CACHE);
+            Map<Integer, String> entries = IntStream.range(0, ENTRIES).boxed()
+                    .collect(Collectors.toMap(i -> i, i -> "val-" + i, (a, b) -> a, TreeMap::new));
+
+            put = putAll(cache, entries.entrySet());
+
+            getAll(cache, entries.keySet(), batch -> {
+                batches.add(batch.size());
+
+                read += batch.values().stream().filter(v -> v.startsWith("val-")).count();
+            });
+
+            removed = removeAll(cache, IntStream.range(0, ENTRIES / 2).boxed().collect(Collectors.toList()));
+        }
+    }
+}
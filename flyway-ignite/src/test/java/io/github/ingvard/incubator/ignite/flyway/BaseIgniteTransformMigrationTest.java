@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.compute.EntryTransformer;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.configuration.ThinClientConfiguration;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Java migrations that transform cache entries on server nodes.
+ */
+public class BaseIgniteTransformMigrationTest extends AbstractTest {
+    /**
+     * Cache the migration transforms.
+     */
+    private static final String CACHE = "TransformCache";
+
+    /**
+     * The number of entries in the cache.
+     */
+    private static final int ENTRIES = 300;
+
+    /**
+     * Should update, remove and keep entries according to the transformer.
+     */
+    @Test
+    public void shouldTransformEntries() throws SQLException {
+        IgniteCache<Integer, String> cache = ignite.getOrCreateCache(CACHE);
+
+        cache.putAll(IntStream.range(0, ENTRIES).boxed().collect(Collectors.toMap(i -> i, i -> "val-" + i)));
+
+        MigrateResult res = flyway(new V1__Transform_cache(CACHE)).migrate();
+
+        assertThat(res.success).isTrue();
+        assertThat(res.migrationsExecuted).isEqualTo(1);
+
+        assertThat(cache.size()).isEqualTo(ENTRIES - ENTRIES / 3);
+
+        for (int i = 0; i < ENTRIES; i++) {
+            if (i % 3 == 0) {
+                assertThat(cache.get(i)).isNull();
+            } else if (i % 3 == 1) {
+                assertThat(cache.get(i)).isEqualTo("VAL-" + i);
+            } else {
+                assertThat(cache.get(i)).isEqualTo("val-" + i);
+            }
+        }
+    }
+
+    /**
+     * Should fail the migration if there is no cache to transform.
+     */
+    @Test
+    public void shouldFailOnMissingCache() throws SQLException {
+        Flyway fl = flyway(new V1__Transform_cache("MissingCache"));
+
+        assertThatThrownBy(fl::migrate).isInstanceOf(FlywayException.class)
+                .hasStackTraceContaining("Cache is not found: MissingCache");
+    }
+
+    /**
+     * Creates Flyway with the migration and a small batch size.
+     *
+     * @param migration Migration.
+     */
+    private Flyway flyway(V1__Transform_cache migration) throws SQLException {
+        return Flyway.configure()
+                .dataSource(datasource())
+                .javaMigrations(migration)
+                .configuration(Map.of(IgniteProperty.JAVA_BATCH_SIZE.getKey(), "16"))
+                .load();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        IgniteConfiguration cfg = super.getIgniteConfiguration();
+
+        // The task is started by the thin client of the migration.
+        cfg.getClientConnectorConfiguration().setThinClientConfiguration(
+                new ThinClientConfiguration().setMaxActiveComputeTasksPerConnection(10));
+
+        return cfg;
+    }
+
+    /**
+     * Removes every third entry, upper-cases the next one and keeps the rest.
+     */
+    public static class SampleTransformer implements EntryTransformer<Integer, String> {
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String transform(Integer key, String val) {
+            if (key % 3 == 0) {
+                return null;
+            }
+
+            return key % 3 == 1 ? val.toUpperCase(Locale.ROOT) : val;
+        }
+    }
+
+    /**
+     * Transforms a cache by {@link SampleTransformer}.
+     */
+    // Flyway takes the version and the description from the class name.
+    // CHECKSTYLE:OFF
+    public static class V1__Transform_cache extends BaseIgniteTransformMigration {
+        // CHECKSTYLE:ON
+        /**
+         * Cache name.
+         */
+        private final String cacheName;
+
+        /**
+         * @param cacheName Cache name.
+         */
+        V1__Transform_cache(String cacheName) {
+            this.cacheName = cacheName;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected String cacheName() {
+            return cacheName;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected Class<? extends EntryTransformer<?, ?>> transformer() {
+            return SampleTransformer.class;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected boolean keepBinary() {
+            return false;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        protected int jobsPerNode() {
+            return 4;
+        }
+    }
+}
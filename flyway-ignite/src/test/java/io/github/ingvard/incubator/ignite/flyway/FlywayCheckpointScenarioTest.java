@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinCheckpoints;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Scenarios of chunked data migrations that are retried after a failure.
+ */
+public class FlywayCheckpointScenarioTest extends AbstractTest {
+    /**
+     * The number of rows of the table.
+     */
+    private static final int ROWS = 25;
+
+    /**
+     * Key of the row that fails the second statement until it is fixed.
+     */
+    private static final int FAILING_ID = 15;
+
+    /**
+     * Checkpoint table.
+     */
+    private static final String CHECKPOINTS = "\"flyway_schema_history" + IgniteThinCheckpoints.TABLE_SUFFIX + "\"";
+
+    /**
+     * Migrations directory.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Should skip a completed chunked statement and resume a failed one after its last chunk when the migration is
+     * retried, the checkpoints are removed once the migration succeeds.
+     */
+    @Test
+    public void shouldResumeFailedMigration() throws SQLException, IOException {
+        Files.writeString(dir.resolve("V1__create_pets.sql"),
+                "CREATE TABLE Pet (id INT PRIMARY KEY, cnt INT, visits INT, flag INT);");
+        Files.writeString(dir.resolve("V2__count_visits.sql"),
+                "UPDATE /* ignite:chunked */ Pet SET cnt = cnt + 1;\n"
+                        + "\n"
+                        + "UPDATE /* ignite:chunked */ Pet SET visits = visits + 1 / flag;\n");
+
+        flyway().target("1").load().migrate();
+
+        for (int i = 0; i < ROWS; i++) {
+            execute("INSERT INTO Pet (id, cnt, visits, flag) VALUES (" + i + ", 0, 0, " + (i == FAILING_ID ? 0 : 1) + ")");
+        }
+
+        // The second chunk of the second statement fails by division by zero.
+        assertThatThrownBy(() -> flyway().load().migrate()).isInstanceOf(FlywayException.class);
+
+        assertThat(queryForInt("SELECT COUNT(*) FROM " + CHECKPOINTS)).isEqualTo(2);
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE cnt = 1")).isEqualTo(ROWS);
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE visits = 1 AND id < 10")).isEqualTo(10);
+
+        execute("UPDATE Pet SET flag = 1 WHERE id = " + FAILING_ID);
+
+        Flyway fl = flyway().load();
+
+        fl.repair();
+
+        assertThat(fl.migrate().migrationsExecuted).isEqualTo(1);
+
+        // Neither the completed statement nor the completed chunk is executed again.
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE cnt = 1")).isEqualTo(ROWS);
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE visits = 1 AND id < 10")).isEqualTo(10);
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE visits = 1 AND id >= 20")).isEqualTo(5);
+
+        assertThat(queryForInt("SELECT COUNT(*) FROM " + CHECKPOINTS)).isZero();
+    }
+
+    /**
+     * Should execute a chunked statement from the start if it was changed after the failed attempt, even though the
+     * statement stays at the same line.
+     */
+    @Test
+    public void shouldRestartChangedStatement() throws SQLException, IOException {
+        Files.writeString(dir.resolve("V1__create_pets.sql"),
+                "CREATE TABLE Pet (id INT PRIMARY KEY, cnt INT, visits INT, flag INT);");
+        Files.writeString(dir.resolve("V2__count_visits.sql"),
+                "UPDATE /* ignite:chunked */ Pet SET visits = visits + 1 / flag;\n");
+
+        flyway().target("1").load().migrate();
+
+        for (int i = 0; i < ROWS; i++) {
+            execute("INSERT INTO Pet (id, cnt, visits, flag) VALUES (" + i + ", 0, 0, " + (i == FAILING_ID ? 0 : 1) + ")");
+        }
+
+        assertThatThrownBy(() -> flyway().load().migrate()).isInstanceOf(FlywayException.class);
+
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE visits = 1 AND id < 10")).isEqualTo(10);
+
+        // The same line with another statement, the checkpoint of the first chunk doesn't apply to it.
+        Files.writeString(dir.resolve("V2__count_visits.sql"),
+                "UPDATE /* ignite:chunked */ Pet SET visits = visits + 2 / flag;\n");
+
+        execute("UPDATE Pet SET flag = 1 WHERE id = " + FAILING_ID);
+
+        Flyway fl = flyway().load();
+
+        fl.repair();
+
+        assertThat(fl.migrate().migrationsExecuted).isEqualTo(1);
+
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE visits = 3 AND id < 10")).isEqualTo(10);
+        assertThat(queryForInt("SELECT COUNT(*) FROM Pet WHERE visits = 2 AND id >= 10")).isEqualTo(ROWS - 10);
+    }
+
+    /**
+     * Flyway of the scenario with checkpoints of chunks of 10 rows.
+     */
+    private FluentConfiguration flyway() throws SQLException {
+        return Flyway.configure()
+                .locations("filesystem:" + dir)
+                .dataSource(datasource())
+                .configuration(Map.of(
+                        IgniteProperty.CHUNK_SIZE.getKey(), "10",
+                        IgniteProperty.CHECKPOINT_ENABLED.getKey(), "true"
+                ));
+    }
+
+    /**
+     * Executes a statement.
+     *
+     * @param sql Statement.
+     */
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Executes a query with a single int value.
+     *
+     * @param sql Query.
+     */
+    private int queryForInt(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertThat(rs.next()).isTrue();
+
+            return rs.getInt(1);
+        }
+    }
+}
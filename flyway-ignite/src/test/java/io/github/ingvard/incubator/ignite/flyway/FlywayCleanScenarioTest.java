@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.CleanStrategy;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.compute.DestroyCachesTask;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinReset;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinResetResult;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.ignite.IgniteCheckedException;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.configuration.ThinClientConfiguration;
+import org.apache.ignite.events.EventType;
+import org.apache.ignite.events.TaskEvent;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Clean and reset scenarios.
+ */
+public class FlywayCleanScenarioTest extends AbstractTest {
+    /**
+     * Tables of the scenario.
+     */
+    private static final String TABLES = "SELECT TABLE_NAME FROM SYS.TABLES WHERE SCHEMA_NAME = 'PUBLIC'";
+
+    /**
+     * Names of finished tasks.
+     */
+    private final Set<String> tasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether the thin client may start compute tasks.
+     */
+    private boolean thinCompute = true;
+
+    /**
+     * Should drop all tables over several connections.
+     */
+    @Test
+    public void shouldCleanInParallel() throws SQLException {
+        Flyway fl = flyway(Map.of(IgniteProperty.CLEAN_PARALLELISM.getKey(), "4"));
+
+        fl.migrate();
+
+        assertThat(query(TABLES)).contains("PET", "VISIT", "OWNER", "CITY");
+
+        fl.clean();
+
+        assertThat(query(TABLES)).isEmpty();
+        assertThat(ignite.cacheNames()).isEmpty();
+
+        assertThat(fl.migrate().migrationsExecuted).isEqualTo(2);
+        assertThat(query("SELECT name FROM Pet ORDER BY id")).containsExactly("Rex", "Tom");
+    }
+
+    /**
+     * Should destroy the caches of a shared cache group by one task and drop the other tables one by one.
+     */
+    @Test
+    public void shouldCleanByCacheGroups() throws SQLException {
+        Flyway fl = flyway(Map.of(IgniteProperty.CLEAN_STRATEGY.getKey(), CleanStrategy.CACHE_GROUP.name()));
+
+        fl.migrate();
+
+        listenTasks();
+
+        fl.clean();
+
+        assertThat(tasks).contains(DestroyCachesTask.class.getName());
+        assertThat(query(TABLES)).isEmpty();
+        assertThat(ignite.cacheNames()).isEmpty();
+    }
+
+    /**
+     * Should drop the tables of a shared cache group one by one if the thin client can't start the task.
+     */
+    @Test
+    public void shouldCleanCacheGroupsWithoutCompute() throws SQLException, IgniteCheckedException {
+        tearDown();
+
+        thinCompute = false;
+
+        setUp();
+
+        Flyway fl = flyway(Map.of(IgniteProperty.CLEAN_STRATEGY.getKey(), CleanStrategy.CACHE_GROUP.name()));
+
+        fl.migrate();
+
+        listenTasks();
+
+        fl.clean();
+
+        assertThat(tasks).doesNotContain(DestroyCachesTask.class.getName());
+        assertThat(query(TABLES)).isEmpty();
+        assertThat(ignite.cacheNames()).isEmpty();
+    }
+
+    /**
+     * Should remove the rows of all tables but the schema history and keep the tables and their caches.
+     */
+    @Test
+    public void shouldResetData() throws SQLException {
+        Flyway fl = flyway(Map.of());
+
+        fl.migrate();
+
+        Collection<String> caches = new HashSet<>(ignite.cacheNames());
+
+        IgniteThinResetResult res = IgniteThinReset.reset(fl.getConfiguration());
+
+        assertThat(res.tablesCleared).isEqualTo(4);
+        assertThat(res.migrationsRemoved).isZero();
+        assertThat(ignite.cacheNames()).containsExactlyInAnyOrderElementsOf(caches);
+        assertThat(query(TABLES)).contains("PET", "VISIT", "OWNER", "CITY");
+
+        for (String tbl : List.of("Pet", "Visit", "Owner", "City")) {
+            assertThat(query("SELECT COUNT(*) FROM " + tbl)).as(tbl).containsExactly("0");
+        }
+
+        assertThat(query("SELECT COUNT(*) FROM \"flyway_schema_history\"")).containsExactly("2");
+        assertThat(fl.migrate().migrationsExecuted).isZero();
+    }
+
+    /**
+     * Should remove the schema history above the reset version, so the next migrate applies those migrations again.
+     */
+    @Test
+    public void shouldResetToVersion() throws SQLException {
+        Flyway fl = flyway(Map.of(IgniteProperty.RESET_VERSION.getKey(), "1"));
+
+        fl.migrate();
+
+        IgniteThinResetResult res = IgniteThinReset.reset(fl.getConfiguration());
+
+        assertThat(res.migrationsRemoved).isEqualTo(1);
+        assertThat(query("SELECT COUNT(*) FROM Pet")).containsExactly("0");
+
+        assertThat(fl.migrate().migrationsExecuted).isEqualTo(1);
+        assertThat(query("SELECT name FROM Pet ORDER BY id")).containsExactly("Rex", "Tom");
+    }
+
+    /**
+     * Should refuse to reset the schemas when clean is disabled.
+     */
+    @Test
+    public void shouldNotResetWhenCleanDisabled() throws SQLException {
+        flyway(Map.of()).migrate();
+
+        Flyway fl = Flyway.configure()
+                .locations("/db/scenario/clean")
+                .dataSource(datasource())
+                .load();
+
+        assertThatThrownBy(() -> IgniteThinReset.reset(fl.getConfiguration())).isInstanceOf(FlywayException.class)
+                .hasMessageContaining("cleanDisabled");
+
+        assertThat(query("SELECT COUNT(*) FROM Pet")).containsExactly("2");
+    }
+
+    /**
+     * Flyway of the scenario.
+     *
+     * @param props Plugin properties.
+     */
+    private Flyway flyway(Map<String, String> props) throws SQLException {
+        return Flyway.configure()
+                .locations("/db/scenario/clean")
+                .dataSource(datasource())
+                .cleanDisabled(false)
+                .configuration(props)
+                .load();
+    }
+
+    /**
+     * Listens to finished tasks.
+     */
+    private void listenTasks() {
+        ignite.events().localListen(evt -> {
+            tasks.add(((TaskEvent) evt).taskName());
+
+            return true;
+        }, EventType.EVT_TASK_FINISHED);
+    }
+
+    /**
+     * Executes a query with a single string column.
+     *
+     * @param sql Query.
+     */
+    private List<String> query(String sql) throws SQLException {
+        List<String> res = new ArrayList<>();
+
+        try (Connection conn = datasource().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                res.add(rs.getString(1));
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        IgniteConfiguration cfg = super.getIgniteConfiguration().setIncludeEventTypes(EventType.EVT_TASK_FINISHED);
+
+        // The task is started by the thin client of the clean.
+        cfg.getClientConnectorConfiguration().setThinClientConfiguration(
+                new ThinClientConfiguration().setMaxActiveComputeTasksPerConnection(thinCompute ? 10 : 0));
+
+        return cfg;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Scenarios of {@code COPY FROM} statements with files next to the migration scripts.
+ */
+public class FlywayCopyScenarioTest extends AbstractTest {
+    /**
+     * Migration that loads {@code pets.csv}.
+     */
+    private static final String SCRIPT = "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);\n"
+            + "COPY FROM 'pets.csv' INTO Pet (id, name) FORMAT CSV;\n";
+
+    /**
+     * Directory of filesystem migrations.
+     */
+    @TempDir
+    Path dir;
+
+    /**
+     * Should load a file next to a classpath migration.
+     */
+    @Test
+    public void shouldCopyFileNextToClasspathMigration() throws SQLException {
+        MigrateResult res = Flyway.configure()
+                .locations("/db/scenario/copy")
+                .dataSource(datasource())
+                .load()
+                .migrate();
+
+        assertThat(res.success).isTrue();
+        assertThat(query("SELECT name FROM Pet ORDER BY id")).containsExactly("Rex", "Tom", "Bella");
+    }
+
+    /**
+     * Should load a file next to a filesystem migration.
+     */
+    @Test
+    public void shouldCopyFileNextToFilesystemMigration() throws SQLException, IOException {
+        Files.writeString(dir.resolve("V1__load_pets.sql"), SCRIPT);
+        Files.writeString(dir.resolve("pets.csv"), "1,Rex\n2,Tom\n");
+
+        MigrateResult res = migrate();
+
+        assertThat(res.success).isTrue();
+        assertThat(query("SELECT name FROM Pet ORDER BY id")).containsExactly("Rex", "Tom");
+    }
+
+    /**
+     * Should fail the migration if the file is found neither next to the script nor in the working directory.
+     */
+    @Test
+    public void shouldFailOnMissingFile() throws IOException {
+        Files.writeString(dir.resolve("V1__load_pets.sql"), SCRIPT);
+
+        assertThatThrownBy(this::migrate).isInstanceOf(FlywayException.class).hasMessageContaining("pets.csv");
+    }
+
+    /**
+     * Migrates the filesystem migrations.
+     */
+    private MigrateResult migrate() throws SQLException {
+        return Flyway.configure()
+                .locations("filesystem:" + dir)
+                .dataSource(datasource())
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Executes a query with a single string column.
+     *
+     * @param sql Query.
+     */
+    private List<String> query(String sql) throws SQLException {
+        List<String> res = new ArrayList<>();
+
+        try (Connection conn = datasource().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                res.add(rs.getString(1));
+            }
+        }
+
+        return res;
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.compute.CreateTablesTask;
+import io.github.ingvard.incubator.ignite.flyway.compute.TableDefinition;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.ignite.cache.QueryEntity;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.configuration.ThinClientConfiguration;
+import org.apache.ignite.events.EventType;
+import org.apache.ignite.events.TaskEvent;
+import org.apache.ignite.internal.processors.query.QueryEntityEx;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Scenarios of {@code CREATE TABLE} statements coalesced into one {@link CreateTablesTask}: the tables must be
+ * indistinguishable from the tables created by the SQL engine.
+ */
+public class FlywayCreateTablesScenarioTest extends AbstractTest {
+    /**
+     * Tables of the scenario.
+     */
+    private static final List<String> TABLES = List.of("PERSON", "CITY", "TAG");
+
+    /**
+     * Random part of the type names generated by {@code CREATE TABLE}.
+     */
+    private static final String RANDOM_SUFFIX = "_[0-9a-fA-F]{8}(_[0-9a-fA-F]{4}){3}_[0-9a-fA-F]{12}";
+
+    /**
+     * Names of finished tasks.
+     */
+    private final Set<String> tasks = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Should create tables that match the tables created by the SQL engine and can be dropped by {@code DROP TABLE}.
+     */
+    @Test
+    public void shouldCreateTablesLikeSqlEngine() throws SQLException {
+        listenTasks();
+
+        migrate(true, "history_task");
+
+        assertThat(tasks).contains(CreateTablesTask.class.getName());
+
+        Map<String, Map<String, String>> byTask = describe();
+
+        dropTables();
+
+        tasks.clear();
+
+        migrate(false, "history_sql");
+
+        assertThat(tasks).doesNotContain(CreateTablesTask.class.getName());
+
+        Map<String, Map<String, String>> bySql = describe();
+
+        dropTables();
+
+        assertThat(byTask).isEqualTo(bySql);
+    }
+
+    /**
+     * Should create tables that accept data.
+     */
+    @Test
+    public void shouldCreateUsableTables() throws SQLException {
+        migrate(true, "history_task");
+
+        execute("INSERT INTO Person (id, orgId, name, salary) VALUES (1, 10, 'John', 100.50)");
+        execute("INSERT INTO City (id, name) VALUES (1, 'Paris')");
+        execute("INSERT INTO Tag (id, label) VALUES (1, 'pet')");
+
+        assertThat(query("SELECT name FROM Person WHERE orgId = 10")).containsExactly("John");
+        assertThat(query("SELECT name FROM City")).containsExactly("Paris");
+        assertThat(query("SELECT label FROM Tag")).containsExactly("pet");
+
+        dropTables();
+    }
+
+    /**
+     * Should fall back to {@code CREATE TABLE} statements if the cache start request fails, here because a cache of
+     * the request already exists.
+     */
+    @Test
+    public void shouldFallBackToStatements() throws SQLException {
+        execute("CREATE TABLE City (id INT PRIMARY KEY, name VARCHAR)");
+
+        TableDefinition city = new TableDefinition("PUBLIC", "CITY");
+
+        city.getColumns().put("ID", Integer.class.getName());
+        city.getColumns().put("NAME", String.class.getName());
+        city.getKeyColumns().add("ID");
+        city.setSql("CREATE TABLE City (id INT PRIMARY KEY, name VARCHAR)");
+
+        TableDefinition tag = new TableDefinition("PUBLIC", "TAG");
+
+        tag.getColumns().put("ID", Integer.class.getName());
+        tag.getColumns().put("LABEL", String.class.getName());
+        tag.getKeyColumns().add("ID");
+        tag.setSql("CREATE TABLE Tag (id INT PRIMARY KEY, label VARCHAR)");
+
+        ignite.compute().execute(new CreateTablesTask(), List.of(city, tag));
+
+        execute("INSERT INTO Tag (id, label) VALUES (1, 'pet')");
+
+        assertThat(query("SELECT label FROM Tag")).containsExactly("pet");
+
+        execute("DROP TABLE City");
+        execute("DROP TABLE Tag");
+    }
+
+    /**
+     * Migrates the scenario.
+     *
+     * @param coalesce Whether {@code CREATE TABLE} statements are coalesced.
+     * @param history  Schema history table.
+     */
+    private void migrate(boolean coalesce, String history) throws SQLException {
+        Flyway.configure()
+                .locations("/db/scenario/createtables")
+                .dataSource(datasource())
+                .table(history)
+                .configuration(Map.of(IgniteProperty.DDL_COALESCE_CREATE_TABLES.getKey(), String.valueOf(coalesce)))
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Drops the tables of the scenario and checks that they are gone with their caches.
+     */
+    private void dropTables() throws SQLException {
+        for (String tbl : TABLES) {
+            execute("DROP TABLE " + tbl);
+        }
+
+        assertThat(query("SELECT TABLE_NAME FROM SYS.TABLES WHERE SCHEMA_NAME = 'PUBLIC' AND TABLE_NAME IN "
+                + "('PERSON', 'CITY', 'TAG')")).isEmpty();
+        assertThat(ignite.cacheNames()).doesNotContain("SQL_PUBLIC_PERSON", "SQL_PUBLIC_CITY", "SQL_PUBLIC_TAG");
+    }
+
+    /**
+     * Describes the tables of the scenario by the SQL views and the cache configurations, the random parts of type
+     * names are cut off.
+     */
+    private Map<String, Map<String, String>> describe() throws SQLException {
+        Map<String, Map<String, String>> res = new LinkedHashMap<>();
+
+        for (String tbl : TABLES) {
+            Map<String, String> desc = new LinkedHashMap<>();
+
+            desc.putAll(row("SELECT CACHE_NAME, CACHE_GROUP_NAME, AFFINITY_KEY_COLUMN, KEY_ALIAS, VALUE_ALIAS, "
+                    + "KEY_TYPE_NAME, VALUE_TYPE_NAME FROM SYS.TABLES WHERE SCHEMA_NAME = 'PUBLIC' AND TABLE_NAME = ?", tbl));
+
+            assertThat(desc).as("SYS.TABLES of " + tbl).isNotEmpty();
+
+            for (String col : query("SELECT COLUMN_NAME FROM SYS.TABLE_COLUMNS WHERE SCHEMA_NAME = 'PUBLIC' AND TABLE_NAME = '"
+                    + tbl + "' ORDER BY COLUMN_NAME")) {
+                row("SELECT TYPE, PK, AFFINITY_COLUMN, NULLABLE, PRECISION, SCALE FROM SYS.TABLE_COLUMNS "
+                        + "WHERE SCHEMA_NAME = 'PUBLIC' AND TABLE_NAME = '" + tbl + "' AND COLUMN_NAME = ?", col)
+                        .forEach((k, v) -> desc.put(col + "." + k, v));
+            }
+
+            String cacheName = desc.get("CACHE_NAME");
+            CacheConfiguration<?, ?> ccfg = ignite.cachex(cacheName).configuration();
+            QueryEntity entity = ccfg.getQueryEntities().iterator().next();
+
+            desc.put("sql", String.valueOf(ignite.context().cache().cacheDescriptor(cacheName).sql()));
+            desc.put("cacheMode", String.valueOf(ccfg.getCacheMode()));
+            desc.put("backups", String.valueOf(ccfg.getBackups()));
+            desc.put("atomicity", String.valueOf(ccfg.getAtomicityMode()));
+            desc.put("writeSynchronization", String.valueOf(ccfg.getWriteSynchronizationMode()));
+            desc.put("group", ccfg.getGroupName());
+            desc.put("sqlSchema", ccfg.getSqlSchema());
+            desc.put("sqlEscapeAll", String.valueOf(ccfg.isSqlEscapeAll()));
+            desc.put("queryParallelism", String.valueOf(ccfg.getQueryParallelism()));
+            desc.put("keyConfiguration", ccfg.getKeyConfiguration() == null ? null : Arrays.toString(
+                    Arrays.stream(ccfg.getKeyConfiguration()).map(k -> k.getTypeName() + ":" + k.getAffinityKeyFieldName()).toArray()));
+            desc.put("tableName", entity.getTableName());
+            desc.put("keyType", entity.getKeyType());
+            desc.put("valueType", entity.getValueType());
+            desc.put("fields", String.valueOf(entity.getFields()));
+            desc.put("keyFields", String.valueOf(entity.getKeyFields()));
+            desc.put("keyFieldName", entity.getKeyFieldName());
+            desc.put("valueFieldName", entity.getValueFieldName());
+            desc.put("notNullFields", String.valueOf(entity.getNotNullFields()));
+            desc.put("precision", String.valueOf(entity.getFieldsPrecision()));
+            desc.put("scale", String.valueOf(entity.getFieldsScale()));
+            desc.put("preserveKeysOrder",
+                    String.valueOf(entity instanceof QueryEntityEx && ((QueryEntityEx) entity).isPreserveKeysOrder()));
+
+            desc.replaceAll((k, v) -> v == null ? null : v.replaceAll(RANDOM_SUFFIX, ""));
+
+            res.put(tbl, desc);
+        }
+
+        return res;
+    }
+
+    /**
+     * Listens to finished tasks.
+     */
+    private void listenTasks() {
+        ignite.events().localListen(evt -> {
+            tasks.add(((TaskEvent) evt).taskName());
+
+            return true;
+        }, EventType.EVT_TASK_FINISHED);
+    }
+
+    /**
+     * Executes a statement.
+     *
+     * @param sql Statement.
+     */
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Executes a query with a single string column.
+     *
+     * @param sql Query.
+     */
+    private List<String> query(String sql) throws SQLException {
+        List<String> res = new ArrayList<>();
+
+        try (Connection conn = datasource().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            while (rs.next()) {
+                res.add(rs.getString(1));
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * Reads the first row of a query by column names.
+     *
+     * @param sql   Query with one parameter.
+     * @param param Parameter.
+     */
+    private Map<String, String> row(String sql, String param) throws SQLException {
+        Map<String, String> res = new LinkedHashMap<>();
+
+        try (Connection conn = datasource().getConnection(); PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, param);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    ResultSetMetaData meta = rs.getMetaData();
+
+                    for (int i = 1; i <= meta.getColumnCount(); i++) {
+                        res.put(meta.getColumnLabel(i), rs.getString(i));
+                    }
+                }
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        IgniteConfiguration cfg = super.getIgniteConfiguration().setIncludeEventTypes(EventType.EVT_TASK_FINISHED);
+
+        // The task is started by the thin client of the migration.
+        cfg.getClientConnectorConfiguration()
+                .setThinClientConfiguration(new ThinClientConfiguration().setMaxActiveComputeTasksPerConnection(10));
+
+        return cfg;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.apache.ignite.IgniteCheckedException;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Scenarios of the on-disk schema history cache.
+ */
+public class FlywayHistoryCacheScenarioTest extends AbstractTest {
+    /**
+     * Cache directory.
+     */
+    @TempDir
+    Path cacheDir;
+
+    /**
+     * Migrations directory.
+     */
+    @TempDir
+    Path migrationsDir;
+
+    /**
+     * Should read the history changed by {@code repair} even if the count and the checksums of the rows are the same.
+     */
+    @Test
+    public void shouldReadHistoryChangedByRepair() throws Exception {
+        Files.writeString(migrationsDir.resolve("V1__first.sql"), "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);");
+        Files.writeString(migrationsDir.resolve("V2__second.sql"), "CREATE TABLE Owner (id INT PRIMARY KEY, name VARCHAR);");
+
+        flyway().migrate();
+
+        // Fills the cache.
+        assertThat(flyway().info().applied()).extracting(MigrationInfo::getDescription).containsExactly("first", "second");
+
+        // The checksum stays the same, only the description changes.
+        Files.move(migrationsDir.resolve("V1__first.sql"), migrationsDir.resolve("V1__renamed.sql"));
+
+        flyway().repair();
+
+        assertThat(flyway().info().applied()).extracting(MigrationInfo::getDescription).containsExactly("renamed", "second");
+        assertThat(flyway().validateWithResult().validationSuccessful).isTrue();
+    }
+
+    /**
+     * Should read the history of a reset cluster that has the same migrations applied again.
+     */
+    @Test
+    public void shouldReadHistoryOfResetCluster() throws Exception {
+        Files.writeString(migrationsDir.resolve("V1__first.sql"), "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);");
+
+        flyway().migrate();
+
+        MigrationInfo before = flyway().info().applied()[0];
+
+        resetCluster();
+
+        // The same history is recorded again, only the installation time differs.
+        Thread.sleep(10);
+
+        flyway().migrate();
+
+        MigrationInfo after = flyway().info().applied()[0];
+
+        assertThat(after.getChecksum()).isEqualTo(before.getChecksum());
+        assertThat(after.getInstalledOn()).isAfter(before.getInstalledOn());
+    }
+
+    /**
+     * Should ignore a cache file that isn't a cache written by the plugin.
+     */
+    @Test
+    public void shouldIgnoreForeignCacheFile() throws Exception {
+        Files.writeString(migrationsDir.resolve("V1__first.sql"), "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);");
+
+        flyway().migrate();
+        flyway().info();
+
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.write(file, new byte[] {(byte) 0xAC, (byte) 0xED, 0, 5});
+            }
+        }
+
+        assertThat(flyway().info().applied()).extracting(MigrationInfo::getDescription).containsExactly("first");
+    }
+
+    /**
+     * Should serve the schema history read of Flyway from the cache: the table is registered when Flyway gets it from
+     * the schema, not when the select statement is built.
+     */
+    @Test
+    public void shouldCacheHistoryRead() throws Exception {
+        Files.writeString(migrationsDir.resolve("V1__first.sql"), "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);");
+
+        flyway().migrate();
+        flyway().info();
+
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            assertThat(files.map(file -> file.getFileName().toString())).anyMatch(name -> name.startsWith("flyway-ignite-history-"));
+        }
+    }
+
+    /**
+     * Creates Flyway with the history cache.
+     */
+    private Flyway flyway() throws SQLException {
+        return Flyway.configure()
+                .locations("filesystem:" + migrationsDir)
+                .dataSource(datasource())
+                .configuration(Map.of(IgniteProperty.HISTORY_CACHE_DIR.getKey(), cacheDir.toString()))
+                .load();
+    }
+
+    /**
+     * Restarts the node with a clean work directory, the cache directory is kept.
+     */
+    private void resetCluster() throws IgniteCheckedException {
+        tearDown();
+        setUp();
+    }
+}
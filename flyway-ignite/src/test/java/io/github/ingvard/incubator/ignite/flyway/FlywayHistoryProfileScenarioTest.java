@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinDatabaseType;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import org.apache.ignite.cache.CacheAtomicityMode;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.cache.CacheWriteSynchronizationMode;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.DataRegionConfiguration;
+import org.apache.ignite.configuration.DataStorageConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Scenarios of the schema history table storage profile.
+ */
+public class FlywayHistoryProfileScenarioTest extends AbstractTest {
+    /**
+     * Data region of the schema history table.
+     */
+    private static final String HISTORY_REGION = "history";
+
+    /**
+     * Should create the schema history table with the default profile.
+     */
+    @Test
+    public void shouldCreateHistoryWithDefaultProfile() throws SQLException {
+        flyway(Map.of()).migrate();
+
+        CacheConfiguration<?, ?> cfg = historyCacheConfiguration();
+
+        assertThat(cfg.getCacheMode()).isEqualTo(CacheMode.REPLICATED);
+        assertThat(cfg.getAtomicityMode()).isEqualTo(CacheAtomicityMode.ATOMIC);
+        assertThat(cfg.getGroupName()).isNull();
+
+        assertThat(inlineSize("flyway_schema_history_s_idx")).isPositive();
+        assertThat(inlineSize("flyway_schema_history_lock_idx")).isNull();
+    }
+
+    /**
+     * Should create the schema history table with the configured profile and the lock index.
+     */
+    @Test
+    public void shouldCreateHistoryWithConfiguredProfile() throws SQLException {
+        flyway(Map.of(
+                IgniteProperty.HISTORY_TEMPLATE.getKey(), "PARTITIONED",
+                IgniteProperty.HISTORY_BACKUPS.getKey(), "2",
+                IgniteProperty.HISTORY_ATOMICITY.getKey(), "transactional",
+                IgniteProperty.HISTORY_WRITE_SYNCHRONIZATION_MODE.getKey(), "full_sync",
+                IgniteProperty.HISTORY_DATA_REGION.getKey(), HISTORY_REGION,
+                IgniteProperty.HISTORY_CACHE_GROUP.getKey(), "history_group",
+                IgniteProperty.HISTORY_INLINE_SIZE.getKey(), "48",
+                IgniteProperty.HISTORY_LOCK_INDEX.getKey(), "true"
+        )).migrate();
+
+        CacheConfiguration<?, ?> cfg = historyCacheConfiguration();
+
+        assertThat(cfg.getCacheMode()).isEqualTo(CacheMode.PARTITIONED);
+        assertThat(cfg.getBackups()).isEqualTo(2);
+        assertThat(cfg.getAtomicityMode()).isEqualTo(CacheAtomicityMode.TRANSACTIONAL);
+        assertThat(cfg.getWriteSynchronizationMode()).isEqualTo(CacheWriteSynchronizationMode.FULL_SYNC);
+        assertThat(cfg.getDataRegionName()).isEqualTo(HISTORY_REGION);
+        assertThat(cfg.getGroupName()).isEqualTo("history_group");
+
+        assertThat(inlineSize("flyway_schema_history_s_idx")).isEqualTo(48);
+        assertThat(inlineSize("flyway_schema_history_lock_idx")).isEqualTo(48);
+
+        // The history in the dedicated region is still read back.
+        assertThat(flyway(Map.of()).info().applied()).hasSize(2);
+    }
+
+    /**
+     * Creates Flyway with the given plugin properties.
+     *
+     * @param props Plugin properties.
+     */
+    private Flyway flyway(Map<String, String> props) throws SQLException {
+        return Flyway.configure()
+                .locations("/db/scenario/base")
+                .dataSource(datasource())
+                .configuration(props)
+                .load();
+    }
+
+    /**
+     * Gets configuration of the schema history cache.
+     */
+    private CacheConfiguration<?, ?> historyCacheConfiguration() {
+        return ignite.cache(FLYWAY_SCHEMA_HISTORY_NAME).getConfiguration(CacheConfiguration.class);
+    }
+
+    /**
+     * Gets inline size of the index or {@code null} if there is no such index.
+     *
+     * @param idxName Index name.
+     */
+    private Integer inlineSize(String idxName) throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+            String size = jdbcTemplate.queryForString("SELECT INLINE_SIZE FROM SYS.INDEXES WHERE INDEX_NAME = ?", idxName);
+
+            return size == null ? null : Integer.valueOf(size);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        return super.getIgniteConfiguration().setDataStorageConfiguration(new DataStorageConfiguration()
+                .setDataRegionConfigurations(new DataRegionConfiguration()
+                        .setName(HISTORY_REGION)
+                        .setInitialSize(20L * 1024 * 1024)
+                        .setMaxSize(64L * 1024 * 1024)));
+    }
+}
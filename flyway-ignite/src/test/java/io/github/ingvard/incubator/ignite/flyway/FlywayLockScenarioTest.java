@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.LockWaitMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Schema history lock scenarios with several Flyway instances.
+ */
+public class FlywayLockScenarioTest extends AbstractTest {
+    /**
+     * The number of statements executed after the lease is lost.
+     */
+    private static final int STATEMENTS = 2_000;
+
+    /**
+     * Should let contending instances that wait for the lock by a continuous query apply every migration once.
+     */
+    @Test
+    public void shouldMigrateConcurrentlyWithContinuousQueryWait() throws Exception {
+        // Creates the schema history table.
+        Flyway.configure()
+                .locations("/db/scenario/base")
+                .target("1")
+                .dataSource(datasource())
+                .load()
+                .migrate();
+
+        int instances = 4;
+        ExecutorService exec = Executors.newFixedThreadPool(instances);
+
+        try {
+            List<Future<MigrateResult>> futs = new ArrayList<>();
+
+            for (int i = 0; i < instances; i++) {
+                futs.add(exec.submit(() -> Flyway.configure()
+                        .locations("/db/scenario/base")
+                        .dataSource(datasource())
+                        .configuration(Map.of(IgniteProperty.LOCK_WAIT_MODE.getKey(), LockWaitMode.CONTINUOUS_QUERY.name()))
+                        .load()
+                        .migrate()));
+            }
+
+            int executed = 0;
+
+            for (Future<MigrateResult> fut : futs) {
+                MigrateResult res = fut.get(1, TimeUnit.MINUTES);
+
+                assertThat(res.success).isTrue();
+
+                executed += res.migrationsExecuted;
+            }
+
+            assertThat(executed).isEqualTo(1);
+            assertThat(count("SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"installed_rank\" < 0")).isZero();
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    /**
+     * Should skip the lock once another instance applies the awaited version.
+     */
+    @Test
+    public void shouldSkipLockWhenVersionIsApplied() throws Exception {
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<MigrateResult> follower = exec.submit(() -> Flyway.configure()
+                    .locations("/db/scenario/base")
+                    .dataSource(datasource())
+                    .configuration(Map.of(IgniteProperty.LOCK_WAIT_FOR_VERSION.getKey(), "2"))
+                    .load()
+                    .migrate());
+
+            MigrateResult leader = Flyway.configure()
+                    .locations("/db/scenario/base")
+                    .dataSource(datasource())
+                    .load()
+                    .migrate();
+
+            assertThat(leader.migrationsExecuted).isEqualTo(2);
+
+            MigrateResult res = follower.get(1, TimeUnit.MINUTES);
+
+            assertThat(res.success).isTrue();
+            assertThat(res.migrationsExecuted).isZero();
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    /**
+     * Should fail before any migration is executed if the instance has migrations above the awaited version.
+     */
+    @Test
+    public void shouldFailBeforeMigratingAboveAwaitedVersion() throws Exception {
+        Flyway.configure()
+                .locations("/db/scenario/base")
+                .dataSource(datasource())
+                .load()
+                .migrate();
+
+        Flyway follower = Flyway.configure()
+                .locations("/db/scenario/base", "/db/scenario/waitforversion")
+                .dataSource(datasource())
+                .configuration(Map.of(IgniteProperty.LOCK_WAIT_FOR_VERSION.getKey(), "2"))
+                .load();
+
+        assertThatThrownBy(follower::migrate)
+                .isInstanceOf(FlywayException.class)
+                .hasStackTraceContaining("pending migrations");
+
+        assertThat(ignite.cacheNames()).doesNotContain("VisitCache");
+        assertThat(follower.info().current().getVersion().getVersion()).isEqualTo("2");
+        assertThat(follower.info().pending()).hasSize(1);
+    }
+
+    /**
+     * Should reject a heartbeat interval that doesn't extend the lease before it expires.
+     */
+    @Test
+    public void shouldRejectHeartbeatIntervalNotLessThanLease() {
+        assertThatThrownBy(() -> Flyway.configure()
+                .configuration(Map.of(
+                        IgniteProperty.LOCK_LEASE_TIME.getKey(), "1000",
+                        IgniteProperty.LOCK_HEARTBEAT_INTERVAL.getKey(), "1000"
+                ))
+                .load())
+                .isInstanceOf(FlywayException.class)
+                .hasMessageContaining(IgniteProperty.LOCK_HEARTBEAT_INTERVAL.getKey());
+    }
+
+    /**
+     * Should remove a lock whose lease has expired and take it over without waiting for the lock retries to run out.
+     */
+    @Test
+    public void shouldReapExpiredLock() throws Exception {
+        Flyway.configure()
+                .locations("/db/scenario/base")
+                .target("1")
+                .dataSource(datasource())
+                .load()
+                .migrate();
+
+        // The lock row of a killed instance.
+        execute("INSERT INTO \"flyway_schema_history\" VALUES (-100, 'killed', 'flyway-lock', '', 'lease', 0, '', "
+                + "DATEADD('MILLISECOND', -1000, CURRENT_TIMESTAMP), 0, TRUE)");
+
+        long start = System.nanoTime();
+
+        MigrateResult res = Flyway.configure()
+                .locations("/db/scenario/base")
+                .dataSource(datasource())
+                .configuration(Map.of(IgniteProperty.LOCK_LEASE_TIME.getKey(), "10000"))
+                .load()
+                .migrate();
+
+        assertThat(res.migrationsExecuted).isEqualTo(1);
+        assertThat(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start)).isLessThan(30);
+        assertThat(count("SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"installed_rank\" = -100")).isZero();
+    }
+
+    /**
+     * Should fail the running migration as soon as the lease is lost.
+     */
+    @Test
+    public void shouldFailMigrationWhenLeaseIsLost(@TempDir Path dir) throws Exception {
+        StringBuilder script = new StringBuilder()
+                .append("CREATE TABLE Counter (id INT PRIMARY KEY, val INT);\n")
+                // Another instance reaps the lock.
+                .append("DELETE FROM \"flyway_schema_history\" WHERE \"installed_rank\" = -100;\n");
+
+        for (int i = 0; i < STATEMENTS; i++) {
+            script.append("INSERT INTO Counter (id, val) VALUES (").append(i).append(", ").append(i).append(");\n");
+        }
+
+        Files.writeString(dir.resolve("V1__lost_lease.sql"), script);
+
+        Flyway flyway = Flyway.configure()
+                .locations("filesystem:" + dir)
+                .dataSource(datasource())
+                .configuration(Map.of(
+                        IgniteProperty.LOCK_LEASE_TIME.getKey(), "60000",
+                        IgniteProperty.LOCK_HEARTBEAT_INTERVAL.getKey(), "10",
+                        IgniteProperty.BATCH_SIZE.getKey(), "1",
+                        IgniteProperty.STREAMING_THRESHOLD.getKey(), "0"
+                ))
+                .load();
+
+        assertThatThrownBy(flyway::migrate)
+                .isInstanceOf(FlywayException.class)
+                .hasStackTraceContaining("Lease of lock");
+
+        assertThat(count("SELECT COUNT(*) FROM Counter")).isLessThan(STATEMENTS);
+    }
+
+    /**
+     * Executes a statement.
+     *
+     * @param sql Statement.
+     */
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * Executes a count query.
+     *
+     * @param sql Query.
+     */
+    private long count(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            rs.next();
+
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.configuration.SqlConfiguration;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parallel DDL scenarios.
+ */
+public class FlywayParallelDdlScenarioTest extends AbstractTest {
+    /**
+     * Schema that is not the default one.
+     */
+    private static final String SCHEMA = "MIGRATIONS";
+
+    /**
+     * Should execute DDL statements on different tables over several connections.
+     */
+    @Test
+    public void shouldExecuteDdlInParallel() throws SQLException {
+        MigrateResult res = migrate(null);
+
+        assertThat(res.success).isTrue();
+        assertThat(query("SELECT SCHEMA_NAME || '.' || TABLE_NAME FROM SYS.TABLES WHERE TABLE_NAME IN "
+                + "('PET', 'OWNER', 'VISIT')"))
+                .containsExactlyInAnyOrder("PUBLIC.PET", "PUBLIC.OWNER", "PUBLIC.VISIT");
+        assertThat(query("SELECT INDEX_NAME FROM SYS.INDEXES WHERE INDEX_NAME LIKE '%_IDX'"))
+                .containsExactlyInAnyOrder("PET_NAME_IDX", "OWNER_NAME_IDX", "VISIT_PET_IDX");
+    }
+
+    /**
+     * Should execute unqualified DDL statements in the schema of the migration connection.
+     */
+    @Test
+    public void shouldExecuteDdlInDefaultSchema() throws SQLException {
+        MigrateResult res = migrate(SCHEMA);
+
+        assertThat(res.success).isTrue();
+        assertThat(query("SELECT SCHEMA_NAME || '.' || TABLE_NAME FROM SYS.TABLES WHERE TABLE_NAME IN "
+                + "('PET', 'OWNER', 'VISIT')"))
+                .containsExactlyInAnyOrder(SCHEMA + ".PET", SCHEMA + ".OWNER", SCHEMA + ".VISIT");
+        assertThat(query("SELECT SCHEMA_NAME || '.' || INDEX_NAME FROM SYS.INDEXES WHERE INDEX_NAME LIKE '%_IDX'"))
+                .containsExactlyInAnyOrder(SCHEMA + ".PET_NAME_IDX", SCHEMA + ".OWNER_NAME_IDX", SCHEMA + ".VISIT_PET_IDX");
+    }
+
+    /**
+     * Migrates the DDL scenario with parallel DDL.
+     *
+     * @param schema Default schema or {@code null}.
+     */
+    private MigrateResult migrate(String schema) throws SQLException {
+        return Flyway.configure()
+                .locations("/db/scenario/ddl")
+                .dataSource(datasource())
+                .defaultSchema(schema)
+                .configuration(Map.of(IgniteProperty.DDL_PARALLELISM.getKey(), "4"))
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Executes a query with a single string column.
+     *
+     * @param sql Query.
+     */
+    private List<String> query(String sql) throws SQLException {
+        List<String> res = new ArrayList<>();
+
+        try (Connection conn = datasource().getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                res.add(rs.getString(1));
+            }
+        }
+
+        return res;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        return super.getIgniteConfiguration().setSqlConfiguration(new SqlConfiguration().setSqlSchemas(SCHEMA));
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.ignite.IgniteCheckedException;
+import org.apache.ignite.cache.query.SqlFieldsQuery;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Scenarios of the on-disk cache of parsed SQL migrations.
+ */
+public class FlywayParseCacheScenarioTest extends AbstractTest {
+    /**
+     * Cache directory.
+     */
+    @TempDir
+    Path cacheDir;
+
+    /**
+     * Migrations directory.
+     */
+    @TempDir
+    Path migrationsDir;
+
+    /**
+     * Should parse an unchanged script once and migrate a new cluster from the cache.
+     */
+    @Test
+    public void shouldMigrateFromParseCache() throws Exception {
+        Files.writeString(migrationsDir.resolve("V1__first.sql"), "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);\n"
+                + "INSERT INTO Pet (id, name) VALUES (1, 'Tom');");
+
+        assertThat(flyway().migrate().migrationsExecuted).isEqualTo(1);
+
+        List<Path> cached = cachedFiles();
+
+        assertThat(cached).hasSize(1);
+
+        resetCluster();
+
+        MigrateResult res = flyway().migrate();
+
+        assertThat(res.migrationsExecuted).isEqualTo(1);
+        assertThat(cachedFiles()).isEqualTo(cached);
+        assertThat(ignite.cache("SQL_PUBLIC_PET").size()).isEqualTo(1);
+        assertThat(flyway().validateWithResult().validationSuccessful).isTrue();
+    }
+
+    /**
+     * Should parse a changed script again.
+     */
+    @Test
+    public void shouldParseChangedScript() throws Exception {
+        Path script = migrationsDir.resolve("V1__first.sql");
+
+        Files.writeString(script, "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);");
+
+        flyway().migrate();
+
+        resetCluster();
+
+        Files.writeString(script, "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR, age INT);");
+
+        flyway().migrate();
+
+        assertThat(cachedFiles()).hasSize(2);
+        assertThat(ignite.cache("SQL_PUBLIC_PET").query(new SqlFieldsQuery("SELECT age FROM Pet")).getAll()).isEmpty();
+    }
+
+    /**
+     * Should leave scripts with built-in placeholders and script configuration files to Flyway.
+     */
+    @Test
+    public void shouldNotCacheBypassedScripts() throws Exception {
+        Files.writeString(migrationsDir.resolve("V1__first.sql"),
+                "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR, owner VARCHAR DEFAULT '${flyway:user}');");
+        Files.writeString(migrationsDir.resolve("V2__second.sql"), "CREATE TABLE Owner (id INT PRIMARY KEY, name VARCHAR);");
+        Files.writeString(migrationsDir.resolve("V2__second.sql.conf"), "executeInTransaction=false");
+
+        assertThat(flyway().migrate().migrationsExecuted).isEqualTo(2);
+        assertThat(cachedFiles()).isEmpty();
+    }
+
+    /**
+     * Should pre-parse scripts in parallel into the parse cache.
+     */
+    @Test
+    public void shouldPreParseIntoCache() throws Exception {
+        writeScripts();
+
+        MigrateResult res = flyway(Map.of(
+                IgniteProperty.PARSE_CACHE_DIR.getKey(), cacheDir.toString(),
+                IgniteProperty.PARSE_PARALLELISM.getKey(), "4"
+        )).migrate();
+
+        assertThat(res.migrationsExecuted).isEqualTo(3);
+        assertThat(cachedFiles()).hasSize(3);
+        assertThat(ignite.cache("SQL_PUBLIC_PET").size()).isEqualTo(2);
+    }
+
+    /**
+     * Should pre-parse scripts in memory without a cache directory and stop the pool when the command completes.
+     */
+    @Test
+    public void shouldPreParseInMemory() throws Exception {
+        writeScripts();
+
+        Set<Thread> before = parseThreads();
+
+        MigrateResult res = flyway(Map.of(IgniteProperty.PARSE_PARALLELISM.getKey(), "4")).migrate();
+
+        assertThat(res.migrationsExecuted).isEqualTo(3);
+        assertThat(ignite.cache("SQL_PUBLIC_PET").size()).isEqualTo(2);
+
+        long deadline = System.currentTimeMillis() + 10_000;
+
+        while (!before.containsAll(parseThreads()) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertThat(before).containsAll(parseThreads());
+    }
+
+    /**
+     * Writes migrations of the pre-parse scenarios.
+     */
+    private void writeScripts() throws IOException {
+        Files.writeString(migrationsDir.resolve("V1__first.sql"), "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);");
+        Files.writeString(migrationsDir.resolve("V2__second.sql"), "INSERT INTO Pet (id, name) VALUES (1, 'Tom');\n"
+                + "INSERT INTO Pet (id, name) VALUES (2, 'Rex');");
+        Files.writeString(migrationsDir.resolve("V3__third.sql"), "CREATE INDEX pet_name_idx ON Pet (name);");
+    }
+
+    /**
+     * Gets alive threads of fork/join pools created by the plugin.
+     */
+    private static Set<Thread> parseThreads() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.isAlive() && t.getName().matches("ForkJoinPool-\\d+-worker-\\d+"))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Creates Flyway with the given plugin properties.
+     *
+     * @param props Plugin properties.
+     */
+    private Flyway flyway(Map<String, String> props) throws SQLException {
+        return Flyway.configure()
+                .locations("filesystem:" + migrationsDir)
+                .dataSource(datasource())
+                .configuration(props)
+                .load();
+    }
+
+    /**
+     * Creates Flyway with the parse cache.
+     */
+    private Flyway flyway() throws SQLException {
+        return Flyway.configure()
+                .locations("filesystem:" + migrationsDir)
+                .dataSource(datasource())
+                .configuration(Map.of(IgniteProperty.PARSE_CACHE_DIR.getKey(), cacheDir.toString()))
+                .load();
+    }
+
+    /**
+     * Gets the files of the parse cache.
+     */
+    private List<Path> cachedFiles() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDir)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Restarts the node with a clean work directory, the cache directory is kept.
+     */
+    private void resetCluster() throws IgniteCheckedException {
+        tearDown();
+        setUp();
+    }
+}
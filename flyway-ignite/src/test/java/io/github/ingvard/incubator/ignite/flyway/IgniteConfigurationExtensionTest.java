@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import java.util.HashMap;
+import java.util.Map;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parsing of the plugin properties.
+ */
+public class IgniteConfigurationExtensionTest {
+    /**
+     * Should consume the plugin properties and leave the others.
+     */
+    @Test
+    public void shouldConsumePluginProperties() {
+        Map<String, String> props = new HashMap<>(Map.of(
+                IgniteProperty.CHUNK_SIZE.getKey(), " 500 ",
+                "flyway.locations", "db/migration"
+        ));
+
+        IgniteConfigurationExtension ext = new IgniteConfigurationExtension();
+
+        ext.extractParametersFromConfiguration(props);
+
+        assertThat(ext.getChunkSize()).isEqualTo(500);
+        assertThat(props).containsOnlyKeys("flyway.locations");
+    }
+
+    /**
+     * Should map environment variables to the property keys.
+     */
+    @Test
+    public void shouldMapEnvironmentVariables() {
+        IgniteConfigurationExtension ext = new IgniteConfigurationExtension();
+
+        assertThat(ext.getConfigurationParameterFromEnvironmentVariable("FLYWAY_IGNITE_CHUNK_SIZE"))
+                .isEqualTo(IgniteProperty.CHUNK_SIZE.getKey());
+        assertThat(ext.getConfigurationParameterFromEnvironmentVariable("FLYWAY_URL")).isNull();
+    }
+
+    /**
+     * Should reject a chunk size that is not positive.
+     */
+    @Test
+    public void shouldRejectNonPositiveChunkSize() {
+        assertRejected(IgniteProperty.CHUNK_SIZE, "0", "-1", "ten");
+
+        assertThatThrownBy(() -> new IgniteConfigurationExtension().setChunkSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should reject a DML parallelism that is not positive.
+     */
+    @Test
+    public void shouldRejectNonPositiveDmlParallelism() {
+        assertThat(apply(IgniteProperty.DML_PARALLELISM, "8").getDmlParallelism()).isEqualTo(8);
+
+        assertRejected(IgniteProperty.DML_PARALLELISM, "0", "-4");
+
+        assertThatThrownBy(() -> new IgniteConfigurationExtension().setDmlParallelism(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should reject a Java migration batch size that is not positive.
+     */
+    @Test
+    public void shouldRejectNonPositiveJavaBatchSize() {
+        assertThat(apply(IgniteProperty.JAVA_BATCH_SIZE, "500").getJavaBatchSize()).isEqualTo(500);
+
+        assertRejected(IgniteProperty.JAVA_BATCH_SIZE, "0", "-1");
+
+        assertThatThrownBy(() -> new IgniteConfigurationExtension().setJavaBatchSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should reject a negative index parallelism and a non-positive index inline size.
+     */
+    @Test
+    public void shouldRejectInvalidIndexPlanLimits() {
+        assertThat(apply(IgniteProperty.INDEX_MAX_PARALLELISM, "0").getIndexMaxParallelism()).isZero();
+        assertThat(apply(IgniteProperty.INDEX_MAX_INLINE_SIZE, "64").getIndexMaxInlineSize()).isEqualTo(64);
+
+        assertRejected(IgniteProperty.INDEX_MAX_PARALLELISM, "-1");
+        assertRejected(IgniteProperty.INDEX_MAX_INLINE_SIZE, "0", "-64");
+
+        assertThatThrownBy(() -> new IgniteConfigurationExtension().setIndexMaxParallelism(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new IgniteConfigurationExtension().setIndexMaxInlineSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should reject a pacing CPU load that is not a percent.
+     */
+    @Test
+    public void shouldRejectPacingMaxCpuLoadOutOfRange() {
+        assertThat(apply(IgniteProperty.PACING_MAX_CPU_LOAD, "0").getPacingMaxCpuLoad()).isZero();
+        assertThat(apply(IgniteProperty.PACING_MAX_CPU_LOAD, "100").getPacingMaxCpuLoad()).isEqualTo(100);
+
+        assertRejected(IgniteProperty.PACING_MAX_CPU_LOAD, "-1", "101");
+
+        assertThatThrownBy(() -> new IgniteConfigurationExtension().setPacingMaxCpuLoad(101))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Should reject int values that don't fit into an int instead of truncating them.
+     */
+    @Test
+    public void shouldRejectIntOverflow() {
+        assertThat(apply(IgniteProperty.HISTORY_BACKUPS, "2").getHistoryBackups()).isEqualTo(2);
+        assertThat(apply(IgniteProperty.STREAMING_THRESHOLD, "0").getStreamingThreshold()).isZero();
+
+        for (IgniteProperty prop : new IgniteProperty[] {IgniteProperty.HISTORY_BACKUPS, IgniteProperty.HISTORY_INLINE_SIZE,
+                IgniteProperty.BATCH_SIZE, IgniteProperty.STREAMING_THRESHOLD, IgniteProperty.PARSE_PARALLELISM,
+                IgniteProperty.DDL_PARALLELISM, IgniteProperty.INDEX_MAX_PARALLELISM}) {
+            assertRejected(prop, "-1", "4294967297");
+        }
+
+        assertRejected(IgniteProperty.CLEAN_PARALLELISM, "0", "4294967297");
+    }
+
+    /**
+     * Applies a property value.
+     *
+     * @param prop Property.
+     * @param val  Value.
+     */
+    private static IgniteConfigurationExtension apply(IgniteProperty prop, String val) {
+        IgniteConfigurationExtension ext = new IgniteConfigurationExtension();
+
+        ext.extractParametersFromConfiguration(new HashMap<>(Map.of(prop.getKey(), val)));
+
+        return ext;
+    }
+
+    /**
+     * Checks that the values of the property are rejected with an exception that names the property.
+     *
+     * @param prop Property.
+     * @param vals Values.
+     */
+    private static void assertRejected(IgniteProperty prop, String... vals) {
+        for (String val : vals) {
+            assertThatThrownBy(() -> apply(prop, val))
+                    .as(prop.getKey() + "=" + val)
+                    .isInstanceOf(FlywayException.class)
+                    .hasMessageContaining(prop.getKey());
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of connection properties collected by {@link IgniteThinBootstrap}.
+ */
+public class IgniteThinBootstrapTest extends AbstractTest {
+    /**
+     * Should collect the build ID and the system views by one query.
+     */
+    @Test
+    public void shouldLoadConnectionProperties() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+            IgniteThinBootstrap bootstrap = IgniteThinBootstrap.load(jdbcTemplate);
+
+            assertThat(bootstrap.getBuildId()).isEqualTo(
+                    jdbcTemplate.queryForInt("SELECT VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE NAME = 'info.BUILD_ID'"));
+            assertThat(bootstrap.getUser()).isEqualTo("ignite");
+
+            assertThat(bootstrap.hasSysView("TABLES")).isTrue();
+            assertThat(bootstrap.hasSysView("tables")).isTrue();
+            assertThat(bootstrap.hasSysView("MISSING")).isFalse();
+        }
+    }
+
+    /**
+     * Should take the user reported by the live connection rather than the configured one.
+     */
+    @Test
+    public void shouldTakeConnectionUser() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            DatabaseMetaData meta = (DatabaseMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {DatabaseMetaData.class},
+                    (proxy, mtd, args) -> "getUserName".equals(mtd.getName()) ? "flyway" : mtd.invoke(conn.getMetaData(), args));
+
+            Connection wrapped = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {Connection.class},
+                    (proxy, mtd, args) -> "getMetaData".equals(mtd.getName()) ? meta : mtd.invoke(conn, args));
+
+            IgniteThinBootstrap bootstrap = IgniteThinBootstrap.load(new JdbcTemplate(wrapped, new IgniteThinDatabaseType()));
+
+            assertThat(bootstrap.getUser()).isEqualTo("flyway");
+        }
+    }
+
+    /**
+     * Should collect the connection properties once per database.
+     */
+    @Test
+    public void shouldBootstrapDatabaseOnce() throws SQLException {
+        Configuration cfg = Flyway.configure().dataSource(datasource()).load().getConfiguration();
+
+        try (IgniteThinDatabase db = new IgniteThinDatabase(cfg, new JdbcConnectionFactory(cfg.getDataSource(), cfg, null), null)) {
+            IgniteThinBootstrap bootstrap = db.getBootstrap();
+
+            assertThat(db.getBootstrap()).isSameAs(bootstrap);
+            assertThat(db.getCurrentUser()).isEqualTo("ignite");
+            assertThat(db.getVersion().getVersion()).endsWith("." + bootstrap.getBuildId());
+        }
+    }
+}
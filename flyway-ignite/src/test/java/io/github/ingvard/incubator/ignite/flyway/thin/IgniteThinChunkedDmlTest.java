@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link IgniteThinChunkedDml} against an embedded node.
+ */
+public class IgniteThinChunkedDmlTest extends AbstractTest {
+    /**
+     * The number of rows of the table.
+     */
+    private static final int ROWS = 25;
+
+    /**
+     * Should update rows chunk by chunk of the key range and report the highest key of every chunk.
+     */
+    @Test
+    public void shouldUpdateByChunks() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = createTable(conn);
+            List<Object> uppers = new ArrayList<>();
+
+            IgniteThinChunkedDml.Chunked chunked = new IgniteThinChunkedDml(jdbcTemplate, 10, 0)
+                    .prepare("UPDATE /* ignite:chunked */ Pet SET cnt = cnt + 1 WHERE MOD(id, 2) = 0;");
+
+            assertThat(chunked).isNotNull();
+            assertThat(chunked.execute(null, "test", uppers::add)).isEqualTo(13);
+            assertThat(uppers).containsExactly(9, 19, 24);
+
+            assertThat(jdbcTemplate.queryForInt("SELECT SUM(cnt) FROM Pet")).isEqualTo(13);
+            assertThat(jdbcTemplate.queryForInt("SELECT COUNT(*) FROM Pet WHERE cnt = 1 AND MOD(id, 2) = 1")).isZero();
+        }
+    }
+
+    /**
+     * Should start after the given key.
+     */
+    @Test
+    public void shouldResumeAfterKey() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = createTable(conn);
+
+            IgniteThinChunkedDml.Chunked chunked = new IgniteThinChunkedDml(jdbcTemplate, 10, 0)
+                    .prepare("UPDATE Pet SET cnt = cnt + 1");
+
+            assertThat(chunked.execute(19, "test", null)).isEqualTo(5);
+            assertThat(jdbcTemplate.queryForInt("SELECT MIN(id) FROM Pet WHERE cnt = 1")).isEqualTo(20);
+        }
+    }
+
+    /**
+     * Should delete rows chunk by chunk.
+     */
+    @Test
+    public void shouldDeleteByChunks() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = createTable(conn);
+
+            IgniteThinChunkedDml.Chunked chunked = new IgniteThinChunkedDml(jdbcTemplate, 7, 0)
+                    .prepare("DELETE FROM PUBLIC.Pet WHERE id >= 5");
+
+            assertThat(chunked.execute(null, "test", null)).isEqualTo(ROWS - 5);
+            assertThat(jdbcTemplate.queryForInt("SELECT COUNT(*) FROM Pet")).isEqualTo(5);
+        }
+    }
+
+    /**
+     * Should refuse statements that can't be executed by chunks.
+     */
+    @Test
+    public void shouldNotChunkUnsupportedStatements() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = createTable(conn);
+
+            jdbcTemplate.execute("CREATE TABLE Visit (petId INT, day INT, cnt INT, PRIMARY KEY (petId, day))");
+
+            IgniteThinChunkedDml dml = new IgniteThinChunkedDml(jdbcTemplate, 10, 0);
+
+            assertThat(dml.prepare("UPDATE Visit SET cnt = 1")).as("composite key").isNull();
+            assertThat(dml.prepare("UPDATE Pet SET cnt = 1 ORDER BY id LIMIT 5")).as("limit").isNull();
+            assertThat(dml.prepare("DELETE FROM Missing")).as("unknown table").isNull();
+            assertThat(dml.prepare("INSERT INTO Pet (id, cnt) VALUES (100, 0)")).as("insert").isNull();
+            assertThat(dml.prepare("UPDATE Pet SET cnt = (SELECT MAX(cnt) FROM Pet ORDER BY 1 LIMIT 1)")).as("subquery")
+                    .isNotNull();
+        }
+    }
+
+    /**
+     * Should split qualified and quoted names.
+     */
+    @Test
+    public void shouldSplitNames() {
+        assertThat(IgniteThinChunkedDml.splitName("pet")).containsExactly("PET");
+        assertThat(IgniteThinChunkedDml.splitName("public.Pet")).containsExactly("PUBLIC", "PET");
+        assertThat(IgniteThinChunkedDml.splitName("\"My.Schema\".\"Pet \"\"A\"\"\"")).containsExactly("My.Schema", "Pet \"A\"");
+    }
+
+    /**
+     * Creates the {@code Pet} table with {@link #ROWS} rows.
+     *
+     * @param conn Connection.
+     */
+    private static JdbcTemplate createTable(Connection conn) throws SQLException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+        jdbcTemplate.execute("CREATE TABLE Pet (id INT PRIMARY KEY, cnt INT)");
+
+        for (int i = 0; i < ROWS; i++) {
+            jdbcTemplate.execute("INSERT INTO Pet (id, cnt) VALUES (?, 0)", i);
+        }
+
+        return jdbcTemplate;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link IgniteThinIndexPlanner} against an embedded node.
+ */
+public class IgniteThinIndexPlannerTest extends AbstractTest {
+    /**
+     * Table of the tests.
+     */
+    private static final String TABLE = "CREATE TABLE Pet (id INT PRIMARY KEY, age INT, code VARCHAR(10), name VARCHAR, "
+            + "born TIMESTAMP, price DECIMAL(10, 2))";
+
+    /**
+     * Should compute inline size from the types of the indexed columns.
+     */
+    @Test
+    public void shouldPlanInlineSize() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+            jdbcTemplate.execute(TABLE);
+
+            // Parallelism is limited to 1, so it is not planned.
+            IgniteThinIndexPlanner planner = new IgniteThinIndexPlanner(jdbcTemplate, 1, 64);
+
+            assertThat(planner.plan("CREATE INDEX i ON Pet (age)")).isEqualTo("CREATE INDEX i ON Pet (age) INLINE_SIZE 5");
+            assertThat(planner.plan("CREATE INDEX i ON Pet (code)")).endsWith(" INLINE_SIZE 13");
+            assertThat(planner.plan("CREATE INDEX i ON Pet (age, code DESC)")).endsWith(" INLINE_SIZE 18");
+            assertThat(planner.plan("CREATE INDEX i ON Pet (born)")).endsWith(" INLINE_SIZE 17");
+            assertThat(planner.plan("CREATE INDEX i ON Pet (name)")).endsWith(" INLINE_SIZE 64");
+            assertThat(planner.plan("CREATE INDEX i ON Pet (age, name)")).endsWith(" INLINE_SIZE 64");
+            assertThat(planner.plan("CREATE INDEX i ON Pet (age, price, code)")).endsWith(" INLINE_SIZE 5");
+            assertThat(planner.plan("CREATE INDEX IF NOT EXISTS i ON \"PUBLIC\".\"PET\" (\"AGE\");"))
+                    .isEqualTo("CREATE INDEX IF NOT EXISTS i ON \"PUBLIC\".\"PET\" (\"AGE\") INLINE_SIZE 5");
+        }
+    }
+
+    /**
+     * Should keep statements with explicit options, the noplan hint or unknown columns as is.
+     */
+    @Test
+    public void shouldKeepUnplannedStatements() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+            jdbcTemplate.execute(TABLE);
+
+            IgniteThinIndexPlanner planner = new IgniteThinIndexPlanner(jdbcTemplate, 1, 64);
+
+            for (String sql : new String[] {
+                "CREATE INDEX i ON Pet (age) INLINE_SIZE 10",
+                "/* ignite:noplan */ CREATE INDEX i ON Pet (age)",
+                "CREATE INDEX i ON Pet (missing)",
+                "CREATE INDEX i ON Pet (price)",
+                "DROP INDEX i"
+            }) {
+                assertThat(planner.plan(sql)).isEqualTo(sql);
+            }
+        }
+    }
+
+    /**
+     * Should plan parallelism by the CPU count of the server nodes limited by the configured maximum.
+     */
+    @Test
+    public void shouldPlanParallelism() throws SQLException {
+        int cpus = Runtime.getRuntime().availableProcessors();
+
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+            jdbcTemplate.execute(TABLE);
+
+            String unlimited = new IgniteThinIndexPlanner(jdbcTemplate, 0, 64).plan("CREATE INDEX i ON Pet (age)");
+            String limited = new IgniteThinIndexPlanner(jdbcTemplate, 2, 64).plan("CREATE INDEX i ON Pet (age)");
+
+            if (cpus > 1) {
+                assertThat(unlimited).isEqualTo("CREATE INDEX i ON Pet (age) PARALLEL " + cpus + " INLINE_SIZE 5");
+                assertThat(limited).isEqualTo("CREATE INDEX i ON Pet (age) PARALLEL 2 INLINE_SIZE 5");
+            } else {
+                assertThat(unlimited).doesNotContain("PARALLEL");
+                assertThat(limited).doesNotContain("PARALLEL");
+            }
+        }
+    }
+
+    /**
+     * Should create an index with the planned inline size.
+     */
+    @Test
+    public void shouldCreatePlannedIndex() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+            jdbcTemplate.execute(TABLE);
+
+            jdbcTemplate.execute(new IgniteThinIndexPlanner(jdbcTemplate, 0, 64).plan("CREATE INDEX pet_code_idx ON Pet (age, code)"));
+
+            assertThat(jdbcTemplate.queryForInt("SELECT INLINE_SIZE FROM SYS.INDEXES WHERE INDEX_NAME = 'PET_CODE_IDX'"))
+                    .isEqualTo(18);
+        }
+    }
+}
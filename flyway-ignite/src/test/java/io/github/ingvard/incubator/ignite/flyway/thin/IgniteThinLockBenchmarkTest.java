@@ -0,0 +1,174 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static io.github.ingvard.incubator.ignite.flyway.common.util.IgniteUtils.LOOPBACK;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.LockWaitMode;
+import io.github.ingvard.incubator.ignite.flyway.common.util.IgniteUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.IgniteCheckedException;
+import org.apache.ignite.IgniteJdbcThinDataSource;
+import org.apache.ignite.internal.IgniteEx;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+/**
+ * Measures lock handoff latency, the time between a lock release and the next lock acquisition, of contending clients.
+ */
+@Tag("benchmark")
+public class IgniteThinLockBenchmarkTest {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinLockBenchmarkTest.class);
+
+    /**
+     * Lock hold time.
+     */
+    private static final long HOLD_TIME_MS = 50;
+
+    /**
+     * Ignite.
+     */
+    private IgniteEx ignite;
+
+    /**
+     * Starts an isolated node.
+     */
+    @BeforeEach
+    void setUp() throws IgniteCheckedException {
+        ignite = IgniteUtils.startIsolatedIgnite();
+    }
+
+    /**
+     * Stops the node.
+     */
+    @AfterEach
+    void tearDown() {
+        ignite.close();
+    }
+
+    /**
+     * Every client takes the lock once, holds it and releases.
+     *
+     * @param mode    Lock wait mode.
+     * @param clients The number of contending clients.
+     */
+    @ParameterizedTest
+    @CsvSource({"POLLING, 8", "CONTINUOUS_QUERY, 8", "POLLING, 32", "CONTINUOUS_QUERY, 32"})
+    public void lockHandoffLatency(LockWaitMode mode, int clients) throws Exception {
+        IgniteJdbcThinDataSource src = new IgniteJdbcThinDataSource();
+
+        src.setAddresses(LOOPBACK + ":" + ignite.context().sqlListener().port());
+
+        FluentConfiguration cfg = Flyway.configure()
+                .dataSource(src)
+                .locations("/db/scenario/base")
+                .configuration(Map.of(IgniteProperty.LOCK_WAIT_MODE.getKey(), mode.name()));
+
+        // Creates the schema history table.
+        cfg.load().migrate();
+
+        ConcurrentLinkedQueue<long[]> holds = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService exec = Executors.newFixedThreadPool(clients);
+
+        try {
+            List<Future<?>> futs = new ArrayList<>();
+
+            for (int i = 0; i < clients; i++) {
+                futs.add(exec.submit(() -> {
+                    IgniteThinDatabase db = new IgniteThinDatabase(cfg, new JdbcConnectionFactory(src, cfg, null), null);
+
+                    try {
+                        IgniteThinTable tbl = (IgniteThinTable) db.getMainConnection()
+                                .getSchema("PUBLIC")
+                                .getTable(cfg.getTable());
+
+                        start.await();
+
+                        tbl.lock();
+
+                        long acquired = System.nanoTime();
+
+                        Thread.sleep(HOLD_TIME_MS);
+
+                        tbl.unlock();
+
+                        holds.add(new long[] {acquired, System.nanoTime()});
+                    } finally {
+                        db.close();
+                    }
+
+                    return null;
+                }));
+            }
+
+            start.countDown();
+
+            for (Future<?> fut : futs) {
+                fut.get(5, TimeUnit.MINUTES);
+            }
+        } finally {
+            exec.shutdownNow();
+        }
+
+        assertThat(holds).hasSize(clients);
+
+        List<long[]> ordered = new ArrayList<>(holds);
+
+        ordered.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        List<Long> handoffs = new ArrayList<>();
+
+        for (int i = 1; i < ordered.size(); i++) {
+            handoffs.add(TimeUnit.NANOSECONDS.toMillis(Math.max(0, ordered.get(i)[0] - ordered.get(i - 1)[1])));
+        }
+
+        handoffs.sort(Long::compare);
+
+        LOG.info(String.format("Lock handoff [mode=%s, clients=%d, avg=%.1fms, p50=%dms, p90=%dms, max=%dms, total=%dms]",
+                mode,
+                clients,
+                handoffs.stream().mapToLong(Long::longValue).average().orElse(0),
+                handoffs.get(handoffs.size() / 2),
+                handoffs.get(handoffs.size() * 9 / 10),
+                handoffs.get(handoffs.size() - 1),
+                TimeUnit.NANOSECONDS.toMillis(ordered.get(ordered.size() - 1)[1] - ordered.get(0)[0])
+        ));
+    }
+}
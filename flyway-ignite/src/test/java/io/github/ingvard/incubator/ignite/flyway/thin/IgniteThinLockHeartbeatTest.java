@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the lease extension by {@link IgniteThinLockHeartbeat}.
+ */
+public class IgniteThinLockHeartbeatTest extends AbstractTest {
+    /**
+     * Lease time.
+     */
+    private static final long LEASE_TIME = 500;
+
+    /**
+     * Heartbeat interval.
+     */
+    private static final long INTERVAL = 50;
+
+    /**
+     * Should keep the lease while it is extended.
+     */
+    @Test
+    public void shouldKeepExtendedLease() throws Exception {
+        execute("CREATE TABLE Lease (id INT PRIMARY KEY, cnt INT)");
+        execute("INSERT INTO Lease (id, cnt) VALUES (1, 0)");
+
+        try (IgniteThinDatabase db = database();
+             IgniteThinLockHeartbeat heartbeat = new IgniteThinLockHeartbeat(db, "UPDATE Lease SET cnt = cnt + 1 WHERE id = 1",
+                     "test lock", LEASE_TIME, INTERVAL)) {
+            Thread.sleep(2 * LEASE_TIME);
+
+            assertThat(heartbeat.isLost()).isFalse();
+
+            heartbeat.check();
+        }
+    }
+
+    /**
+     * Should lose the lease once the lock row is gone.
+     */
+    @Test
+    public void shouldLoseRemovedLease() throws Exception {
+        execute("CREATE TABLE Lease (id INT PRIMARY KEY, cnt INT)");
+
+        try (IgniteThinDatabase db = database();
+             IgniteThinLockHeartbeat heartbeat = new IgniteThinLockHeartbeat(db, "UPDATE Lease SET cnt = cnt + 1 WHERE id = 1",
+                     "test lock", 60_000, INTERVAL)) {
+            Thread.sleep(4 * INTERVAL);
+
+            assertThat(heartbeat.isLost()).isTrue();
+        }
+    }
+
+    /**
+     * Should lose the lease once extensions have been failing for the lease time.
+     */
+    @Test
+    public void shouldLoseLeaseNotExtendedForLeaseTime() throws Exception {
+        try (IgniteThinDatabase db = database();
+             IgniteThinLockHeartbeat heartbeat = new IgniteThinLockHeartbeat(db, "UPDATE Missing SET cnt = cnt + 1 WHERE id = 1",
+                     "test lock", LEASE_TIME, INTERVAL)) {
+            // Failed extensions don't lose the lease before the lease time elapses.
+            assertThat(heartbeat.isLost()).isFalse();
+
+            Thread.sleep(LEASE_TIME + 2 * INTERVAL);
+
+            assertThat(heartbeat.isLost()).isTrue();
+            assertThatThrownBy(heartbeat::check).isInstanceOf(FlywayException.class).hasMessageContaining("test lock");
+        }
+    }
+
+    /**
+     * Opens a database of the test node.
+     */
+    private IgniteThinDatabase database() throws SQLException {
+        Configuration cfg = Flyway.configure().dataSource(datasource()).load().getConfiguration();
+
+        return new IgniteThinDatabase(cfg, new JdbcConnectionFactory(cfg.getDataSource(), cfg, null), null);
+    }
+
+    /**
+     * Executes a statement.
+     *
+     * @param sql Statement.
+     */
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import java.util.concurrent.TimeUnit;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.client.IgniteClient;
+import org.apache.ignite.configuration.ClientConfiguration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link IgniteThinLockWatcher} against an embedded node.
+ */
+public class IgniteThinLockWatcherTest extends AbstractTest {
+    /**
+     * Cache of the lock rows.
+     */
+    private static final String CACHE = "locks";
+
+    /**
+     * Key of the watched lock row.
+     */
+    private static final int LOCK_KEY = 1;
+
+    /**
+     * Should wake a waiter up once the watched row changes and keep it waiting on changes of other rows.
+     */
+    @Test
+    public void shouldWakeUpOnLockRowChange() throws Exception {
+        IgniteCache<Integer, String> cache = ignite.getOrCreateCache(CACHE);
+
+        try (IgniteClient client = Ignition.startClient(new ClientConfiguration().setAddresses(LOOPBACK + ":" + THIN_CLIENT_PORT));
+             IgniteThinLockWatcher watcher = IgniteThinLockWatcher.continuous(client, CACHE, LOCK_KEY)) {
+            cache.put(LOCK_KEY + 1, "other");
+
+            assertThat(awaitMs(watcher, 500)).isGreaterThanOrEqualTo(500);
+
+            cache.put(LOCK_KEY, "lock");
+
+            assertThat(awaitMs(watcher, 60_000)).isLessThan(30_000);
+        }
+    }
+
+    /**
+     * Should sleep the whole interval in the polling mode.
+     */
+    @Test
+    public void shouldSleepWholeIntervalWhenPolling() throws Exception {
+        try (IgniteThinLockWatcher watcher = IgniteThinLockWatcher.polling()) {
+            assertThat(awaitMs(watcher, 200)).isGreaterThanOrEqualTo(200);
+        }
+    }
+
+    /**
+     * Waits for a change and measures the wait.
+     *
+     * @param watcher   Watcher.
+     * @param timeoutMs Timeout in milliseconds.
+     * @return Wait time in milliseconds.
+     */
+    private static long awaitMs(IgniteThinLockWatcher watcher, long timeoutMs) throws InterruptedException {
+        long start = System.nanoTime();
+
+        watcher.await(timeoutMs);
+
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+}
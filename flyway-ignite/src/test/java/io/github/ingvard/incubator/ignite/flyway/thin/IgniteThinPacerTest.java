@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.PacingMode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import org.apache.ignite.IgniteCache;
+import org.apache.ignite.cache.CacheMode;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.internal.IgnitionEx;
+import org.apache.ignite.spi.discovery.tcp.TcpDiscoverySpi;
+import org.apache.ignite.spi.discovery.tcp.ipfinder.vm.TcpDiscoveryVmIpFinder;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link IgniteThinPacer} against embedded nodes.
+ */
+public class IgniteThinPacerTest extends AbstractTest {
+    /**
+     * Discovery of the nodes of the test.
+     */
+    private static final TcpDiscoveryVmIpFinder IP_FINDER = new TcpDiscoveryVmIpFinder(true);
+
+    /**
+     * Cache that is rebalanced manually only.
+     */
+    private static final String CACHE = "manualRebalance";
+
+    /**
+     * Should not wait on a settled cluster.
+     */
+    @Test
+    public void shouldNotWaitOnSettledCluster() throws SQLException {
+        try (Connection conn = datasource().getConnection()) {
+            // A zero timeout fails unless the cluster is settled on the first check.
+            assertThatCode(() -> pacer(conn, 0, 0).await("test")).doesNotThrowAnyException();
+
+            assertThatCode(() -> pacer(conn, 60_000, 100).await("test")).doesNotThrowAnyException();
+        }
+    }
+
+    /**
+     * Should wait while partitions are moving and fail if they keep moving longer than the timeout.
+     */
+    @Test
+    public void shouldWaitForRebalance() throws Exception {
+        CacheConfiguration<Integer, Integer> ccfg = new CacheConfiguration<Integer, Integer>(CACHE)
+                .setCacheMode(CacheMode.PARTITIONED)
+                .setRebalanceDelay(-1);
+
+        IgniteCache<Integer, Integer> cache = ignite.createCache(ccfg);
+
+        for (int i = 0; i < 1_000; i++) {
+            cache.put(i, i);
+        }
+
+        // Partitions of the new node are moving until the rebalance is started manually.
+        IgnitionEx.start(getIgniteConfiguration().setIgniteInstanceName("second"), false);
+
+        try (Connection conn = datasource().getConnection()) {
+            IgniteThinPacer pacer = pacer(conn, 2_000, 0);
+
+            assertThatThrownBy(() -> pacer.await("test"))
+                    .isInstanceOf(FlywayException.class)
+                    .hasMessageContaining("Cluster didn't settle after test")
+                    .hasMessageContaining("moving partitions=");
+
+            // Moving partitions are not looked at if the rebalance check is disabled.
+            assertThatCode(() -> pacer(conn, new IgniteConfigurationExtension()
+                    .setPacingMode(PacingMode.STATEMENT)
+                    .setPacingTimeout(0)
+                    .setPacingRebalance(false)
+                    .setPacingMaxCpuLoad(100)).await("test")).doesNotThrowAnyException();
+
+            cache.rebalance().get();
+
+            pacer(conn, 60_000, 0).await("test");
+        }
+    }
+
+    /**
+     * Should stop pacing if the cluster state can't be read.
+     */
+    @Test
+    public void shouldNotWaitIfStateCanNotBeRead() throws SQLException {
+        Connection conn = datasource().getConnection();
+
+        conn.close();
+
+        IgniteThinPacer pacer = pacer(conn, 0, 100);
+
+        assertThatCode(() -> pacer.await("test")).doesNotThrowAnyException();
+        assertThatCode(() -> pacer.await("test")).doesNotThrowAnyException();
+    }
+
+    /**
+     * Should migrate with pacing after every DDL statement.
+     */
+    @Test
+    public void shouldMigrateWithStatementPacing() throws SQLException {
+        int executed = Flyway.configure()
+                .locations("/db/scenario/base")
+                .dataSource(datasource())
+                .configuration(Map.of(
+                        IgniteProperty.PACING_MODE.getKey(), PacingMode.STATEMENT.name(),
+                        IgniteProperty.PACING_MAX_CPU_LOAD.getKey(), "100"
+                ))
+                .load()
+                .migrate()
+                .migrationsExecuted;
+
+        assertThat(executed).isEqualTo(2);
+    }
+
+    /**
+     * Creates a pacer over the connection.
+     *
+     * @param conn       Connection.
+     * @param timeout    Timeout in milliseconds.
+     * @param maxCpuLoad Maximum CPU load in percent.
+     */
+    private static IgniteThinPacer pacer(Connection conn, long timeout, int maxCpuLoad) {
+        return pacer(conn, new IgniteConfigurationExtension()
+                .setPacingMode(PacingMode.STATEMENT)
+                .setPacingTimeout(timeout)
+                .setPacingMaxCpuLoad(maxCpuLoad));
+    }
+
+    /**
+     * Creates a pacer over the connection.
+     *
+     * @param conn      Connection.
+     * @param pluginCfg Plugin configuration.
+     */
+    private static IgniteThinPacer pacer(Connection conn, IgniteConfigurationExtension pluginCfg) {
+        return new IgniteThinPacer(new JdbcTemplate(conn, new IgniteThinDatabaseType()), pluginCfg);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        return super.getIgniteConfiguration().setDiscoverySpi(new TcpDiscoverySpi().setIpFinder(IP_FINDER));
+    }
+}
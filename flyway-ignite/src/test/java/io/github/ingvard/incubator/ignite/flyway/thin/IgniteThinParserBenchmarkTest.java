@@ -0,0 +1,229 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.Reader;
+import java.util.concurrent.TimeUnit;
+import org.flywaydb.core.api.configuration.ClassicConfiguration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Parses a synthetic multi-GB script and checks that heap use doesn't grow with the script size.
+ */
+@Tag("benchmark")
+public class IgniteThinParserBenchmarkTest {
+    /**
+     * Logger.
+     */
+    private static final Log LOG = LogFactory.getLog(IgniteThinParserBenchmarkTest.class);
+
+    /**
+     * Script size.
+     */
+    private static final long SCRIPT_SIZE = 3L << 30;
+
+    /**
+     * Heap is sampled every that many statements.
+     */
+    private static final int SAMPLE_INTERVAL = 500_000;
+
+    /**
+     * Allowed heap growth.
+     */
+    private static final long MAX_HEAP_GROWTH = 64L << 20;
+
+    /**
+     * Statements are parsed one by one and discarded.
+     */
+    @Test
+    public void parseMultiGigabyteScript() throws Exception {
+        IgniteThinParser parser = new IgniteThinParser(new ClassicConfiguration(), new ParsingContext());
+
+        long baseline = usedHeap();
+        long maxUsed = baseline;
+        long stmts = 0;
+        long start = System.nanoTime();
+
+        try (SqlStatementIterator it = parser.parse(new SyntheticScript(SCRIPT_SIZE))) {
+            while (it.hasNext()) {
+                SqlStatement stmt = it.next();
+
+                assertThat(stmt.getSql()).startsWith("INSERT INTO");
+
+                if (++stmts % SAMPLE_INTERVAL == 0) {
+                    maxUsed = Math.max(maxUsed, usedHeap());
+                }
+            }
+        }
+
+        long ms = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        LOG.info(String.format("Parsed script [size=%dMB, statements=%d, time=%dms, rate=%dMB/s, heapGrowth=%dMB]",
+                SCRIPT_SIZE >> 20,
+                stmts,
+                ms,
+                (SCRIPT_SIZE >> 20) * 1000 / ms,
+                (maxUsed - baseline) >> 20
+        ));
+
+        assertThat(stmts).isPositive();
+        assertThat(maxUsed - baseline).isLessThan(MAX_HEAP_GROWTH);
+    }
+
+    /**
+     * Gets used heap after a garbage collection.
+     */
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+
+        System.gc();
+
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    /**
+     * Script generated on the fly, it is never held in memory as a whole.
+     */
+    private static class SyntheticScript extends LoadableResource {
+        /**
+         * Script size.
+         */
+        private final long size;
+
+        /**
+         * Default constructor.
+         *
+         * @param size Script size.
+         */
+        SyntheticScript(long size) {
+            this.size = size;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Reader read() {
+            return new Reader() {
+                /**
+                 * Generated characters.
+                 */
+                private long generated;
+
+                /**
+                 * The number of generated statements.
+                 */
+                private long id;
+
+                /**
+                 * Current statement.
+                 */
+                private String stmt = "";
+
+                /**
+                 * Position in the current statement.
+                 */
+                private int pos;
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public int read(char[] buf, int off, int len) {
+                    if (pos == stmt.length()) {
+                        if (generated >= size) {
+                            return -1;
+                        }
+
+                        stmt = nextStatement();
+                        pos = 0;
+                        generated += stmt.length();
+                    }
+
+                    int n = Math.min(len, stmt.length() - pos);
+
+                    stmt.getChars(pos, pos + n, buf, off);
+
+                    pos += n;
+
+                    return n;
+                }
+
+                /**
+                 * Generates the next statement, every tenth one has a dollar quoted literal.
+                 */
+                private String nextStatement() {
+                    id++;
+
+                    return id % 10 == 0
+                            ? "INSERT INTO PERSON (ID, NAME) VALUES (" + id + ", $tag$Name; with $ and 'quotes'$tag$);\n"
+                            : "INSERT INTO PERSON (ID, NAME) VALUES (" + id + ", 'Name " + id + "');\n";
+                }
+
+                /**
+                 * {@inheritDoc}
+                 */
+                @Override
+                public void close() {
+                    // No-op.
+                }
+            };
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getAbsolutePath() {
+            return "V1__synthetic.sql";
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getAbsolutePathOnDisk() {
+            return null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getFilename() {
+            return "V1__synthetic.sql";
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String getRelativePath() {
+            return "V1__synthetic.sql";
+        }
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import java.sql.Connection;
+import java.sql.SQLException;
+import org.apache.ignite.Ignition;
+import org.apache.ignite.cache.affinity.rendezvous.RendezvousAffinityFunction;
+import org.apache.ignite.client.IgniteClient;
+import org.apache.ignite.configuration.CacheConfiguration;
+import org.apache.ignite.configuration.ClientConfiguration;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link IgniteThinPartitionedDml} against an embedded node.
+ */
+public class IgniteThinPartitionedDmlTest extends AbstractTest {
+    /**
+     * The number of partitions of the tables created by the {@link #TEMPLATE} template.
+     */
+    private static final int PARTITIONS = 32;
+
+    /**
+     * Cache template with {@link #PARTITIONS} partitions.
+     */
+    private static final String TEMPLATE = "parts32";
+
+    /**
+     * The number of rows of the table.
+     */
+    private static final int ROWS = 500;
+
+    /**
+     * Should find the number of partitions of the table a statement reads.
+     */
+    @Test
+    public void shouldCountPartitionsOfSourceTable() throws SQLException {
+        try (Connection conn = datasource().getConnection(); IgniteClient client = startClient()) {
+            JdbcTemplate jdbcTemplate = createTables(conn);
+            IgniteThinPartitionedDml dml = new IgniteThinPartitionedDml(jdbcTemplate, () -> client, 4);
+
+            assertThat(dml.partitions("UPDATE /* ignite:partitioned */ Pet SET cnt = cnt + 1", "PUBLIC")).isEqualTo(PARTITIONS);
+            assertThat(dml.partitions("DELETE FROM PUBLIC.Pet WHERE cnt > 0", "OTHER")).isEqualTo(PARTITIONS);
+            assertThat(dml.partitions("INSERT INTO Archive (id, cnt) SELECT id, cnt FROM Pet", "PUBLIC")).isEqualTo(PARTITIONS);
+            assertThat(dml.partitions("UPDATE City SET name = 'x'", "PUBLIC")).as("replicated").isZero();
+            assertThat(dml.partitions("INSERT INTO Pet (id, cnt) VALUES (1000, 0)", "PUBLIC")).as("values").isZero();
+        }
+    }
+
+    /**
+     * Should update all rows by per-partition queries.
+     */
+    @Test
+    public void shouldUpdateByPartitions() throws SQLException {
+        try (Connection conn = datasource().getConnection(); IgniteClient client = startClient()) {
+            JdbcTemplate jdbcTemplate = createTables(conn);
+            IgniteThinPartitionedDml dml = new IgniteThinPartitionedDml(jdbcTemplate, () -> client, 4);
+
+            assertThat(dml.execute("UPDATE Pet SET cnt = cnt + 1", "PUBLIC", PARTITIONS, "test")).isEqualTo(ROWS);
+            assertThat(jdbcTemplate.queryForInt("SELECT COUNT(*) FROM Pet WHERE cnt = 1")).isEqualTo(ROWS);
+
+            assertThat(dml.execute("INSERT INTO Archive (id, cnt) SELECT id, cnt FROM Pet WHERE MOD(id, 2) = 0", "PUBLIC",
+                    PARTITIONS, "test")).isEqualTo(ROWS / 2);
+            assertThat(jdbcTemplate.queryForInt("SELECT COUNT(*) FROM Archive")).isEqualTo(ROWS / 2);
+
+            assertThat(dml.execute("DELETE FROM Pet WHERE id >= 100", "PUBLIC", PARTITIONS, "test")).isEqualTo(ROWS - 100);
+            assertThat(jdbcTemplate.queryForInt("SELECT COUNT(*) FROM Pet")).isEqualTo(100);
+        }
+    }
+
+    /**
+     * Should fail if a partition query fails.
+     */
+    @Test
+    public void shouldFailOnFailedPartition() throws SQLException {
+        try (Connection conn = datasource().getConnection(); IgniteClient client = startClient()) {
+            JdbcTemplate jdbcTemplate = createTables(conn);
+            IgniteThinPartitionedDml dml = new IgniteThinPartitionedDml(jdbcTemplate, () -> client, 4);
+
+            assertThatThrownBy(() -> dml.execute("UPDATE Pet SET cnt = cnt / (id - 7)", "PUBLIC", PARTITIONS, "test"))
+                    .isInstanceOf(SQLException.class)
+                    .hasMessageContaining("Unable to execute test on a partition");
+        }
+    }
+
+    /**
+     * Creates the partitioned {@code Pet} table with {@link #ROWS} rows, the empty {@code Archive} table and the
+     * replicated {@code City} table.
+     *
+     * @param conn Connection.
+     */
+    private static JdbcTemplate createTables(Connection conn) throws SQLException {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+        jdbcTemplate.execute("CREATE TABLE Pet (id INT PRIMARY KEY, cnt INT) WITH \"template=" + TEMPLATE + "\"");
+        jdbcTemplate.execute("CREATE TABLE Archive (id INT PRIMARY KEY, cnt INT) WITH \"template=" + TEMPLATE + "\"");
+        jdbcTemplate.execute("CREATE TABLE City (id INT PRIMARY KEY, name VARCHAR) WITH \"template=replicated\"");
+
+        for (int i = 0; i < ROWS; i++) {
+            jdbcTemplate.execute("INSERT INTO Pet (id, cnt) VALUES (?, 0)", i);
+        }
+
+        return jdbcTemplate;
+    }
+
+    /**
+     * Starts a thin client of the node.
+     */
+    private static IgniteClient startClient() {
+        return Ignition.startClient(new ClientConfiguration().setAddresses(LOOPBACK + ":" + THIN_CLIENT_PORT));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        return super.getIgniteConfiguration().setCacheConfiguration(new CacheConfiguration<>(TEMPLATE + "*")
+                .setAffinity(new RendezvousAffinityFunction(false, PARTITIONS)));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import io.github.ingvard.incubator.ignite.flyway.thin.IgniteThinSchemaMetadata.Kind;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.apache.ignite.configuration.IgniteConfiguration;
+import org.apache.ignite.configuration.SqlConfiguration;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.database.base.Table;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of schema metadata loaded by {@link IgniteThinSchemaMetadata} and cached by {@link IgniteThinConnection}.
+ */
+public class IgniteThinSchemaMetadataTest extends AbstractTest {
+    /**
+     * Schema that is not the default one.
+     */
+    private static final String SCHEMA = "MIGRATIONS";
+
+    /**
+     * Should load the objects of one schema by a single query.
+     */
+    @Test
+    public void shouldLoadSchemaObjects() throws SQLException {
+        execute("CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR)");
+        execute("CREATE TABLE Owner (id INT PRIMARY KEY, name VARCHAR)");
+        execute("CREATE TABLE " + SCHEMA + ".Visit (id INT PRIMARY KEY, petId INT)");
+
+        try (Connection conn = datasource().getConnection()) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(conn, new IgniteThinDatabaseType());
+
+            IgniteThinSchemaMetadata pub = IgniteThinSchemaMetadata.load(jdbcTemplate, "PUBLIC");
+            IgniteThinSchemaMetadata other = IgniteThinSchemaMetadata.load(jdbcTemplate, SCHEMA);
+            IgniteThinSchemaMetadata missing = IgniteThinSchemaMetadata.load(jdbcTemplate, "MISSING");
+
+            assertThat(pub.exists()).isTrue();
+            assertThat(pub.names(Kind.TABLE)).containsExactlyInAnyOrder("PET", "OWNER");
+            assertThat(pub.names(Kind.SEQUENCE)).isEmpty();
+
+            assertThat(other.exists()).isTrue();
+            assertThat(other.names(Kind.TABLE)).containsExactly("VISIT");
+
+            assertThat(missing.exists()).isFalse();
+            assertThat(missing.names(Kind.TABLE)).isEmpty();
+        }
+    }
+
+    /**
+     * Should keep the metadata of a connection until DDL of the plugin invalidates it.
+     */
+    @Test
+    public void shouldCacheMetadataUntilInvalidated() throws SQLException {
+        execute("CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR)");
+        execute("CREATE TABLE Owner (id INT PRIMARY KEY, name VARCHAR)");
+
+        Configuration cfg = Flyway.configure().dataSource(datasource()).load().getConfiguration();
+
+        try (IgniteThinDatabase db = new IgniteThinDatabase(cfg, new JdbcConnectionFactory(cfg.getDataSource(), cfg, null), null)) {
+            IgniteThinConnection conn = db.getMainConnection();
+            IgniteThinSchema schema = (IgniteThinSchema) conn.getSchema("PUBLIC");
+
+            assertThat(conn.getCachedSchemaMetadata("PUBLIC")).isNull();
+            assertThat(schema.allTables()).extracting(Table::getName).containsExactlyInAnyOrder("PET", "OWNER");
+
+            IgniteThinSchemaMetadata meta = conn.getCachedSchemaMetadata("PUBLIC");
+
+            assertThat(meta).isNotNull();
+            assertThat(schema.exists()).isTrue();
+            assertThat(schema.empty()).isFalse();
+            assertThat(conn.getSchemaMetadata("PUBLIC")).isSameAs(meta);
+
+            // DDL the plugin doesn't know about is not seen until the metadata is invalidated.
+            execute("CREATE TABLE Visit (id INT PRIMARY KEY, petId INT)");
+
+            assertThat(schema.allTables()).extracting(Table::getName).containsExactlyInAnyOrder("PET", "OWNER");
+
+            db.invalidateMetadata();
+
+            assertThat(conn.getCachedSchemaMetadata("PUBLIC")).isNull();
+            assertThat(schema.allTables()).extracting(Table::getName).containsExactlyInAnyOrder("PET", "OWNER", "VISIT");
+
+            // A drop by the plugin invalidates the metadata itself.
+            schema.getTable("PET").drop();
+
+            assertThat(schema.allTables()).extracting(Table::getName).containsExactlyInAnyOrder("OWNER", "VISIT");
+        }
+    }
+
+    /**
+     * Executes a statement.
+     *
+     * @param sql Statement.
+     */
+    private void execute(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected IgniteConfiguration getIgniteConfiguration() {
+        return super.getIgniteConfiguration().setSqlConfiguration(new SqlConfiguration().setSqlSchemas(SCHEMA));
+    }
+}
@@ -0,0 +1,308 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.ingvard.incubator.ignite.flyway.AbstractTest;
+import io.github.ingvard.incubator.ignite.flyway.IgniteConfigurationExtension.IgniteProperty;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.callback.NoopCallbackExecutor;
+import org.flywaydb.core.internal.database.base.Table;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.FlywaySqlScriptException;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link IgniteThinSqlScriptExecutor} against an embedded node.
+ */
+public class IgniteThinSqlScriptExecutorTest extends AbstractTest {
+    /**
+     * Script with DDL statements on two tables.
+     */
+    private static final String DDL_SCRIPT = "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);\n"
+            + "CREATE TABLE Owner (id INT PRIMARY KEY, name VARCHAR);\n"
+            + "CREATE INDEX pet_name_idx ON Pet (name);\n"
+            + "CREATE INDEX owner_name_idx ON Owner (name);\n";
+
+    /**
+     * Should drop the cached schema metadata after DDL executed over the parallel DDL connections.
+     */
+    @Test
+    public void shouldRefreshMetadataAfterParallelDdl() throws Exception {
+        checkMetadataRefreshed(Map.of(IgniteProperty.DDL_PARALLELISM.getKey(), "4"));
+    }
+
+    /**
+     * Should drop the cached schema metadata after DDL executed statement by statement by the plugin executor.
+     */
+    @Test
+    public void shouldRefreshMetadataAfterPlannedDdl() throws Exception {
+        checkMetadataRefreshed(Map.of(IgniteProperty.INDEX_PLAN.getKey(), "true"));
+    }
+
+    /**
+     * Should drop the cached schema metadata after DDL executed by the default Flyway executor.
+     */
+    @Test
+    public void shouldRefreshMetadataAfterDefaultExecutor() throws Exception {
+        checkMetadataRefreshed(Map.of());
+    }
+
+    /**
+     * Should send consecutive DML statements as JDBC batches of the configured size.
+     */
+    @Test
+    public void shouldExecuteDmlInBatches() throws Exception {
+        AtomicInteger batches = new AtomicInteger();
+
+        // 13 DML statements in batches of 4.
+        execute(counting(DataSource.class, datasource(), batches), Map.of(IgniteProperty.BATCH_SIZE.getKey(), "4"),
+                insertScript(10, false)
+                        + "UPDATE Pet SET name = 'updated' WHERE id < 5;\n"
+                        + "DELETE FROM Pet WHERE id >= 8;\n"
+                        + "MERGE INTO Pet (id, name) VALUES (9, 'merged');\n");
+
+        assertThat(batches.get()).isEqualTo(4);
+        assertThat(queryForString("SELECT COUNT(*) FROM Pet")).isEqualTo("9");
+        assertThat(queryForString("SELECT COUNT(*) FROM Pet WHERE name = 'updated'")).isEqualTo("5");
+        assertThat(queryForString("SELECT name FROM Pet WHERE id = 9")).isEqualTo("merged");
+    }
+
+    /**
+     * Should report the failed statement of a batch.
+     */
+    @Test
+    public void shouldReportFailedStatementOfBatch() {
+        String sql = "CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR NOT NULL);\n"
+                + "INSERT INTO Pet (id, name) VALUES (1, 'pet1');\n"
+                + "INSERT INTO Pet (id, name) VALUES (2, NULL);\n"
+                + "INSERT INTO Pet (id, name) VALUES (3, 'pet3');\n";
+
+        assertThatThrownBy(() -> execute(Map.of(IgniteProperty.BATCH_SIZE.getKey(), "10"), sql))
+                .isInstanceOfSatisfying(FlywaySqlScriptException.class, e -> {
+                    assertThat(e.getStatement()).contains("(2, NULL)");
+                    assertThat(e.getLineNumber()).isEqualTo(3);
+                });
+    }
+
+    /**
+     * Should stream a long run of inserts, the streamer skips a row whose key already exists.
+     */
+    @Test
+    public void shouldStreamLongRunOfInserts() throws Exception {
+        execute(Map.of(IgniteProperty.STREAMING_THRESHOLD.getKey(), "10"), insertScript(100, true));
+
+        assertThat(queryForString("SELECT COUNT(*) FROM Pet")).isEqualTo("100");
+        assertThat(queryForString("SELECT name FROM Pet WHERE id = 0")).isEqualTo("pet0");
+    }
+
+    /**
+     * Should overwrite existing keys by the streamer if the streaming options allow it.
+     */
+    @Test
+    public void shouldOverwriteStreamedDuplicatesWhenAllowed() throws Exception {
+        execute(Map.of(
+                IgniteProperty.STREAMING_THRESHOLD.getKey(), "10",
+                IgniteProperty.STREAMING_OPTIONS.getKey(), "ALLOW_OVERWRITE ON"
+        ), insertScript(100, true));
+
+        assertThat(queryForString("SELECT COUNT(*) FROM Pet")).isEqualTo("100");
+        assertThat(queryForString("SELECT name FROM Pet WHERE id = 0")).isEqualTo("duplicate");
+    }
+
+    /**
+     * Should not stream a run shorter than the threshold.
+     */
+    @Test
+    public void shouldNotStreamShortRunOfInserts() throws Exception {
+        execute(Map.of(IgniteProperty.STREAMING_THRESHOLD.getKey(), "10"), insertScript(5, false));
+
+        assertThat(queryForString("SELECT COUNT(*) FROM Pet")).isEqualTo("5");
+    }
+
+    /**
+     * Should recognize the option that makes the streamer overwrite existing keys.
+     */
+    @Test
+    public void shouldDetectAllowOverwriteOption() {
+        assertThat(IgniteThinSqlScriptExecutor.allowsOverwrite("ALLOW_OVERWRITE ON PER_NODE_BUFFER_SIZE 4096")).isTrue();
+        assertThat(IgniteThinSqlScriptExecutor.allowsOverwrite("batch_size 512 allow_overwrite  on")).isTrue();
+        assertThat(IgniteThinSqlScriptExecutor.allowsOverwrite("ALLOW_OVERWRITE OFF")).isFalse();
+        assertThat(IgniteThinSqlScriptExecutor.allowsOverwrite(null)).isFalse();
+    }
+
+    /**
+     * Creates a script that creates the {@code Pet} table and inserts rows into it.
+     *
+     * @param rows      The number of rows.
+     * @param duplicate Whether the script ends with an insert of an existing key.
+     */
+    private static String insertScript(int rows, boolean duplicate) {
+        StringBuilder script = new StringBuilder("CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR);\n");
+
+        for (int i = 0; i < rows; i++) {
+            script.append("INSERT INTO Pet (id, name) VALUES (").append(i).append(", 'pet").append(i).append("');\n");
+        }
+
+        if (duplicate) {
+            script.append("INSERT INTO Pet (id, name) VALUES (0, 'duplicate');\n");
+        }
+
+        return script.toString();
+    }
+
+    /**
+     * Executes a script by the executor of a database open with the plugin properties.
+     *
+     * @param props Plugin properties.
+     * @param sql   Script.
+     */
+    private void execute(Map<String, String> props, String sql) throws SQLException {
+        execute(datasource(), props, sql);
+    }
+
+    /**
+     * Executes a script by the executor of a database open over the datasource with the plugin properties.
+     *
+     * @param src   Datasource.
+     * @param props Plugin properties.
+     * @param sql   Script.
+     */
+    private static void execute(DataSource src, Map<String, String> props, String sql) {
+        Configuration cfg = configuration(src, props);
+        JdbcConnectionFactory connFactory = new JdbcConnectionFactory(cfg.getDataSource(), cfg, null);
+
+        try (IgniteThinDatabase db = new IgniteThinDatabase(cfg, connFactory, null)) {
+            execute(db, connFactory, cfg, sql);
+        }
+    }
+
+    /**
+     * Executes a query with a single value.
+     *
+     * @param sql Query.
+     */
+    private String queryForString(String sql) throws SQLException {
+        try (Connection conn = datasource().getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    /**
+     * Loads the schema metadata, executes {@link #DDL_SCRIPT} and checks that the new tables are seen.
+     *
+     * @param props Plugin properties.
+     */
+    private void checkMetadataRefreshed(Map<String, String> props) throws SQLException {
+        Configuration cfg = configuration(datasource(), props);
+        JdbcConnectionFactory connFactory = new JdbcConnectionFactory(cfg.getDataSource(), cfg, null);
+
+        try (IgniteThinDatabase db = new IgniteThinDatabase(cfg, connFactory, null)) {
+            IgniteThinSchema schema = (IgniteThinSchema) db.getMainConnection().getSchema("PUBLIC");
+
+            // Loads the metadata.
+            assertThat(schema.allTables()).isEmpty();
+
+            execute(db, connFactory, cfg, DDL_SCRIPT);
+
+            assertThat(schema.allTables()).extracting(Table::getName).containsExactlyInAnyOrder("PET", "OWNER");
+        }
+    }
+
+    /**
+     * Executes a script by the executor of the database type over the main connection.
+     *
+     * @param db          Database.
+     * @param connFactory Connection factory.
+     * @param cfg         Flyway configuration.
+     * @param sql         Script.
+     */
+    private static void execute(IgniteThinDatabase db, JdbcConnectionFactory connFactory, Configuration cfg, String sql) {
+        SqlScript script = db.getDatabaseType().createSqlScriptFactory(cfg, new ParsingContext())
+                .createSqlScript(new StringResource(sql), false, null);
+
+        db.getDatabaseType().createSqlScriptExecutorFactory(connFactory, NoopCallbackExecutor.INSTANCE, null)
+                .createSqlScriptExecutor(db.getMainConnection().getJdbcConnection(), false, false, false)
+                .execute(script, cfg);
+    }
+
+    /**
+     * Creates a Flyway configuration with the plugin properties.
+     *
+     * @param src   Datasource.
+     * @param props Plugin properties.
+     */
+    private static Configuration configuration(DataSource src, Map<String, String> props) {
+        return Flyway.configure()
+                .dataSource(src)
+                .configuration(props)
+                .load()
+                .getConfiguration();
+    }
+
+    /**
+     * Wraps a JDBC object, so that {@link Statement#executeBatch()} calls of the statements it creates are counted.
+     *
+     * @param iface   JDBC interface.
+     * @param target  JDBC object.
+     * @param batches Counter of executed batches.
+     */
+    private static <T> T counting(Class<T> iface, T target, AtomicInteger batches) {
+        return iface.cast(Proxy.newProxyInstance(IgniteThinSqlScriptExecutorTest.class.getClassLoader(), new Class<?>[] {iface},
+                (proxy, mtd, args) -> {
+                    if ("executeBatch".equals(mtd.getName())) {
+                        batches.incrementAndGet();
+                    }
+
+                    Object res;
+
+                    try {
+                        res = mtd.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+
+                    if (res instanceof Connection) {
+                        return counting(Connection.class, (Connection) res, batches);
+                    }
+
+                    // Prepared statements are left as is, batches of the executor are sent by plain statements.
+                    return res instanceof Statement && !(res instanceof PreparedStatement)
+                            ? counting(Statement.class, (Statement) res, batches)
+                            : res;
+                }));
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License. You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.github.ingvard.incubator.ignite.flyway.thin;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of {@link IgniteThinStatementType}.
+ */
+public class IgniteThinStatementTypeTest {
+    /**
+     * Should classify statements by the first keyword after comments.
+     */
+    @Test
+    public void shouldClassifyByFirstKeyword() {
+        assertThat(IgniteThinStatementType.of("CREATE TABLE Pet (id INT PRIMARY KEY)")).isEqualTo(IgniteThinStatementType.DDL);
+        assertThat(IgniteThinStatementType.of("alter table Pet add column name VARCHAR")).isEqualTo(IgniteThinStatementType.DDL);
+        assertThat(IgniteThinStatementType.of("DROP INDEX pet_name_idx")).isEqualTo(IgniteThinStatementType.DDL);
+        assertThat(IgniteThinStatementType.of("-- comment\nINSERT INTO Pet VALUES (1)")).isEqualTo(IgniteThinStatementType.INSERT);
+        assertThat(IgniteThinStatementType.of("/* a */ /* b */ MERGE INTO Pet VALUES (1)")).isEqualTo(IgniteThinStatementType.MERGE);
+        assertThat(IgniteThinStatementType.of("  UPDATE Pet SET name = 'a'")).isEqualTo(IgniteThinStatementType.UPDATE);
+        assertThat(IgniteThinStatementType.of("DELETE FROM Pet")).isEqualTo(IgniteThinStatementType.DELETE);
+        assertThat(IgniteThinStatementType.of("SELECT 1")).isEqualTo(IgniteThinStatementType.QUERY);
+        assertThat(IgniteThinStatementType.of("WITH t AS (SELECT 1) SELECT * FROM t")).isEqualTo(IgniteThinStatementType.QUERY);
+        assertThat(IgniteThinStatementType.of("COPY FROM 'pets.csv' INTO Pet (id) FORMAT CSV")).isEqualTo(IgniteThinStatementType.COPY);
+        assertThat(IgniteThinStatementType.of("SET STREAMING ON")).isEqualTo(IgniteThinStatementType.SET);
+        assertThat(IgniteThinStatementType.of("KILL QUERY '1_1'")).isEqualTo(IgniteThinStatementType.OTHER);
+        assertThat(IgniteThinStatementType.of("")).isEqualTo(IgniteThinStatementType.OTHER);
+    }
+
+    /**
+     * Should send only DML statements in JDBC batches.
+     */
+    @Test
+    public void shouldBatchOnlyDml() {
+        assertThat(IgniteThinStatementType.values())
+                .filteredOn(IgniteThinStatementType::isBatchable)
+                .containsExactlyInAnyOrder(IgniteThinStatementType.INSERT, IgniteThinStatementType.MERGE,
+                        IgniteThinStatementType.UPDATE, IgniteThinStatementType.DELETE);
+    }
+
+    /**
+     * Should find the target table of an {@code INSERT INTO} statement as written.
+     */
+    @Test
+    public void shouldFindInsertTarget() {
+        assertThat(IgniteThinStatementType.insertTarget("INSERT INTO Pet (id) VALUES (1)")).isEqualTo("Pet");
+        assertThat(IgniteThinStatementType.insertTarget("insert into PUBLIC.Pet(id) VALUES (1)")).isEqualTo("PUBLIC.Pet");
+        assertThat(IgniteThinStatementType.insertTarget("INSERT INTO \"My Pet\" VALUES (1)")).isEqualTo("\"My Pet\"");
+        assertThat(IgniteThinStatementType.insertTarget("MERGE INTO Pet VALUES (1)")).isNull();
+    }
+
+    /**
+     * Should find the table a DDL statement changes, unquoted names are upper-cased and the schema is dropped.
+     */
+    @Test
+    public void shouldFindDdlTarget() {
+        assertThat(IgniteThinStatementType.ddlTarget("CREATE TABLE IF NOT EXISTS PUBLIC.Pet (id INT PRIMARY KEY)"))
+                .isEqualTo("PET");
+        assertThat(IgniteThinStatementType.ddlTarget("ALTER TABLE \"Pet\" ADD COLUMN name VARCHAR")).isEqualTo("Pet");
+        assertThat(IgniteThinStatementType.ddlTarget("DROP TABLE IF EXISTS pet")).isEqualTo("PET");
+        assertThat(IgniteThinStatementType.ddlTarget("CREATE INDEX IF NOT EXISTS pet_name_idx ON Pet (name)")).isEqualTo("PET");
+        assertThat(IgniteThinStatementType.ddlTarget("CREATE SPATIAL INDEX pet_geo_idx ON \"s.x\".Pet (geo)")).isEqualTo("PET");
+        assertThat(IgniteThinStatementType.ddlTarget("DROP INDEX pet_name_idx")).isNull();
+    }
+
+    /**
+     * Should find hints in block and line comments.
+     */
+    @Test
+    public void shouldFindHints() {
+        assertThat(IgniteThinStatementType.hasHint("/* ignite:noplan */ CREATE INDEX i ON Pet (name)", "noplan")).isTrue();
+        assertThat(IgniteThinStatementType.hasHint("-- IGNITE:noplan\nCREATE INDEX i ON Pet (name)", "noplan")).isTrue();
+        assertThat(IgniteThinStatementType.hasHint("/* ignite:noplan-later */ CREATE INDEX i ON Pet (name)", "noplan")).isFalse();
+        assertThat(IgniteThinStatementType.hasHint("CREATE INDEX ignite_noplan ON Pet (name)", "noplan")).isFalse();
+    }
+}
@@ -0,0 +1,6 @@
+CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR) WITH "template=partitioned,cache_group=pets";
+CREATE TABLE Visit (id INT PRIMARY KEY, petId INT) WITH "template=partitioned,cache_group=pets";
+CREATE TABLE Owner (id INT PRIMARY KEY, name VARCHAR) WITH "template=partitioned";
+CREATE TABLE City (id INT PRIMARY KEY, name VARCHAR) WITH "template=replicated";
+
+CREATE INDEX pet_name_idx ON Pet (name);
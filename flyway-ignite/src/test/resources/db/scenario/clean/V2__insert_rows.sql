@@ -0,0 +1,5 @@
+INSERT INTO Pet (id, name) VALUES (1, 'Rex');
+INSERT INTO Pet (id, name) VALUES (2, 'Tom');
+INSERT INTO Visit (id, petId) VALUES (1, 1);
+INSERT INTO Owner (id, name) VALUES (1, 'John');
+INSERT INTO City (id, name) VALUES (1, 'Paris');
@@ -0,0 +1,3 @@
+CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR) WITH "template=partitioned";
+
+COPY FROM 'data/pets.csv' INTO Pet (id, name) FORMAT CSV;
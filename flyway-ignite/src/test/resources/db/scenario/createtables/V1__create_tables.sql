@@ -0,0 +1,6 @@
+CREATE TABLE Person (id INT, orgId INT, name VARCHAR(64) NOT NULL, salary DECIMAL(10, 2), PRIMARY KEY (id, orgId))
+    WITH "template=partitioned,backups=1,atomicity=transactional,affinity_key=orgId";
+
+CREATE TABLE IF NOT EXISTS City (id BIGINT PRIMARY KEY, name VARCHAR) WITH "template=replicated";
+
+CREATE TABLE Tag (id INT PRIMARY KEY, label VARCHAR) WITH "wrap_value=false,cache_group=tags";
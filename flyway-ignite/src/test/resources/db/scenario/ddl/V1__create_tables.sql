@@ -0,0 +1,7 @@
+CREATE TABLE Pet (id INT PRIMARY KEY, name VARCHAR) WITH "template=partitioned";
+CREATE TABLE Owner (id INT PRIMARY KEY, name VARCHAR) WITH "template=partitioned";
+CREATE TABLE Visit (id INT PRIMARY KEY, petId INT) WITH "template=partitioned";
+
+CREATE INDEX pet_name_idx ON Pet (name);
+CREATE INDEX owner_name_idx ON Owner (name);
+CREATE INDEX visit_pet_idx ON Visit (petId);
@@ -0,0 +1,4 @@
+CREATE TABLE IF NOT EXISTS Visit (
+   id UUID PRIMARY KEY,
+   petId UUID NOT NULL,
+) WITH "template=replicated,atomicity=atomic,cache_name=VisitCache";